@@ -1,3 +1,5 @@
+#include <stdlib.h>
+#include <string.h>
 #include "fstapi.h"
 
 int getHierType(struct fstHier * hier){
@@ -28,4 +30,66 @@ static void forward_cb(void *user_callback_data_pointer, uint64_t time, fstHandl
 
 void iterateValueChanges(void* ctx, value_change_callback vcc) {
 	fstReaderIterBlocks(ctx, forward_cb, vcc, NULL);
-}
\ No newline at end of file
+}
+typedef void (*value_buffer_callback)(int count);
+
+struct value_buffer {
+	int64_t *data;           /* the buffer provided by the caller */
+	int capacity;            /* capacity in 64bit words */
+	int count;               /* used 64bit words */
+	const int32_t *widths;   /* width per facility handle, 0 for reals */
+	value_buffer_callback flush;
+};
+
+static void buffer_cb(void *user_callback_data_pointer, uint64_t time, fstHandle facidx, const unsigned char *value) {
+	struct value_buffer *vb = (struct value_buffer *)user_callback_data_pointer;
+	int width = vb->widths[facidx];
+	int nwords = width > 0 ? (width + 31) / 32 : 1;
+	if(2 + nwords > vb->capacity) {
+		/* the record does not fit into the empty buffer, the caller has to
+		 * read such facilities as strings */
+		return;
+	}
+	if(vb->count + 2 + nwords > vb->capacity) {
+		vb->flush(vb->count);
+		vb->count = 0;
+	}
+	int64_t *rec = vb->data + vb->count;
+	rec[0] = (int64_t)time;
+	rec[1] = ((int64_t)facidx << 32) | nwords;
+	if(width == 0) {
+		double d = strtod((const char *)value, NULL);
+		memcpy(rec + 2, &d, sizeof(d));
+	} else {
+		/* 2 bits per bit as in BitValue: 0, 1, x, z, the first character is the msb,
+		 * shorter values are zero extended */
+		int len = strlen((const char *)value);
+		int n = len < width ? len : width;
+		memset(rec + 2, 0, nwords * sizeof(int64_t));
+		for(int i = 0; i < n; ++i) {
+			int bit = n - 1 - i;
+			uint64_t v;
+			switch(value[i]) {
+			case '0': v = 0; break;
+			case '1': v = 1; break;
+			case 'z': v = 3; break;
+			default:  v = 2; break;
+			}
+			rec[2 + bit / 32] |= (int64_t)(v << ((bit % 32) * 2));
+		}
+	}
+	vb->count += 2 + nwords;
+}
+
+/*
+ * iterates the value changes of the masked facilities and writes them as records of
+ * time, facidx<<32|nwords and nwords value words into data. The records are handed
+ * over by calling flush once the buffer is full and at the end. Changes of facilities
+ * whose record exceeds the capacity are skipped.
+ */
+void iterateValueChangesBuffered(void* ctx, int64_t *data, int capacity, const int32_t *widths, value_buffer_callback flush) {
+	struct value_buffer vb = { data, capacity, 0, widths, flush };
+	fstReaderIterBlocks(ctx, buffer_cb, &vb, NULL);
+	if(vb.count > 0)
+		flush(vb.count);
+}
@@ -14,6 +14,7 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.File;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -22,7 +23,6 @@ import java.util.Vector;
 import com.google.common.collect.Iterables;
 import com.minres.scviewer.database.BitVector;
 import com.minres.scviewer.database.DoubleVal;
-import com.minres.scviewer.database.EventList;
 import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.IWaveformDb;
@@ -48,6 +48,13 @@ public class FstDbLoader implements IWaveformDbLoader, IFstDatabaseBuilder {
 
 	private long timeScaleFactor;
 	
+	/**
+	 * If the signals of the loaded file use time windows, null if not yet determined.
+	 * Time windows can be enabled using the system property FstTimeWindowed which is
+	 * read when a file is loaded.
+	 */
+	private Boolean timeWindowed;
+
 	/** The pcs. */
 	protected PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
@@ -81,13 +88,26 @@ public class FstDbLoader implements IWaveformDbLoader, IFstDatabaseBuilder {
 		pcs.firePropertyChange(IWaveformDbLoader.LOADING_FINISHED, null, null);
 	}
 
-	public void dispose() {
+	public synchronized void dispose() {
 		if(parser!=null) {
 			parser.close();
 			parser=null;
 		}
 		moduleStack=null;
 		signals=null;
+		timeWindowed=null;
+	}
+
+	/**
+	 * Checks if signals decode their events in time windows. This needs more than
+	 * one value change block since windows are made of whole blocks.
+	 *
+	 * @return true, if signals shall use time windows
+	 */
+	boolean isTimeWindowed() {
+		if(timeWindowed==null)
+			timeWindowed = Boolean.getBoolean("FstTimeWindowed") && parser!=null && parser.getValueChangeSectionCount()>1;
+		return timeWindowed;
 	}
 
 	/* (non-Javadoc)
@@ -183,8 +203,62 @@ public class FstDbLoader implements IWaveformDbLoader, IFstDatabaseBuilder {
 		pcs.removePropertyChangeListener(l);
 	}
 
-	public void getEvents(int id, int width, IEventList values) {
-		if(values instanceof EventList)
-			parser.getValueChanges(id, width, timeScaleFactor, (EventList) values);
+	/**
+	 * Reads the events of all signals of this loader not loaded yet in one pass.
+	 *
+	 * @param waveforms the waveforms
+	 */
+	@Override
+	public synchronized void loadEvents(Collection<IWaveform> waveforms) {
+		if(parser==null)
+			return;
+		List<FstSignal<?>> pending = new ArrayList<>();
+		for(IWaveform waveform: waveforms) {
+			if(waveform instanceof FstSignal<?>) {
+				FstSignal<?> signal = (FstSignal<?>) waveform;
+				if(signal.getLoader()==this && !signal.isLoaded())
+					pending.add(signal);
+			}
+		}
+		if(pending.isEmpty())
+			return;
+		int[] ids = new int[pending.size()];
+		int[] widths = new int[pending.size()];
+		IEventList[] values = new IEventList[pending.size()];
+		for(int i=0; i<ids.length; ++i) {
+			ids[i]=(int) pending.get(i).getId();
+			widths[i]=pending.get(i).getWidth();
+			values[i]=pending.get(i).getValues();
+		}
+		parser.getValueChanges(ids, widths, timeScaleFactor, values);
+		for(FstSignal<?> signal: pending)
+			signal.setLoaded();
+	}
+
+	/**
+	 * Reads all events of a single signal.
+	 *
+	 * @param id     the facility handle
+	 * @param width  the signal width
+	 * @param values the event list to fill
+	 */
+	synchronized void readEvents(int id, int width, IEventList values) {
+		if(parser!=null)
+			parser.getValueChanges(new int[] {id}, new int[] {width}, timeScaleFactor, new IEventList[] {values});
+	}
+
+	/**
+	 * Reads the events of a single signal in the value change blocks intersecting
+	 * the time range [start, end].
+	 *
+	 * @param id     the facility handle
+	 * @param width  the signal width
+	 * @param values the event list to fill
+	 * @param start  the start time
+	 * @param end    the end time
+	 */
+	synchronized void readEvents(int id, int width, IEventList values, long start, long end) {
+		if(parser!=null)
+			parser.getValueChanges(new int[] {id}, new int[] {width}, timeScaleFactor, new IEventList[] {values}, start, end);
 	}
 }
@@ -11,17 +11,27 @@
 package com.minres.scviewer.database.fst;
 
 import java.io.File;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
 
 import com.minres.scviewer.database.BitVector;
-import com.minres.scviewer.database.EventList;
+import com.minres.scviewer.database.DoubleVal;
+import com.minres.scviewer.database.IEventList;
+import com.minres.scviewer.database.SignalEventList;
 import com.minres.scviewer.database.fst.FstLibrary.HierAttr;
 import com.minres.scviewer.database.fst.FstLibrary.HierScope;
 import com.minres.scviewer.database.fst.FstLibrary.HierType;
 import com.minres.scviewer.database.fst.FstLibrary.HierVar;
+import com.minres.scviewer.database.fst.FstLibrary.ValueBufferCallback;
 import com.minres.scviewer.database.fst.FstLibrary.ValueChangeCallback;
+import com.sun.jna.Memory;
 import com.sun.jna.Pointer;
 
 class FstFileParser {
+
+	/** The size of the buffer for binary value changes in 64bit words (1MiB). */
+	static final int VALUE_BUFFER_SIZE = 1 << 17;
+
 	long currentTime;
 	final File file;
 	Pointer fst;
@@ -76,16 +86,128 @@ class FstFileParser {
 	    	return false;
 	}
 
-	public void getValueChanges(final int id, final int width, long timeScale, final EventList values) {
+	/**
+	 * A destination of value changes, facilities referenced by several signals have
+	 * a chain of destinations.
+	 */
+	private static class ValueTarget {
+		final int width;
+		final IEventList values;
+		final SignalEventList packedValues;
+		final ValueTarget next;
+
+		ValueTarget(int width, IEventList values, ValueTarget next) {
+			this.width = width;
+			this.values = values;
+			this.packedValues = values instanceof SignalEventList && ((SignalEventList)values).isPackable() ?
+					(SignalEventList) values : null;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Reads the value changes of several facilities in a single pass over the value
+	 * change blocks and dispatches them by facility index. If the native library
+	 * supports it and the widest value fits into the buffer the values are passed
+	 * in binary form through a direct buffer, otherwise as one string per change.
+	 *
+	 * @param ids       the facility handles
+	 * @param widths    the widths of the facilities
+	 * @param timeScale the time scale factor
+	 * @param values    the event lists to fill
+	 */
+	public void getValueChanges(int[] ids, int[] widths, long timeScale, IEventList[] values) {
+		final ValueTarget[] targets = new ValueTarget[FstLibrary.fstReaderGetMaxHandle(fst) + 1];
 		FstLibrary.fstReaderClrFacProcessMaskAll(fst);
-		FstLibrary.fstReaderSetFacProcessMask(fst, id);
-		FstLibrary.iterateValueChanges(fst, new ValueChangeCallback() {
+		boolean fitsBuffer = true;
+		for (int i = 0; i < ids.length; i++) {
+			targets[ids[i]] = new ValueTarget(widths[i], values[i], targets[ids[i]]);
+			FstLibrary.fstReaderSetFacProcessMask(fst, ids[i]);
+			fitsBuffer &= getRecordSize(widths[i]) <= VALUE_BUFFER_SIZE;
+		}
+		if (FstLibrary.Buffered.AVAILABLE && fitsBuffer)
+			getBufferedValueChanges(targets, timeScale);
+		else
+			FstLibrary.iterateValueChanges(fst, new ValueChangeCallback() {
+				@Override
+				public void callback(long time, int facidx, String value) {
+					for (ValueTarget t = targets[facidx]; t != null; t = t.next) {
+						if (t.packedValues != null)
+							t.packedValues.putPacked(time*timeScale, BitVector.pack(t.width, value));
+						else
+							t.values.put(time*timeScale, BitVector.fromString(t.width, value));
+					}
+				}
+			});
+	}
+
+	/** the number of buffer words of a value change record, see fst_helper.c */
+	private static long getRecordSize(int width) {
+		return 2 + (width > 0 ? (width + 31L) / 32 : 1);
+	}
+
+	private void getBufferedValueChanges(final ValueTarget[] targets, final long timeScale) {
+		Memory widthMem = new Memory(targets.length * 4L);
+		widthMem.clear();
+		for (int i = 0; i < targets.length; i++)
+			if (targets[i] != null)
+				widthMem.setInt(i * 4L, targets[i].width);
+		final Memory data = new Memory(VALUE_BUFFER_SIZE * 8L);
+		final LongBuffer buffer = data.getByteBuffer(0, data.size()).order(ByteOrder.nativeOrder()).asLongBuffer();
+		FstLibrary.Buffered.iterateValueChangesBuffered(fst, data, VALUE_BUFFER_SIZE, widthMem, new ValueBufferCallback() {
 			@Override
-			public void callback(long time, int facidx, String value) {
-				values.put(time*timeScale, BitVector.fromString(width, value));
+			public void callback(int count) {
+				int pos = 0;
+				while (pos < count) {
+					long time = buffer.get(pos) * timeScale;
+					long header = buffer.get(pos + 1);
+					int facidx = (int) (header >>> 32);
+					int words = (int) header;
+					pos += 2;
+					for (ValueTarget t = targets[facidx]; t != null; t = t.next) {
+						if (t.width == 0) {
+							t.values.put(time, new DoubleVal(Double.longBitsToDouble(buffer.get(pos))));
+						} else if (t.packedValues != null) {
+							t.packedValues.putPacked(time, buffer.get(pos));
+						} else {
+							long[] packed = new long[words];
+							for (int i = 0; i < words; i++)
+								packed[i] = buffer.get(pos + i);
+							t.values.put(time, BitVector.fromPacked(t.width, packed));
+						}
+					}
+					pos += words;
+				}
 			}
 		});
 	}
+
+	/**
+	 * Reads the value changes of several facilities restricted to the value change
+	 * blocks intersecting the time range [startTime, endTime]. Since whole blocks are
+	 * decoded the result starts with the values at the begin of the first block
+	 * and may extend beyond endTime.
+	 *
+	 * @param ids       the facility handles
+	 * @param widths    the widths of the facilities
+	 * @param timeScale the time scale factor
+	 * @param values    the event lists to fill
+	 * @param startTime the start of the range in database time units
+	 * @param endTime   the end of the range in database time units
+	 */
+	public void getValueChanges(int[] ids, int[] widths, long timeScale, IEventList[] values, long startTime, long endTime) {
+		FstLibrary.fstReaderSetLimitTimeRange(fst, startTime/timeScale, endTime/timeScale+1);
+		try {
+			getValueChanges(ids, widths, timeScale, values);
+		} finally {
+			FstLibrary.fstReaderSetUnlimitedTimeRange(fst);
+		}
+	}
+
+	public long getValueChangeSectionCount() {
+		return FstLibrary.fstReaderGetValueChangeSectionCount(fst);
+	}
+
 	public void close() {
     	FstLibrary.fstReaderClose(fst);		
 	}
@@ -191,6 +191,8 @@ public class FstLibrary {
     public static native void      fstReaderClrFacProcessMask(Pointer ctx, int facidx);
     public static native void      fstReaderSetFacProcessMaskAll(Pointer ctx);
     public static native void      fstReaderClrFacProcessMaskAll(Pointer ctx);
+    public static native void      fstReaderSetLimitTimeRange(Pointer ctx, long start_time, long end_time);
+    public static native void      fstReaderSetUnlimitedTimeRange(Pointer ctx);
 
     public interface ValueChangeCallback extends Callback {
     	void callback(long time, int facidx, String value);
@@ -198,6 +200,38 @@ public class FstLibrary {
 
     public static native void      iterateValueChanges(Pointer ctx, ValueChangeCallback vcc);
 
+    public interface ValueBufferCallback extends Callback {
+    	void callback(int count);
+    }
+
+    /**
+     * The binding of the buffered value change iteration. It is kept separate as
+     * native libraries built before it was added do not provide it.
+     */
+    public static class Buffered {
+
+    	public static final boolean AVAILABLE;
+
+    	/**
+    	 * Iterates the value changes of the masked facilities. They are written into data as
+    	 * records of time, facidx<<32|nwords and nwords value words, the value words hold
+    	 * 2 bits per bit (see BitVector) or the bits of a double for facilities of width 0.
+    	 * The callback is called with the number of words used once the buffer is full and
+    	 * at the end.
+    	 */
+    	public static native void  iterateValueChangesBuffered(Pointer ctx, Pointer data, int capacity, Pointer widths, ValueBufferCallback vbc);
+
+    	static {
+    		boolean available = true;
+    		try {
+    			Native.register("fstapi");
+    		} catch (UnsatisfiedLinkError e) {
+    			available = false;
+    		}
+    		AVAILABLE = available;
+    	}
+    }
+
     /*	untranslated functions:
     int             fstReaderIterBlocks(Pointer ctx, ValueChangeCallback vcc, Pointer user_callback_data_pointer, Pointer vcdhandle);
 	Pointer         fstReaderGetCurrentScopeUserInfo(Pointer ctx);
@@ -211,8 +245,6 @@ public class FstLibrary {
 	                        Pointer  user_callback_data_pointer, FILE *vcdhandle);
 	void            fstReaderIterBlocksSetNativeDoublesOnCallback(Pointer ctx, int enable);
 	int             fstReaderProcessHier(Pointer ctx, FILE *vcdhandle);
-	void            fstReaderSetLimitTimeRange(Pointer ctx, long start_time, long end_time);
-	void            fstReaderSetUnlimitedTimeRange(Pointer ctx);
 	void            fstReaderSetVcdExtensions(Pointer ctx, int enable);
 */	
 
@@ -10,13 +10,16 @@
  *******************************************************************************/
 package com.minres.scviewer.database.fst;
 
+import java.util.Collections;
+
 import com.minres.scviewer.database.DirectionType;
 import com.minres.scviewer.database.EventEntry;
-import com.minres.scviewer.database.EventList;
 import com.minres.scviewer.database.HierNode;
 import com.minres.scviewer.database.IEvent;
 import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
+import com.minres.scviewer.database.PrimitiveEventList;
+import com.minres.scviewer.database.SignalEventList;
 import com.minres.scviewer.database.WaveformType;
 
 public class FstSignal<T extends IEvent> extends HierNode implements IWaveform {
@@ -33,6 +36,8 @@ public class FstSignal<T extends IEvent> extends HierNode implements IWaveform {
 
 	private final IEventList values;
 
+	private volatile boolean loaded = false;
+
 	public FstSignal(FstDbLoader loader, String name) {
 		this(loader, 0, name, 0, 1);
 	}
@@ -48,7 +53,12 @@ public class FstSignal<T extends IEvent> extends HierNode implements IWaveform {
 		this.id=id;
 		this.direction = direction;
 		this.width=width;
-		this.values=new EventList();
+		if(loader!=null && loader.isTimeWindowed()) {
+			// the list decodes the accessed time ranges itself
+			this.values=new FstWindowedEventList(loader, id, width);
+			this.loaded=true;
+		} else
+			this.values=width>0?new SignalEventList(width):new PrimitiveEventList();
 	}
 
 	public FstSignal(FstSignal<T> o, int id, String name) {
@@ -59,6 +69,7 @@ public class FstSignal<T extends IEvent> extends HierNode implements IWaveform {
 		this.direction = 0;
 		this.width=o.width;
 		this.values=o.values;
+		this.loaded=o.loaded;
 	}
 
 	@Override
@@ -73,8 +84,24 @@ public class FstSignal<T extends IEvent> extends HierNode implements IWaveform {
 
 	@Override
 	public IEventList getEvents() {
-		if(values.size()==0)
-			loader.getEvents(id, width, values);
+		if(!loaded)
+			loader.loadEvents(Collections.singletonList(this));
+		return values;
+	}
+
+	FstDbLoader getLoader() {
+		return loader;
+	}
+
+	boolean isLoaded() {
+		return loaded;
+	}
+
+	void setLoaded() {
+		loaded=true;
+	}
+
+	IEventList getValues() {
 		return values;
 	}
 
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.fst;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.minres.scviewer.database.EventEntry;
+import com.minres.scviewer.database.IEvent;
+import com.minres.scviewer.database.IEventList;
+import com.minres.scviewer.database.PrimitiveEventList;
+import com.minres.scviewer.database.SignalEventList;
+
+/**
+ * An event list decoding only the part of the FST file being accessed. Queries
+ * for a time range decode the value change blocks intersecting the range plus a
+ * margin of the range size on either side. The decoded window is cached and
+ * widened to cover further queries, operations on the whole list decode all
+ * blocks. Lookups of the value valid at a time widen the window backwards until
+ * the last change before the time is decoded.
+ */
+class FstWindowedEventList implements IEventList {
+
+	/** The minimum size of a decoded window in database time units (1us). */
+	static final long MIN_WINDOW = 1000000000L;
+
+	private final FstDbLoader loader;
+
+	private final int id;
+
+	private final int width;
+
+	private IEventList values;
+
+	/** the covered time range, empty if start>end */
+	private long coveredStart = 1;
+
+	private long coveredEnd = 0;
+
+	private volatile boolean complete = false;
+
+	FstWindowedEventList(FstDbLoader loader, int id, int width) {
+		this.loader = loader;
+		this.id = id;
+		this.width = width;
+		this.values = createList();
+	}
+
+	private IEventList createList() {
+		return width > 0 ? new SignalEventList(width) : new PrimitiveEventList();
+	}
+
+	/**
+	 * Makes sure the time range [from, to] is decoded.
+	 */
+	private synchronized IEventList ensure(long from, long to) {
+		if (complete || (from >= coveredStart && to <= coveredEnd))
+			return values;
+		long maxTime = loader.getMaxTime();
+		long margin = Math.max(to - from, MIN_WINDOW);
+		long start = Math.max(0, from - margin);
+		long end = to > maxTime - margin ? maxTime : to + margin;
+		if (coveredStart <= coveredEnd) {
+			start = Math.min(start, coveredStart);
+			end = Math.max(end, coveredEnd);
+		}
+		// decoding most of the file in windows costs more than decoding it once
+		if (end - start > maxTime / 2)
+			return ensureAll();
+		IEventList list = createList();
+		loader.readEvents(id, width, list, start, end);
+		values = start > 0 ? dropBlockStart(list) : list;
+		coveredStart = start;
+		coveredEnd = end;
+		return values;
+	}
+
+	/**
+	 * Removes the first entry of a decoded window if it is no value change. The
+	 * first decoded block starts with the values valid at its begin, this entry
+	 * is only kept if the value changes at that time.
+	 */
+	private IEventList dropBlockStart(IEventList list) {
+		EventEntry first = list.firstEntry();
+		if (first == null || first.timestamp == 0)
+			return list;
+		IEventList before = createList();
+		loader.readEvents(id, width, before, first.timestamp - 1, first.timestamp - 1);
+		EventEntry previous = before.floorEntry(first.timestamp);
+		if (previous == null || previous.timestamp == first.timestamp)
+			return list;
+		IEventList res = createList();
+		for (EventEntry e : list.entrySet())
+			if (e.timestamp != first.timestamp)
+				for (IEvent evt : e.events)
+					res.put(e.timestamp, evt);
+		return res;
+	}
+
+	/** checks if the decoded window reaches back to the begin of the file */
+	private synchronized boolean coversStart() {
+		return complete || (coveredStart == 0 && coveredStart <= coveredEnd);
+	}
+
+	private synchronized IEventList ensureAll() {
+		if (!complete) {
+			IEventList list = createList();
+			loader.readEvents(id, width, list);
+			values = list;
+			complete = true;
+		}
+		return values;
+	}
+
+	@Override
+	public int size() {
+		return ensureAll().size();
+	}
+
+	@Override
+	public Collection<EventEntry> entrySet() {
+		return ensureAll().entrySet();
+	}
+
+	@Override
+	public boolean containsKey(long key) {
+		return ensure(key, key).containsKey(key);
+	}
+
+	@Override
+	public IEvent[] get(long key) {
+		return ensure(key, key).get(key);
+	}
+
+	@Override
+	public void put(long key, IEvent value) {
+		ensureAll().put(key, value);
+	}
+
+	@Override
+	public long firstKey() {
+		EventEntry e = firstEntry();
+		if (e == null)
+			throw new NoSuchElementException();
+		return e.timestamp;
+	}
+
+	@Override
+	public long lastKey() {
+		EventEntry e = lastEntry();
+		if (e == null)
+			throw new NoSuchElementException();
+		return e.timestamp;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return ensureAll().isEmpty();
+	}
+
+	@Override
+	public EventEntry floorEntry(long key) {
+		EventEntry e = ensure(key, key).floorEntry(key);
+		for (long span = MIN_WINDOW; e == null && !coversStart(); span *= 2)
+			e = ensure(Math.max(0, key - span), key).floorEntry(key);
+		return e;
+	}
+
+	@Override
+	public EventEntry ceilingEntry(long key) {
+		EventEntry e = ensure(key, key).ceilingEntry(key);
+		return e != null || complete ? e : ensureAll().ceilingEntry(key);
+	}
+
+	@Override
+	public EventEntry firstEntry() {
+		return ceilingEntry(0);
+	}
+
+	@Override
+	public EventEntry lastEntry() {
+		return floorEntry(loader.getMaxTime());
+	}
+
+	@Override
+	public EventEntry higherEntry(long key) {
+		EventEntry e = ensure(key, key).higherEntry(key);
+		return e != null || complete ? e : ensureAll().higherEntry(key);
+	}
+
+	@Override
+	public EventEntry lowerEntry(long key) {
+		return key > 0 ? floorEntry(key - 1) : null;
+	}
+
+	@Override
+	public IEventList subMap(long key, boolean b, long key2) {
+		return ensure(key, key2).subMap(key, b, key2);
+	}
+
+	@Override
+	public Iterator<EventEntry> iterator() {
+		return ensureAll().iterator();
+	}
+}
@@ -10,18 +10,13 @@
  *******************************************************************************/
 package com.minres.scviewer.database.ftr;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-
 import com.minres.scviewer.database.EventEntry;
-import com.minres.scviewer.database.EventList;
 import com.minres.scviewer.database.HierNode;
 import com.minres.scviewer.database.IEvent;
 import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
+import com.minres.scviewer.database.TxEventList;
 import com.minres.scviewer.database.WaveformType;
-import com.minres.scviewer.database.tx.ITx;
-import com.minres.scviewer.database.tx.ITxEvent;
 
 /**
  * The Class AbstractTxStream.
@@ -36,11 +31,14 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 	/** The loader. */
 	protected FtrDbLoader loader;
 
+	/** The event table shared by a stream and its generators. */
+	final TxEventList.Table eventTable;
+
 	/** The events. */
-	protected IEventList events = new EventList();
+	protected final TxEventList events;
 
 	/** The max concurrency. */
-	private int rowCount = -1;
+	private volatile int rowCount = -1;
 
 	/**
 	 * Instantiates a new abstract tx stream.
@@ -48,12 +46,16 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 	 * @param loader the loader
 	 * @param id     the id
 	 * @param name   the name
+	 * @param table  the event table of the stream
+	 * @param view   the view of the event table
 	 */
-	protected AbstractTxStream(FtrDbLoader loader, Long id, String name) {
+	protected AbstractTxStream(FtrDbLoader loader, Long id, String name, TxEventList.Table table, int view) {
 		super(name);
 		fullName=name;
 		this.loader = loader;
 		this.id = id;
+		this.eventTable = table;
+		this.events = new TxEventList(table, view);
 	}
 
 	/**
@@ -65,15 +67,6 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 	public String getFullName() {
 		return  fullName;
 	}
-	/**
-	 * Adds the event.
-	 *
-	 * @param evt the evt
-	 */
-	public void addEvent(ITxEvent evt) {
-		events.put(evt.getTime(), evt);
-	}
-
 	/**
 	 * Gets the events at time.
 	 *
@@ -82,7 +75,7 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 	 */
 	@Override
 	public IEvent[] getEventsAtTime(long time) {
-		return events.get(time);
+		return getEvents().get(time);
 	}
 
 	/**
@@ -93,11 +86,11 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 	 */
 	@Override
 	public IEvent[] getEventsBeforeTime(long time) {
-		EventEntry e = events.floorEntry(time);
+		EventEntry e = getEvents().floorEntry(time);
 		if (e == null)
 			return new IEvent[] {};
 		else
-			return events.floorEntry(time).events;
+			return e.events;
 	}
 
 	/**
@@ -138,45 +131,15 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 	}
 
 	/**
-	 * Calculate concurrency.
+	 * Calculate concurrency, the rows of the stream and of its generators are
+	 * assigned in parallel. The events are loaded first if needed, this already
+	 * calculates the concurrency of a stream.
 	 */
 	void calculateConcurrency() {
+		getEvents();
 		if (rowCount>=0)
 			return;
-		ArrayList<Long> rowEndTime = new ArrayList<>();
-		HashMap<Long, Integer> rowByTxId = new HashMap<>();
-		for(EventEntry entry: getEvents()) {
-			for(IEvent evt:entry.events) {
-				TxEvent txEvt = (TxEvent) evt;
-				ITx tx = txEvt.getTransaction();
-				int rowIdx = 0;
-				switch(evt.getKind()) {
-				case END: //TODO: might throw NPE in concurrent execution
-					Long txId = txEvt.getTransaction().getId();
-					txEvt.setConcurrencyIndex(rowByTxId.get(txId));
-					rowByTxId.remove(txId);
-					break;
-				case SINGLE:
-					for (; rowIdx < rowEndTime.size() && rowEndTime.get(rowIdx)>tx.getBeginTime(); rowIdx++);
-					if (rowEndTime.size() <= rowIdx)
-						rowEndTime.add(tx.getEndTime());
-					else
-						rowEndTime.set(rowIdx, tx.getEndTime());
-					((TxEvent) evt).setConcurrencyIndex(rowIdx);
-					break;
-				case BEGIN:
-					for (; rowIdx < rowEndTime.size() && rowEndTime.get(rowIdx)>tx.getBeginTime(); rowIdx++);
-					if (rowEndTime.size() <= rowIdx)
-						rowEndTime.add(tx.getEndTime());
-					else
-						rowEndTime.set(rowIdx, tx.getEndTime());
-					((TxEvent) evt).setConcurrencyIndex(rowIdx);
-					rowByTxId.put(tx.getId(), rowIdx);
-					break;
-				}
-			}
-		}
-		rowCount=rowEndTime.size()>0?rowEndTime.size():1;
+		rowCount = events.assignRows();
 		getChildNodes().parallelStream().forEach(c -> ((TxGenerator)c).calculateConcurrency());
 	}
 }
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2023 MINRES Technologies GmbH
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IT Just working - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.ftr;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A least recently used cache of decompressed chunks bounded by the total size
+ * of the chunks in bytes. Evicted chunks are read again from the file on the next
+ * access.
+ */
+class ChunkCache {
+
+	private static final class Key {
+		final long streamId;
+		final int blockId;
+
+		Key(long streamId, int blockId) {
+			this.streamId = streamId;
+			this.blockId = blockId;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return streamId == other.streamId && blockId == other.blockId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(streamId, blockId);
+		}
+	}
+
+	private final long capacity;
+
+	private long size = 0;
+
+	private final LinkedHashMap<Key, byte[]> chunks = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Instantiates a new chunk cache.
+	 *
+	 * @param capacity the maximum size of the cached chunks in bytes
+	 */
+	ChunkCache(long capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Gets a chunk.
+	 *
+	 * @param streamId the stream id
+	 * @param blockId  the index of the chunk in the stream
+	 * @return the chunk or null if it is not cached
+	 */
+	synchronized byte[] get(long streamId, int blockId) {
+		return chunks.get(new Key(streamId, blockId));
+	}
+
+	/**
+	 * Adds a chunk evicting the least recently used ones if the capacity is exceeded.
+	 * Chunks larger than the capacity are not cached.
+	 *
+	 * @param streamId the stream id
+	 * @param blockId  the index of the chunk in the stream
+	 * @param chunk    the chunk
+	 */
+	synchronized void put(long streamId, int blockId, byte[] chunk) {
+		if (chunk.length > capacity)
+			return;
+		byte[] old = chunks.put(new Key(streamId, blockId), chunk);
+		if (old != null)
+			size -= old.length;
+		size += chunk.length;
+		Iterator<Map.Entry<Key, byte[]>> it = chunks.entrySet().iterator();
+		while (size > capacity && it.hasNext()) {
+			size -= it.next().getValue().length;
+			it.remove();
+		}
+	}
+
+	/**
+	 * Gets the size of the cached chunks.
+	 *
+	 * @return the size in bytes
+	 */
+	synchronized long size() {
+		return size;
+	}
+
+	/**
+	 * Removes all chunks.
+	 */
+	synchronized void clear() {
+		chunks.clear();
+		size = 0;
+	}
+}
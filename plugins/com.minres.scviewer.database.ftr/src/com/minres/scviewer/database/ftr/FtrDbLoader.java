@@ -13,15 +13,19 @@ package com.minres.scviewer.database.ftr;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
 import org.eclipse.collections.impl.map.mutable.UnifiedMap;
@@ -40,6 +44,7 @@ import com.minres.scviewer.database.RelationType;
 import com.minres.scviewer.database.RelationTypeFactory;
 import com.minres.scviewer.database.tx.ITx;
 import com.minres.scviewer.database.tx.ITxAttribute;
+import com.minres.scviewer.database.tx.TxCache;
 
 import jacob.CborDecoder;
 import jacob.CborType;
@@ -73,7 +78,7 @@ public class FtrDbLoader implements IWaveformDbLoader {
 	final Map<Long, TxGenerator> txGenerators = UnifiedMap.newMap();
 
 	/** The transactions. */
-	final Map<Long, FtrTx> transactions = UnifiedMap.newMap();
+	final Map<Long, FtrTx> transactions = new ConcurrentHashMap<>();
 
 	/** The attribute types. */
 	final Map<String, TxAttributeType> attributeTypes = UnifiedMap.newMap();
@@ -85,7 +90,7 @@ public class FtrDbLoader implements IWaveformDbLoader {
 	final HashMultimap<Long, FtrRelation> relationsOut = HashMultimap.create();
 
 	/** The tx cache. */
-	final Map<Long, Tx> txCache = UnifiedMap.newMap();
+	final TxCache<Tx> txCache = new TxCache<>();
 
 	/** The threads. */
 	List<Thread> threads = new ArrayList<>();
@@ -98,6 +103,16 @@ public class FtrDbLoader implements IWaveformDbLoader {
 	protected PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
 	long time_scale_factor = 1000l;
+
+	/** The default size of the chunk cache in MiB. */
+	private static final long DEFAULT_CHUNK_CACHE_SIZE = 256;
+
+	/** The size of the chunk cache in MiB, set using the loader option {@link #CHUNK_CACHE_SIZE}. */
+	private long chunkCacheSize = DEFAULT_CHUNK_CACHE_SIZE;
+
+	/** The cache of decompressed chunks. */
+	ChunkCache chunkCache = new ChunkCache(0);
+
 	/**
 	 * Adds the property change listener.
 	 *
@@ -131,21 +146,17 @@ public class FtrDbLoader implements IWaveformDbLoader {
 	 * @param txId the tx id
 	 * @return the transaction or null if the transaction is not available
 	 */
-	public synchronized ITx getTransaction(long txId) {
-		if (txCache.containsKey(txId))
-			return txCache.get(txId);
-		if(transactions.containsKey(txId)) {
-			Tx tx = new Tx(this, transactions.get(txId));
-			txCache.put(txId, tx);
-			return tx;
-		} else {
-			return null;
-		}
+	public ITx getTransaction(long txId) {
+		return txCache.get(txId, id -> {
+			FtrTx scvTx = transactions.get(id);
+			return scvTx != null ? new Tx(this, scvTx) : null;
+		});
 	}
 
 	public FtrTx getScvTx(long id) {
-		if(transactions.containsKey(id))
-			return transactions.get(id);
+		FtrTx scvTx = transactions.get(id);
+		if(scvTx!=null)
+			return scvTx;
 		else
 			throw new IllegalArgumentException();
 	}
@@ -180,6 +191,7 @@ public class FtrDbLoader implements IWaveformDbLoader {
 	public void load(File file) throws InputFormatException {
 		dispose();
 		this.file=file;
+		chunkCache = new ChunkCache(chunkCacheSize << 20);
 		try {
 			fis = new FileInputStream(file);
 			FileChannel channel = fis.getChannel();
@@ -194,32 +206,77 @@ public class FtrDbLoader implements IWaveformDbLoader {
 		}
 	}
 
-	public synchronized List<? extends byte[]> getChunksAtOffsets(ArrayList<Long> fileOffsets) throws InputFormatException {
-		List<byte[]> ret = new ArrayList<>();
+	/**
+	 * Gets a chunk of a stream. Decompressed chunks are kept in a cache of limited
+	 * size shared by all streams, chunks not in the cache are read from the file.
+	 *
+	 * @param stream  the stream
+	 * @param blockId the index of the chunk in the stream
+	 * @return the chunk
+	 * @throws InputFormatException if the chunk could not be read
+	 */
+	byte[] getChunk(TxStream stream, int blockId) throws InputFormatException {
+		byte[] chunk = chunkCache.get(stream.getId(), blockId);
+		if(chunk==null) {
+			chunk = getChunkAtOffset(stream.fileOffsets.get(blockId));
+			chunkCache.put(stream.getId(), blockId, chunk);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Reads the chunk at the given file offset, negative offsets denote LZ4 compressed
+	 * chunks. The chunk is read using positional reads so several chunks can be read
+	 * concurrently.
+	 *
+	 * @param offset the file offset
+	 * @return the chunk
+	 * @throws InputFormatException if the chunk could not be read
+	 */
+	public byte[] getChunkAtOffset(long offset) throws InputFormatException {
 		try {
-			FileChannel fc = fis.getChannel();
-			for (Long offset : fileOffsets) {
-				if(offset>=0) {
-					fc.position(offset);
-					CborDecoder parser = new CborDecoder(fis);
-					ret.add(parser.readByteString());
-				} else {
-					fc.position(-offset);
-					CborDecoder parser = new CborDecoder(fis);
-					BlockLZ4CompressorInputStream decomp = new BlockLZ4CompressorInputStream(new ByteArrayInputStream(parser.readByteString()));
-					ret.add(decomp.readAllBytes());
-					decomp.close();
-				}
+			byte[] chunk = readByteString(fis.getChannel(), Math.abs(offset));
+			if(offset>=0)
+				return chunk;
+			try(BlockLZ4CompressorInputStream decomp = new BlockLZ4CompressorInputStream(new ByteArrayInputStream(chunk))) {
+				return decomp.readAllBytes();
 			}
 		} catch (Exception e) {
 			LOG.error("Error parsing file "+file.getName(), e);
-			transactions.clear();
 			throw new InputFormatException(e.toString());
 		}
-		return ret;
 	}
 
-	void parseTx(TxStream txStream, long blockId, byte[] chunk) throws IOException {
+	private static byte[] readByteString(FileChannel fc, long offset) throws IOException {
+		// the header of a CBOR byte string has at most 9 bytes
+		ByteBuffer header = ByteBuffer.allocate(9);
+		fc.read(header, offset);
+		CborDecoder cborDecoder = new CborDecoder(new ByteArrayInputStream(header.array(), 0, header.position()));
+		long len = cborDecoder.readByteStringLength();
+		if(len<0 || len>Integer.MAX_VALUE)
+			throw new IOException("Unsupported byte string length "+len+" at position "+offset);
+		ByteBuffer data = ByteBuffer.allocate((int)len);
+		long pos = offset+cborDecoder.getPos();
+		while(data.hasRemaining()) {
+			int read = fc.read(data, pos+data.position());
+			if(read<0)
+				throw new EOFException();
+		}
+		return data.array();
+	}
+
+	/**
+	 * Decodes the transactions of a chunk. This does not modify the database so
+	 * chunks can be decoded concurrently, the result is added using
+	 * {@link #addTransactions(List)}.
+	 *
+	 * @param blockId the index of the chunk in its stream
+	 * @param chunk   the chunk
+	 * @return the transactions in chunk order
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	List<FtrTx> parseTx(long blockId, byte[] chunk) throws IOException {
+		List<FtrTx> ret = new ArrayList<>();
 		CborDecoder cborDecoder = new CborDecoder(new ByteArrayInputStream(chunk));
 		long size = cborDecoder.readArrayLength();
 		assert(size==-1);
@@ -240,18 +297,7 @@ public class FtrDbLoader implements IWaveformDbLoader {
 					long startTime = cborDecoder.readInt()*time_scale_factor;
 					long endTime = cborDecoder.readInt()*time_scale_factor;
 					TxGenerator gen = txGenerators.get(genId);
-					FtrTx scvTx = new FtrTx(txId, gen.stream.getId(), genId, startTime, endTime, blockId, blockOffset);
-					updateTransactions(txId, scvTx);
-					TxStream stream = txStreams.get(gen.stream.getId());
-					if (scvTx.beginTime == scvTx.endTime) {
-						stream.addEvent(new TxEvent(this, EventKind.SINGLE, txId, scvTx.beginTime));
-						gen.addEvent(new TxEvent(this, EventKind.SINGLE, txId, scvTx.beginTime));
-					} else {
-						stream.addEvent(new TxEvent(this, EventKind.BEGIN, txId, scvTx.beginTime));
-						gen.addEvent(new TxEvent(this, EventKind.BEGIN, txId, scvTx.beginTime));
-						stream.addEvent(new TxEvent(this, EventKind.END, txId, scvTx.endTime));
-						gen.addEvent(new TxEvent(this, EventKind.END, txId, scvTx.endTime));
-					}
+					ret.add(new FtrTx(txId, gen.stream.getId(), genId, startTime, endTime, blockId, blockOffset));
 					break;
 				default:  { // skip over 7:begin attr, 8:record attr, 9:end attr
 					long sz = cborDecoder.readArrayLength();
@@ -277,12 +323,59 @@ public class FtrDbLoader implements IWaveformDbLoader {
 				}
 			}
 			next = cborDecoder.peekType();
-		}							
+		}
+		return ret;
+	}
+
+	/**
+	 * Adds decoded transactions and their events to the streams and generators.
+	 *
+	 * @param txs the transactions
+	 */
+	void addTransactions(List<FtrTx> txs) {
+		updateTransactions(txs);
+		for(FtrTx scvTx: txs) {
+			TxGenerator gen = txGenerators.get(scvTx.generatorId);
+			if (scvTx.beginTime == scvTx.endTime) {
+				gen.addEvent(EventKind.SINGLE, scvTx.id, scvTx.beginTime);
+			} else {
+				gen.addEvent(EventKind.BEGIN, scvTx.id, scvTx.beginTime);
+				gen.addEvent(EventKind.END, scvTx.id, scvTx.endTime);
+			}
+		}
+	}
+
+	/**
+	 * Sets the size of the chunk cache using the option {@link #CHUNK_CACHE_SIZE}.
+	 *
+	 * @param name  the name of the option
+	 * @param value the value
+	 */
+	@Override
+	public void setOption(String name, Object value) {
+		if (CHUNK_CACHE_SIZE.equals(name) && value instanceof Number)
+			chunkCacheSize = Math.max(0, ((Number) value).longValue());
+	}
+
+	/**
+	 * Loads the events of several streams concurrently.
+	 *
+	 * @param waveforms the waveforms
+	 */
+	@Override
+	public void loadEvents(Collection<IWaveform> waveforms) {
+		waveforms.stream()
+		.map(w -> w instanceof TxGenerator ? ((TxGenerator)w).stream : w)
+		.filter(w -> w instanceof TxStream && ((TxStream)w).loader==this)
+		.distinct().collect(Collectors.toList())
+		.parallelStream().forEach(w -> ((TxStream)w).loadStream());
 	}
 
-	private synchronized void updateTransactions(long txId, FtrTx scvTx) {
-		maxTime = maxTime > scvTx.endTime ? maxTime : scvTx.endTime;
-		transactions.put(txId, scvTx);
+	private synchronized void updateTransactions(List<FtrTx> txs) {
+		for(FtrTx scvTx: txs) {
+			maxTime = maxTime > scvTx.endTime ? maxTime : scvTx.endTime;
+			transactions.put(scvTx.id, scvTx);
+		}
 	}
 
 	public List<? extends ITxAttribute> parseAtrributes(byte[] chunk, long blockOffset) {
@@ -313,20 +406,20 @@ public class FtrDbLoader implements IWaveformDbLoader {
 					TxAttributeType attrType = getOrAddAttributeType(tag, type, attrName);
 					switch(type) {
 					case BOOLEAN:
-						ITxAttribute b = new TxAttribute(attrType, cborDecoder.readBoolean()?"True":"False");
+						ITxAttribute b = new TxAttribute(attrType, cborDecoder.readBoolean());
 						ret.add(b);
 						break;
 					case INTEGER:
 					case UNSIGNED:
 					case POINTER:
 					case TIME:
-						ITxAttribute a = new TxAttribute(attrType, String.valueOf(cborDecoder.readInt()));
+						ITxAttribute a = new TxAttribute(attrType, cborDecoder.readInt());
 						ret.add(a);
 						break;
 					case FLOATING_POINT_NUMBER:
 					case FIXED_POINT_INTEGER:
 					case UNSIGNED_FIXED_POINT_INTEGER:
-						ITxAttribute v = new TxAttribute(attrType, String.valueOf(cborDecoder.readFloat()));
+						ITxAttribute v = new TxAttribute(attrType, cborDecoder.readFloat());
 						ret.add(v);
 						break;
 					case ENUMERATION:
@@ -366,11 +459,13 @@ public class FtrDbLoader implements IWaveformDbLoader {
 			if(fis!=null) fis.close();
 			fis=null;
 		} catch (IOException e) { }
+		chunkCache.clear();
 		attrValues.clear();
 		relationTypes.clear();
 		txStreams.clear();
 		txGenerators.clear();
 		transactions.clear();
+		txCache.clear();
 		attributeTypes.clear();
 		relationsIn.clear();
 		relationsOut.clear();
@@ -78,7 +78,7 @@ class FtrTx implements Serializable {
 		if(attributes.size()==0)
 			try {
 				TxStream stream = loader.txStreams.get(streamId);
-				byte[] chunk = stream.getChunks().get((int)blockId);
+				byte[] chunk = stream.getChunk((int)blockId);
 				attributes.addAll(loader.parseAtrributes(chunk, blockOffset));
 			} catch (InputFormatException e) {
 				// TODO Auto-generated catch block
@@ -122,7 +122,7 @@ class Tx implements ITx {
 			return true;
 		if (obj == null || getClass() != obj.getClass())
 			return false;
-		return this.getScvTx().equals(((Tx) obj).getScvTx());
+		return id == ((Tx) obj).id && loader == ((Tx) obj).loader;
 	}
 
 	/**
@@ -132,7 +132,7 @@ class Tx implements ITx {
 	 */
 	@Override
 	public int hashCode() {
-		return getScvTx().hashCode();
+		return Long.hashCode(id);
 	}
 
 	/**
@@ -152,7 +152,7 @@ class Tx implements ITx {
 	 */
 	@Override
 	public long getId() {
-		return getScvTx().id;
+		return id;
 	}
 
 	/**
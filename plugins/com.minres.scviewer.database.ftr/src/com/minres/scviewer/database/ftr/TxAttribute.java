@@ -27,16 +27,16 @@ public class TxAttribute implements ITxAttribute, Serializable {
 	/** The attribute type. */
 	private final TxAttributeType attributeType;
 
-	/** The value. */
-	private final String value;
+	/** The native value. */
+	private final Object value;
 
 	/**
 	 * Instantiates a new tx attribute.
 	 *
 	 * @param type  the type
-	 * @param value the value
+	 * @param value the native value
 	 */
-	TxAttribute(TxAttributeType type, String value) {
+	TxAttribute(TxAttributeType type, Object value) {
 		this.attributeType = type;
 		this.value = value;
 	}
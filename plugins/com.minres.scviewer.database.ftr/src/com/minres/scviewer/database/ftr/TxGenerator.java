@@ -10,14 +10,14 @@
  *******************************************************************************/
 package com.minres.scviewer.database.ftr;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.minres.scviewer.database.DirectionType;
+import com.minres.scviewer.database.EventKind;
 import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
-import com.minres.scviewer.database.InputFormatException;
+import com.minres.scviewer.database.TxEventList;
 
 /**
  * The Class TxGenerator.
@@ -42,11 +42,25 @@ class TxGenerator extends AbstractTxStream {
 	 * @param stream the stream
 	 */
 	TxGenerator(FtrDbLoader loader, Long id, String name, TxStream stream) {
-		super(loader, id, name);
+		super(loader, id, name, stream.eventTable, TxEventList.GENERATOR);
 		this.stream = stream;
 		stream.addChild(this);
 	}
 
+	/**
+	 * Adds an event of a transaction of this generator to the events of the
+	 * generator and of its stream.
+	 *
+	 * @param kind the kind
+	 * @param txId the transaction id
+	 * @param time the time
+	 */
+	void addEvent(EventKind kind, long txId, long time) {
+		int evt = eventTable.add(kind, txId, time);
+		stream.events.add(evt);
+		events.add(evt);
+	}
+
 	/**
 	 * Checks if is same.
 	 *
@@ -65,21 +79,7 @@ class TxGenerator extends AbstractTxStream {
 	 */
 	@Override
 	public IEventList getEvents() {
-		if(events.size()==0) {
-			try {
-				List<byte[]> chunks = stream.getChunks();
-				int blockid = 0;
-				for (byte[] bs : chunks) {
-					loader.parseTx(stream, blockid, bs);
-				}
-			} catch (InputFormatException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-		}
+		stream.getEvents();
 		return events;
 	}
 	/**
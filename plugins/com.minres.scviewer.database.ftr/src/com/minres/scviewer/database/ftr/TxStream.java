@@ -13,23 +13,31 @@ package com.minres.scviewer.database.ftr;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.minres.scviewer.database.DirectionType;
 import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.InputFormatException;
+import com.minres.scviewer.database.TxEventList;
 
 /**
  * The Class TxStream.
  */
 class TxStream extends AbstractTxStream {
 
+	private static final Logger LOG = LoggerFactory.getLogger(TxStream.class);
+
 	/** The kind. */
 	final String kind;
 
 	final ArrayList<Long> fileOffsets = new ArrayList<>();
 	
-	final ArrayList<byte[]> chunks = new ArrayList<>();
+	private volatile boolean loaded = false;
 
 	/**
 	 * Instantiates a new tx stream.
@@ -40,7 +48,7 @@ class TxStream extends AbstractTxStream {
 	 * @param kind   the kind
 	 */
 	TxStream(FtrDbLoader loader, Long id, String name, String kind) {
-		super(loader, id, name);
+		super(loader, id, name, new TxEventList.Table(loader::getTransaction), TxEventList.STREAM);
 		this.kind = kind;
 	}
 
@@ -65,25 +73,46 @@ class TxStream extends AbstractTxStream {
 		return kind;
 	}
 
-	public List<byte[]> getChunks() throws InputFormatException {
-		if(chunks.size()==0) {
-			chunks.addAll(loader.getChunksAtOffsets(fileOffsets));
-		}
-		return chunks;
+	/**
+	 * Gets a chunk of the stream.
+	 *
+	 * @param blockId the index of the chunk
+	 * @return the chunk
+	 * @throws InputFormatException if the chunk could not be read
+	 */
+	public byte[] getChunk(int blockId) throws InputFormatException {
+		return loader.getChunk(this, blockId);
 	}
 
-	public void loadStream() {
+	/**
+	 * Loads the transactions of the stream. The chunks are decoded in parallel and
+	 * added in their original order, afterwards the rows of the events are
+	 * assigned so this is done by the loading thread. If a chunk cannot be read
+	 * or decoded no transaction is added and loading is tried again on the next
+	 * access.
+	 */
+	public synchronized void loadStream() {
+		if(loaded)
+			return;
+		List<List<FtrTx>> blocks;
 		try {
-			List<byte[]> chunks = getChunks();
-			int blockid = 0;
-			for (byte[] bs : chunks) {
-				loader.parseTx(this, blockid, bs);
-				blockid++;
-			}
-		} catch (InputFormatException e) {
-		} catch (IOException e) {
+			blocks = IntStream.range(0, fileOffsets.size()).parallel().mapToObj(blockid -> {
+				try {
+					return loader.parseTx(blockid, getChunk(blockid));
+				} catch (InputFormatException | IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}).collect(Collectors.toList());
+		} catch (RuntimeException e) {
+			LOG.error("Error loading stream "+getFullName(), e instanceof IllegalStateException && e.getCause()!=null ? e.getCause() : e);
+			return;
 		}
+		for (List<FtrTx> txs : blocks)
+			loader.addTransactions(txs);
+		loaded = true;
+		calculateConcurrency();
 	}
+
 	/**
 	 * Gets the events.
 	 *
@@ -91,7 +120,7 @@ class TxStream extends AbstractTxStream {
 	 */
 	@Override
 	public IEventList getEvents() {
-		if(events.size()==0) {
+		if(!loaded) {
 			loadStream();
 		}
 		return events;
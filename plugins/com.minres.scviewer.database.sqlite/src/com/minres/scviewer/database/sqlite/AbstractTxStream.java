@@ -10,23 +10,20 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import com.minres.scviewer.database.EventEntry;
-import com.minres.scviewer.database.EventKind;
 import com.minres.scviewer.database.HierNode;
 import com.minres.scviewer.database.IEvent;
 import com.minres.scviewer.database.IEventList;
-import com.minres.scviewer.database.EventList;
 import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.RelationType;
 import com.minres.scviewer.database.RelationTypeFactory;
 import com.minres.scviewer.database.WaveformType;
 import com.minres.scviewer.database.sqlite.db.IDatabase;
-import com.minres.scviewer.database.tx.ITx;
 
 abstract class AbstractTxStream extends HierNode implements IWaveform {
 
@@ -49,24 +46,20 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 	@Override
 	public int getRowCount() {
 		if(maxConcurrency==null){
-			StringBuilder sb = new StringBuilder();
-			sb.append("SELECT MAX(concurrencyLevel) as concurrencyLevel FROM ScvTx where stream=");
-			sb.append(streamId);
-			try(
-					java.sql.Connection connection = database.createConnection();
-					java.sql.Statement statement = connection.createStatement();
-					java.sql.ResultSet resultSet = statement.executeQuery(sb.toString());
-					) {
-				while (resultSet.next()) {
-					if(maxConcurrency==null) maxConcurrency=0;
-					Object value = resultSet.getObject("concurrencyLevel");
-					if(value!=null)
-						maxConcurrency=(Integer) value;
+			int concurrency=0;
+			synchronized (database) {
+				try {
+					PreparedStatement statement = database.prepareStatement(
+							"SELECT MAX(concurrencyLevel) as concurrencyLevel FROM ScvTx where stream=?");
+					statement.setLong(1, streamId);
+					try(ResultSet resultSet = statement.executeQuery()) {
+						if (resultSet.next())
+							concurrency=resultSet.getInt("concurrencyLevel");
+					}
+				} catch (SQLException e) {
 				}
-			} catch (SQLException e) {
-				if(maxConcurrency==null) maxConcurrency=0;
 			}
-			maxConcurrency+=1;
+			maxConcurrency=concurrency+1;
 		}
 		return maxConcurrency;
 	}
@@ -76,23 +69,19 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 		return 0;
 	}
 
+	/**
+	 * Gets the events, they are read from the database on demand.
+	 *
+	 * @return the events
+	 */
 	@Override
-	public  IEventList getEvents(){
-		if(events==null){
-			events=new EventList();
-			for(Entry<Integer, ITx> entry:getTransactions().entrySet()){
-				putEvent(new TxEvent(EventKind.BEGIN, entry.getValue()));
-				putEvent(new TxEvent(EventKind.END, entry.getValue()));
-			}	
-		}
+	public synchronized IEventList getEvents(){
+		if(events==null)
+			events=createEvents();
 		return events;
 	}
 
-	private void putEvent(TxEvent ev){
-		events.put(ev.getTime(), ev);
-	}
-
-	protected abstract Map<Integer, ITx> getTransactions();
+	protected abstract IEventList createEvents();
 
 	@Override
 	public IEvent[] getEventsAtTime(long time) {
@@ -111,11 +100,11 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 
 	@Override
 	public IEvent[] getEventsBeforeTime(long time) {
-		EventEntry e = events.floorEntry(time);
+		EventEntry e = getEvents().floorEntry(time);
 		if(e==null)
 			return new IEvent[]{};
 		else
-			return  events.floorEntry(time).events;
+			return e.events;
 	}
 
 	@Override
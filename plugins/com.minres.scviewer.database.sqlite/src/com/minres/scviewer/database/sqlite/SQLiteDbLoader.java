@@ -10,12 +10,14 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite;
 
-import java.beans.IntrospectionException;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.File;
-import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -29,7 +31,6 @@ import com.minres.scviewer.database.sqlite.db.SQLiteDatabase;
 import com.minres.scviewer.database.sqlite.db.SQLiteDatabaseSelectHandler;
 import com.minres.scviewer.database.sqlite.tables.ScvSimProps;
 import com.minres.scviewer.database.sqlite.tables.ScvStream;
-import com.minres.scviewer.database.sqlite.tables.ScvTxEvent;
 
 public class SQLiteDbLoader implements IWaveformDbLoader {
 
@@ -38,28 +39,45 @@ public class SQLiteDbLoader implements IWaveformDbLoader {
 	private List<RelationType> usedRelationsList = new ArrayList<>();
 	
 	private ScvSimProps scvSimProps;
-		
+
+	private long maxTime = -1;
+
+	/** The indices used by the queries of the streams and transactions */
+	private static final String[] INDICES = {
+			"CREATE INDEX IF NOT EXISTS ScvTxEvent_time ON ScvTxEvent(time)",
+			"CREATE INDEX IF NOT EXISTS ScvTxEvent_tx ON ScvTxEvent(tx, type)",
+			"CREATE INDEX IF NOT EXISTS ScvTx_stream ON ScvTx(stream)",
+			"CREATE INDEX IF NOT EXISTS ScvTx_generator ON ScvTx(generator)",
+			"CREATE INDEX IF NOT EXISTS ScvGenerator_stream ON ScvGenerator(stream)",
+			"CREATE INDEX IF NOT EXISTS ScvTxAttribute_tx ON ScvTxAttribute(tx)",
+			"CREATE INDEX IF NOT EXISTS ScvTxRelation_src ON ScvTxRelation(src)",
+			"CREATE INDEX IF NOT EXISTS ScvTxRelation_sink ON ScvTxRelation(sink)"
+	};
+
 	/** The pcs. */
 	protected PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
 	@Override
 	public long getMaxTime() {
-		SQLiteDatabaseSelectHandler<ScvTxEvent> handler = new SQLiteDatabaseSelectHandler<>(ScvTxEvent.class,
-				database, "time = (SELECT MAX(time) FROM ScvTxEvent)");
-		try {
-			List<ScvTxEvent> event = handler.selectObjects();
-			if(!event.isEmpty())
-				return event.get(0).getTime()*scvSimProps.getTime_resolution();
-		} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-				| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
-			e.printStackTrace();
+		if(maxTime<0) {
+			synchronized (database) {
+				try {
+					PreparedStatement statement = database.prepareStatement("SELECT MAX(time) FROM ScvTxEvent");
+					try(ResultSet resultSet = statement.executeQuery()) {
+						maxTime = resultSet.next() ? resultSet.getLong(1)*scvSimProps.getTime_resolution() : 0L;
+					}
+				} catch (SQLException e) {
+					e.printStackTrace();
+					return 0L;
+				}
+			}
 		}
-		return 0L;
+		return maxTime;
 	}
 
 	@Override
 	public Collection<IWaveform> getAllWaves() {
-		SQLiteDatabaseSelectHandler<ScvStream> handler = new SQLiteDatabaseSelectHandler<>(ScvStream.class, database);
+		SQLiteDatabaseSelectHandler<ScvStream> handler = new SQLiteDatabaseSelectHandler<>(ScvStream.class, ScvStream.MAPPER, database);
 		List<IWaveform> streams=new ArrayList<>();
 		try {
 			for(ScvStream scvStream:handler.selectObjects()){
@@ -67,8 +85,7 @@ public class SQLiteDbLoader implements IWaveformDbLoader {
 				stream.setRelationTypeList(usedRelationsList);
 				streams.add(stream);
 			}
-		} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-				| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
+		} catch (SQLException e) {
 		}
 		return streams;
 	}
@@ -94,22 +111,42 @@ public class SQLiteDbLoader implements IWaveformDbLoader {
 
 	@Override
 	public void load(File file) throws InputFormatException {
+		if(database!=null)
+			database.close();
+		maxTime=-1;
 		database=new SQLiteDatabase(file.getAbsolutePath());
+		if(Boolean.getBoolean("ScvSQLiteIndices") && file.canWrite())
+			createIndices();
 		database.setData("TIMERESOLUTION", 1L);
-		SQLiteDatabaseSelectHandler<ScvSimProps> handler = new SQLiteDatabaseSelectHandler<>(ScvSimProps.class, database);
+		SQLiteDatabaseSelectHandler<ScvSimProps> handler = new SQLiteDatabaseSelectHandler<>(ScvSimProps.class, ScvSimProps.MAPPER, database);
 		try {
 			for(ScvSimProps simProps:handler.selectObjects()){
 				scvSimProps=simProps;
 				database.setData("TIMERESOLUTION", scvSimProps.getTime_resolution());
 			}
 			pcs.firePropertyChange(IWaveformDbLoader.LOADING_FINISHED, null, null);
-		} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-				| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
+		} catch (SQLException e) {
 			throw new InputFormatException(e.toString());
 		}
 	}
 
+	/**
+	 * Creates the missing indices in the file, this is enabled using the system
+	 * property ScvSQLiteIndices and done once per writable file using a separate
+	 * connection. Without the indices the queries work, only slower.
+	 */
+	private void createIndices() {
+		try(Connection connection = database.createConnection(); Statement statement = connection.createStatement()) {
+			for(String index:INDICES)
+				statement.execute(index);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
 	public void dispose() {
+		if(database!=null)
+			database.close();
 		database=null;
 		usedRelationsList=null;
 	}
@@ -10,8 +10,6 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite;
 
-import java.beans.IntrospectionException;
-import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -68,51 +66,55 @@ public class Tx implements ITx {
 		return scvTx.getConcurrencyLevel();
 	}
 
+	void setBeginTime(long begin) {
+		this.begin = begin;
+	}
+
+	void setEndTime(long end) {
+		this.end = end;
+	}
+
 	@Override
 	public long getBeginTime() {
-		if(begin<0){
-		SQLiteDatabaseSelectHandler<ScvTxEvent> handler = new SQLiteDatabaseSelectHandler<>(ScvTxEvent.class,
-				database, "tx="+scvTx.getId()+" AND type="+ AssociationType.BEGIN.ordinal());
-		try {
-			for(ScvTxEvent scvEvent:handler.selectObjects()){
-				begin= scvEvent.getTime()*(Long)database.getData("TIMERESOLUTION");
-			}
-		} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-				| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
-		}
-		}
+		if(begin<0)
+			begin = selectTime(AssociationType.BEGIN, begin);
 		return begin;
 	}
 
 	@Override
 	public long getEndTime() {
-		if(end<0){
+		if(end<0)
+			end = selectTime(AssociationType.END, end);
+		return end;
+	}
+
+	/**
+	 * Reads a time of the transaction if it was not set by the query of an event window.
+	 */
+	private long selectTime(AssociationType type, long time) {
 		SQLiteDatabaseSelectHandler<ScvTxEvent> handler = new SQLiteDatabaseSelectHandler<>(ScvTxEvent.class,
-				database, "tx="+scvTx.getId()+" AND type="+ AssociationType.END.ordinal());
+				ScvTxEvent.MAPPER, database, "tx=? AND type=?");
 		try {
-			for(ScvTxEvent scvEvent:handler.selectObjects()){
-				end = scvEvent.getTime()*(Long)database.getData("TIMERESOLUTION");
+			for(ScvTxEvent scvEvent:handler.selectObjects(scvTx.getId(), type.ordinal())){
+				time = scvEvent.getTime()*(Long)database.getData("TIMERESOLUTION");
 			}
-		} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-				| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
-		}
+		} catch (SQLException e) {
 		}
-		return end;
+		return time;
 	}
 
 	@Override
 	public List<ITxAttribute> getAttributes() {
 		if(attributes==null){
 			SQLiteDatabaseSelectHandler<ScvTxAttribute> handler = new SQLiteDatabaseSelectHandler<>(
-					ScvTxAttribute.class, database, "tx="+scvTx.getId());
+					ScvTxAttribute.class, ScvTxAttribute.MAPPER, database, "tx=?");
 			try {
 				attributes = new ArrayList<>();
-				for(ScvTxAttribute scvAttribute:handler.selectObjects()){
+				for(ScvTxAttribute scvAttribute:handler.selectObjects(scvTx.getId())){
 					attributes.add(new TxAttribute(this, scvAttribute));
 					
 				}
-			} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-					| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
+			} catch (SQLException e) {
 			}
 		}
 		return attributes;
@@ -122,14 +124,13 @@ public class Tx implements ITx {
 	public Collection<ITxRelation> getIncomingRelations() {
 		if(incoming==null){
 			SQLiteDatabaseSelectHandler<ScvTxRelation> handler = new SQLiteDatabaseSelectHandler<>(
-					ScvTxRelation.class, database, "sink="+scvTx.getId());
+					ScvTxRelation.class, ScvTxRelation.MAPPER, database, "sink=?");
 			try {
 				incoming = new ArrayList<>();
-				for(ScvTxRelation scvRelation:handler.selectObjects()){
+				for(ScvTxRelation scvRelation:handler.selectObjects(scvTx.getId())){
 					incoming.add(createRelation(scvRelation, false));
 				}
-			} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-					| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
+			} catch (SQLException e) {
 			}
 		}
 		return incoming;
@@ -139,14 +140,13 @@ public class Tx implements ITx {
 	public Collection<ITxRelation> getOutgoingRelations() {
 		if(outgoing==null){
 			SQLiteDatabaseSelectHandler<ScvTxRelation> handler = new SQLiteDatabaseSelectHandler<>(
-					ScvTxRelation.class, database, "src="+scvTx.getId());
+					ScvTxRelation.class, ScvTxRelation.MAPPER, database, "src=?");
 			try {
 				outgoing = new ArrayList<>();
-				for(ScvTxRelation scvRelation:handler.selectObjects()){
+				for(ScvTxRelation scvRelation:handler.selectObjects(scvTx.getId())){
 					outgoing.add(createRelation(scvRelation, true));
 				}
-			} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-					| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
+			} catch (SQLException e) {
 			}
 		}
 		return outgoing;
@@ -154,22 +154,21 @@ public class Tx implements ITx {
 
 	private ITxRelation createRelation(ScvTxRelation rel, boolean outgoing) {
 		int otherId = outgoing?rel.getSink():rel.getSrc();
-		SQLiteDatabaseSelectHandler<ScvTx> handler = new SQLiteDatabaseSelectHandler<>(ScvTx.class, database,
-				"id="+otherId);
+		SQLiteDatabaseSelectHandler<ScvTx> handler = new SQLiteDatabaseSelectHandler<>(ScvTx.class, ScvTx.MAPPER,
+				database, "id=?");
 		try {
-			List<ScvTx> res = handler.selectObjects();
+			List<ScvTx> res = handler.selectObjects(otherId);
 			if(res.size()!=1) return null;
-			List<ScvStream> streams = new SQLiteDatabaseSelectHandler<ScvStream>(ScvStream.class, database,
-						"id="+res.get(0).getStream()).selectObjects();
+			List<ScvStream> streams = new SQLiteDatabaseSelectHandler<ScvStream>(ScvStream.class, ScvStream.MAPPER,
+						database, "id=?").selectObjects(res.get(0).getStream());
 			if(streams.size()!=1) return null;
 			TxStream tgtStream = (TxStream) database.getWaveformDb().getStreamByName(streams.get(0).getName());
-			Tx that = (Tx) tgtStream.getTransactions().get(otherId);
+			Tx that = tgtStream.getTransaction(res.get(0));
 			if(outgoing)
 				return new TxRelation(trStream.getRelationType(rel.getName()), this, that);
 			else
 				return new TxRelation(trStream.getRelationType(rel.getName()), that, this);
-		} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-				| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
+		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 
@@ -14,11 +14,13 @@ import com.minres.scviewer.database.AssociationType;
 import com.minres.scviewer.database.DataType;
 import com.minres.scviewer.database.sqlite.tables.ScvTxAttribute;
 import com.minres.scviewer.database.tx.ITxAttribute;
+import com.minres.scviewer.database.tx.TxAttributeValues;
 
 public class TxAttribute implements ITxAttribute{
 
 	Tx trTransaction;
 	ScvTxAttribute scvAttribute;
+	Object value;
 	
 	public TxAttribute(Tx trTransaction, ScvTxAttribute scvAttribute) {
 		this.trTransaction=trTransaction;
@@ -53,7 +55,9 @@ public class TxAttribute implements ITxAttribute{
 
 	@Override
 	public Object getValue() {
-		return scvAttribute.getData_value();
+		if(value==null)
+			value=TxAttributeValues.valueOf(getDataType(), scvAttribute.getData_value());
+		return value;
 	}
 
 }
@@ -10,19 +10,11 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite;
 
-import java.beans.IntrospectionException;
-import java.lang.reflect.InvocationTargetException;
-import java.sql.SQLException;
-import java.util.Map;
-import java.util.TreeMap;
-
 import com.minres.scviewer.database.DirectionType;
+import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.sqlite.db.IDatabase;
-import com.minres.scviewer.database.sqlite.db.SQLiteDatabaseSelectHandler;
 import com.minres.scviewer.database.sqlite.tables.ScvGenerator;
-import com.minres.scviewer.database.sqlite.tables.ScvTx;
-import com.minres.scviewer.database.tx.ITx;
 
 public class TxGenerator extends AbstractTxStream {
 
@@ -30,8 +22,6 @@ public class TxGenerator extends AbstractTxStream {
 	
 	private ScvGenerator scvGenerator;
 
-	private TreeMap<Integer, ITx> transactions;
-
 	public TxGenerator(IDatabase database, TxStream stream, ScvGenerator scvGenerator) {
 		super(database, scvGenerator.getName(), stream.getId());
 		this.stream=stream;
@@ -60,21 +50,8 @@ public class TxGenerator extends AbstractTxStream {
 	}
 
 	@Override
-	protected Map<Integer, ITx> getTransactions() {
-		if(transactions==null){
-			transactions = new TreeMap<>();
-			SQLiteDatabaseSelectHandler<ScvTx> handler = new SQLiteDatabaseSelectHandler<>(ScvTx.class, database,
-					"stream="+stream.getId()+" and generator="+scvGenerator.getId());
-			try {
-				for(ScvTx scvTx:handler.selectObjects()){
-					transactions.put(scvTx.getId(), new Tx(database, (TxStream) stream, this, scvTx));
-				}
-			} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-					| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
-				e.printStackTrace();
-			}
-		}
-		return transactions;
+	protected IEventList createEvents() {
+		return new WindowedEventList(database, stream, "t.generator=?", scvGenerator.getId());
 	}
 
 	@Override
@@ -10,23 +10,21 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite;
 
-import java.beans.IntrospectionException;
-import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.TreeMap;
 
 import com.minres.scviewer.database.DirectionType;
 import com.minres.scviewer.database.IEvent;
+import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.sqlite.db.IDatabase;
 import com.minres.scviewer.database.sqlite.db.SQLiteDatabaseSelectHandler;
 import com.minres.scviewer.database.sqlite.tables.ScvGenerator;
 import com.minres.scviewer.database.sqlite.tables.ScvStream;
 import com.minres.scviewer.database.sqlite.tables.ScvTx;
-import com.minres.scviewer.database.tx.ITx;
+import com.minres.scviewer.database.tx.TxCache;
 
 public class TxStream extends AbstractTxStream {
 
@@ -36,7 +34,7 @@ public class TxStream extends AbstractTxStream {
 
 	private TreeMap<Integer, TxGenerator> generators;
 
-	private TreeMap<Integer, ITx> transactions;
+	private final TxCache<Tx> transactions = new TxCache<>();
 
 	public TxStream(IDatabase database, ScvStream scvStream) {
 		super(database, scvStream.getName(), scvStream.getId());
@@ -57,36 +55,38 @@ public class TxStream extends AbstractTxStream {
 	public List<IWaveform> getGenerators() {
 		if(generators==null){
 			SQLiteDatabaseSelectHandler<ScvGenerator> handler = new SQLiteDatabaseSelectHandler<>(
-					ScvGenerator.class, database, "stream="+scvStream.getId());
+					ScvGenerator.class, ScvGenerator.MAPPER, database, "stream=?");
 			generators=new TreeMap<>();
 			try {
-				for(ScvGenerator scvGenerator:handler.selectObjects()){
+				for(ScvGenerator scvGenerator:handler.selectObjects(scvStream.getId())){
 					generators.put(scvGenerator.getId(), new TxGenerator(database, this, scvGenerator));
 				}
-			} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-					| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 		}
 		return new ArrayList<>(generators.values());
 	}
 
-	protected Map<Integer, ITx> getTransactions() {
-		if(transactions==null){
-			if(generators==null) getGenerators();
-			transactions = new TreeMap<>();
-			SQLiteDatabaseSelectHandler<ScvTx> handler = new SQLiteDatabaseSelectHandler<>(ScvTx.class, database,
-					"stream="+scvStream.getId());
-			try {
-				for(ScvTx scvTx:handler.selectObjects()){
-					transactions.put(scvTx.getId(), new Tx(database, this, generators.get(scvTx.getGenerator()), scvTx));
-				}
-			} catch (SecurityException | IllegalArgumentException | InstantiationException | IllegalAccessException
-					| InvocationTargetException | SQLException | IntrospectionException | NoSuchMethodException e) {
-				e.printStackTrace();
-			}
-		}
-		return transactions;
+	TxGenerator getGenerator(int id) {
+		if(generators==null) getGenerators();
+		return generators.get(id);
+	}
+
+	/**
+	 * Gets the transaction of a row of ScvTx, transactions are created on demand
+	 * and kept in a bounded cache.
+	 *
+	 * @param scvTx the row
+	 * @return the transaction
+	 */
+	Tx getTransaction(ScvTx scvTx) {
+		return transactions.get(scvTx.getId(), id -> new Tx(database, this, getGenerator(scvTx.getGenerator()), scvTx));
+	}
+
+	@Override
+	protected IEventList createEvents() {
+		return new WindowedEventList(database, this, "t.stream=?", scvStream.getId());
 	}
 
 	@Override
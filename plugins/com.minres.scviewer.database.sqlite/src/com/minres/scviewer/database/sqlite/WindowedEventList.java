@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.sqlite;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+import com.minres.scviewer.database.AssociationType;
+import com.minres.scviewer.database.EventEntry;
+import com.minres.scviewer.database.EventKind;
+import com.minres.scviewer.database.IEvent;
+import com.minres.scviewer.database.IEventList;
+import com.minres.scviewer.database.PrimitiveEventList;
+import com.minres.scviewer.database.sqlite.db.IDatabase;
+import com.minres.scviewer.database.sqlite.tables.ScvTx;
+
+/**
+ * The transaction events of a stream or generator which are read from the
+ * database on demand. Range queries like {@link #subMap(long, boolean, long)}
+ * read a window of events around the requested range using the index on the
+ * event time, the most recently used windows are cached. Navigation queries
+ * like {@link #floorEntry(long)} only read the events of one timestamp. Only
+ * operations on the whole list like iteration read all events.
+ */
+class WindowedEventList implements IEventList {
+
+	/** The number of cached windows, can be set using the system property SQLiteWindowCount. */
+	static final int WINDOW_COUNT = Integer.getInteger("SQLiteWindowCount", 8);
+
+	/** the events are looked up by time first, the transactions by their id */
+	private static final String FROM = " FROM ScvTxEvent e CROSS JOIN ScvTx t ON t.id=e.tx WHERE e.type IN ("
+			+ AssociationType.BEGIN.ordinal() + "," + AssociationType.END.ordinal() + ") AND ";
+
+	private static final class Window {
+
+		final long from;
+
+		final long to;
+
+		final PrimitiveEventList events;
+
+		Window(long from, long to, PrimitiveEventList events) {
+			this.from = from;
+			this.to = to;
+			this.events = events;
+		}
+
+		boolean contains(long dbFrom, long dbTo) {
+			return from <= dbFrom && dbTo <= to;
+		}
+	}
+
+	private final IDatabase database;
+
+	private final TxStream stream;
+
+	private final String rangeQuery;
+
+	private final String floorQuery;
+
+	private final String ceilingQuery;
+
+	private final String countQuery;
+
+	private final long id;
+
+	private final LinkedList<Window> windows = new LinkedList<>();
+
+	private int size = -1;
+
+	/**
+	 * Instantiates a new list.
+	 *
+	 * @param database the database
+	 * @param stream   the stream owning the transactions
+	 * @param filter   the condition on ScvTx t selecting the transactions, having
+	 *                 one parameter
+	 * @param id       the value of the parameter of the filter
+	 */
+	WindowedEventList(IDatabase database, TxStream stream, String filter, long id) {
+		this.database = database;
+		this.stream = stream;
+		this.id = id;
+		rangeQuery = "SELECT t.*, e.type, e.time" + FROM + filter
+				+ " AND e.time BETWEEN ? AND ? ORDER BY e.time, e.tx, e.type";
+		floorQuery = "SELECT e.time" + FROM + filter + " AND e.time<=? ORDER BY e.time DESC LIMIT 1";
+		ceilingQuery = "SELECT e.time" + FROM + filter + " AND e.time>=? ORDER BY e.time LIMIT 1";
+		countQuery = "SELECT COUNT(DISTINCT e.time)" + FROM + filter;
+	}
+
+	private long resolution() {
+		return (Long) database.getData("TIMERESOLUTION");
+	}
+
+	/** the greatest database time not after the given time */
+	private long dbFloor(long time) {
+		return Math.floorDiv(time, resolution());
+	}
+
+	/** the least database time not before the given time */
+	private long dbCeiling(long time) {
+		return -Math.floorDiv(-time, resolution());
+	}
+
+	/**
+	 * Reads the events between the database times from and to (both inclusive).
+	 */
+	private PrimitiveEventList read(long dbFrom, long dbTo) {
+		PrimitiveEventList events = new PrimitiveEventList();
+		long timeResolution = resolution();
+		synchronized (database) {
+			try {
+				PreparedStatement statement = database.prepareStatement(rangeQuery);
+				statement.setLong(1, id);
+				statement.setLong(2, dbFrom);
+				statement.setLong(3, dbTo);
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						Tx tx = stream.getTransaction(ScvTx.MAPPER.map(resultSet));
+						long time = resultSet.getLong("time") * timeResolution;
+						EventKind kind;
+						if (resultSet.getInt("type") == AssociationType.BEGIN.ordinal()) {
+							kind = EventKind.BEGIN;
+							tx.setBeginTime(time);
+						} else {
+							kind = EventKind.END;
+							tx.setEndTime(time);
+						}
+						events.put(time, new TxEvent(kind, tx));
+					}
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return events;
+	}
+
+	/**
+	 * Gets a window containing the database times from and to, the window is read
+	 * if no cached one contains them. Windows are aligned to a multiple of their
+	 * width so panning at the same zoom level reuses them.
+	 */
+	private synchronized PrimitiveEventList window(long dbFrom, long dbTo) {
+		for (Iterator<Window> it = windows.iterator(); it.hasNext();) {
+			Window window = it.next();
+			if (window.contains(dbFrom, dbTo)) {
+				it.remove();
+				windows.addFirst(window);
+				return window.events;
+			}
+		}
+		long from = dbFrom;
+		long to = dbTo;
+		long span = dbTo - dbFrom;
+		if (span >= 0 && span < 1L << 60) {
+			long width = Math.max(1, Long.highestOneBit(span) << 1);
+			long start = dbFrom - Math.floorMod(dbFrom, width);
+			if (start + 2 * width - 1 > start) {
+				from = start;
+				to = start + 2 * width - 1;
+			}
+		}
+		Window window = new Window(from, to, read(from, to));
+		windows.addFirst(window);
+		if (windows.size() > WINDOW_COUNT)
+			windows.removeLast();
+		return window.events;
+	}
+
+	/**
+	 * Gets the events of one database time, from a cached window if there is one.
+	 */
+	private synchronized EventEntry entryAt(long dbTime) {
+		PrimitiveEventList events = null;
+		for (Window window : windows)
+			if (window.contains(dbTime, dbTime)) {
+				events = window.events;
+				break;
+			}
+		if (events == null)
+			events = read(dbTime, dbTime);
+		return events.ceilingEntry(dbTime * resolution());
+	}
+
+	/**
+	 * Gets the events of the nearest database time of the given one.
+	 *
+	 * @param query the floor or ceiling query
+	 */
+	private EventEntry nearest(String query, long dbTime) {
+		synchronized (database) {
+			try {
+				PreparedStatement statement = database.prepareStatement(query);
+				statement.setLong(1, id);
+				statement.setLong(2, dbTime);
+				try (ResultSet resultSet = statement.executeQuery()) {
+					if (!resultSet.next())
+						return null;
+					dbTime = resultSet.getLong(1);
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+				return null;
+			}
+		}
+		return entryAt(dbTime);
+	}
+
+	private PrimitiveEventList all() {
+		return window(Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	@Override
+	public int size() {
+		if (size < 0) {
+			synchronized (database) {
+				try {
+					PreparedStatement statement = database.prepareStatement(countQuery);
+					statement.setLong(1, id);
+					try (ResultSet resultSet = statement.executeQuery()) {
+						size = resultSet.next() ? resultSet.getInt(1) : 0;
+					}
+				} catch (SQLException e) {
+					e.printStackTrace();
+					return 0;
+				}
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public Collection<EventEntry> entrySet() {
+		return all().entrySet();
+	}
+
+	@Override
+	public Iterator<EventEntry> iterator() {
+		return all().iterator();
+	}
+
+	@Override
+	public boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public IEvent[] get(long key) {
+		if (key % resolution() != 0)
+			return null;
+		EventEntry entry = entryAt(key / resolution());
+		return entry != null && entry.timestamp == key ? entry.events : null;
+	}
+
+	@Override
+	public void put(long key, IEvent value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public long firstKey() {
+		EventEntry entry = firstEntry();
+		if (entry == null)
+			throw new NoSuchElementException();
+		return entry.timestamp;
+	}
+
+	@Override
+	public long lastKey() {
+		EventEntry entry = lastEntry();
+		if (entry == null)
+			throw new NoSuchElementException();
+		return entry.timestamp;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return firstEntry() == null;
+	}
+
+	@Override
+	public EventEntry floorEntry(long key) {
+		return nearest(floorQuery, dbFloor(key));
+	}
+
+	@Override
+	public EventEntry ceilingEntry(long key) {
+		return nearest(ceilingQuery, dbCeiling(key));
+	}
+
+	@Override
+	public EventEntry firstEntry() {
+		return nearest(ceilingQuery, Long.MIN_VALUE);
+	}
+
+	@Override
+	public EventEntry lastEntry() {
+		return nearest(floorQuery, Long.MAX_VALUE);
+	}
+
+	@Override
+	public EventEntry higherEntry(long key) {
+		return nearest(ceilingQuery, dbFloor(key) + 1);
+	}
+
+	@Override
+	public EventEntry lowerEntry(long key) {
+		return nearest(floorQuery, dbCeiling(key) - 1);
+	}
+
+	@Override
+	public IEventList subMap(long key, boolean b, long key2) {
+		long dbFrom = b ? dbCeiling(key) : dbFloor(key) + 1;
+		long dbTo = dbFloor(key2);
+		if (dbFrom > dbTo)
+			return new PrimitiveEventList();
+		return window(dbFrom, dbTo).subMap(key, b, key2);
+	}
+}
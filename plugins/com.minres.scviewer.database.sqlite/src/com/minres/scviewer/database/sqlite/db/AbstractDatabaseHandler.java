@@ -11,6 +11,7 @@
 package com.minres.scviewer.database.sqlite.db;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 
 
 /**
@@ -78,6 +79,9 @@ public abstract class AbstractDatabaseHandler<T> {
 		boolean first = true;
 		/* Iterate the column-names */
 		for (Field f : type.getDeclaredFields()) {
+			/* static fields like the row mapper are no columns */
+			if (Modifier.isStatic(f.getModifiers()))
+				continue;
 			if (first)
 				first = false;
 			else
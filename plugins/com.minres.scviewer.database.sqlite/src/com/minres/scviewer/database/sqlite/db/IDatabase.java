@@ -57,6 +57,22 @@ public interface IDatabase {
 	 */
 	public void close(PreparedStatement preparedStatement, Connection connection);
 
+	/**
+	 * Returns a prepared statement of the long-lived read-only connection. The
+	 * statements are cached by their SQL string, so callers need to synchronize on
+	 * the database while the statement and its result set are in use.
+	 *
+	 * @param sql the SQL-String
+	 * @return the prepared statement
+	 * @throws SQLException
+	 */
+	public PreparedStatement prepareStatement(String sql) throws SQLException;
+
+	/**
+	 * Closes the cached statements and the read-only connection
+	 */
+	public void close();
+
 	public void setData(String name, Object value);
 	
 	public Object getData(String name); 
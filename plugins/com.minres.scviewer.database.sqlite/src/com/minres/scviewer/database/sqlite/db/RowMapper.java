@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.sqlite.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Creates an object from the current row of a result set. The table classes
+ * provide hand-written mappers reading the columns by name so no reflection is
+ * needed per row.
+ *
+ * @param <T> the type of the created objects
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+	/**
+	 * Creates an object from the current row.
+	 *
+	 * @param resultSet the result set positioned at a row
+	 * @return the object
+	 * @throws SQLException if a column cannot be read
+	 */
+	T map(ResultSet resultSet) throws SQLException;
+}
@@ -19,14 +19,28 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.HashMap;
+import java.util.Properties;
 
 import com.minres.scviewer.database.IWaveformDb;
 
 public class SQLiteDatabase implements IDatabase {
 
+	/** The size of the memory mapped part of the database file */
+	private static final long MMAP_SIZE = 1L << 30;
+
+	/** The size of the page cache in KiB */
+	private static final int CACHE_SIZE = 64 * 1024;
+
+	/** The SQLite open flag SQLITE_OPEN_READONLY */
+	private static final String OPEN_READONLY = "1";
+
 	protected String dbFileName;
 	
 	protected HashMap<String, Object> props;
+
+	private Connection connection;
+
+	private final HashMap<String, PreparedStatement> statements = new HashMap<>();
 	
     static {
         try {
@@ -53,6 +67,46 @@ public class SQLiteDatabase implements IDatabase {
 		return DriverManager.getConnection(getConnectionUrl() );
 	}
 
+	/**
+	 * Returns the long-lived read-only connection, it is opened on first use.
+	 * Memory mapping and a larger page cache are enabled for fast reads.
+	 */
+	private Connection getConnection() throws SQLException {
+		if (connection == null) {
+			Properties config = new Properties();
+			config.setProperty("open_mode", OPEN_READONLY);
+			connection = DriverManager.getConnection(getConnectionUrl(), config);
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("PRAGMA mmap_size=" + MMAP_SIZE);
+				statement.execute("PRAGMA cache_size=-" + CACHE_SIZE);
+				statement.execute("PRAGMA temp_store=MEMORY");
+			}
+		}
+		return connection;
+	}
+
+	@Override
+	public synchronized PreparedStatement prepareStatement(String sql) throws SQLException {
+		PreparedStatement statement = statements.get(sql);
+		if (statement == null) {
+			statement = getConnection().prepareStatement(sql);
+			statements.put(sql, statement);
+		}
+		return statement;
+	}
+
+	@Override
+	public synchronized void close() {
+		try {
+			for (PreparedStatement statement : statements.values())
+				statement.close();
+			if (connection != null)
+				connection.close();
+		} catch (SQLException e) {}
+		statements.clear();
+		connection = null;
+	}
+
 	@Override
 	public String getConnectionUrl() {
         // now we set up a set of fairly basic string variables to use in the body of the code proper
@@ -14,6 +14,7 @@ import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -82,6 +83,8 @@ public class SQLiteDatabaseInsertHandler<T> extends AbstractDatabaseHandler<T> {
 				int i = 0;
 
 				for (Field field : type.getDeclaredFields()) {
+					if (Modifier.isStatic(field.getModifiers()))
+						continue;
 					PropertyDescriptor propertyDescriptor = new PropertyDescriptor(
 							field.getName(), type);
 
@@ -10,36 +10,37 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite.db;
 
-import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 
  * Class that creates a list of <T>s filled with values from the corresponding
- * database-table.
+ * database-table. The query is run as cached prepared statement of the
+ * read-only connection of the database, the criterion may contain
+ * PreparedStatement-placeholders ('?') which are bound on selection.
  * 
  * @author Tino for http://www.java-blog.com
  * 
  * @param <T>
  */
 public class SQLiteDatabaseSelectHandler<T> extends AbstractDatabaseHandler<T> {
-	
-	public SQLiteDatabaseSelectHandler(Class<T> type,
+
+	/** Creates the objects from the rows of the result */
+	private final RowMapper<T> mapper;
+
+	public SQLiteDatabaseSelectHandler(Class<T> type, RowMapper<T> mapper,
 			IDatabase databaseConnectionFactory) {
-		super(type, databaseConnectionFactory, null);
+		this(type, mapper, databaseConnectionFactory, null);
 	}
 
-	public SQLiteDatabaseSelectHandler(Class<T> type,
+	public SQLiteDatabaseSelectHandler(Class<T> type, RowMapper<T> mapper,
 			IDatabase databaseConnectionFactory, String criteria) {
 		super(type, databaseConnectionFactory, criteria);
+		this.mapper = mapper;
 	}
 
 	@Override
@@ -65,80 +66,25 @@ public class SQLiteDatabaseSelectHandler<T> extends AbstractDatabaseHandler<T> {
 	 * Creates a list of <T>s filled with values from the corresponding
 	 * database-table
 	 * 
+	 * @param args
+	 *            the values of the placeholders of the criterion
+	 * 
 	 * @return List of <T>s filled with values from the corresponding
 	 *         database-table
 	 * 
 	 * @throws SQLException
-	 * @throws SecurityException
-	 * @throws IllegalArgumentException
-	 * @throws InstantiationException
-	 * @throws IllegalAccessException
-	 * @throws IntrospectionException
-	 * @throws InvocationTargetException
-	 * @throws NoSuchMethodException 
 	 */
-	public synchronized List<T> selectObjects() throws SQLException,
-			InstantiationException, IllegalAccessException,
-			IntrospectionException, InvocationTargetException, IllegalArgumentException, NoSuchMethodException, SecurityException {
-
-		Connection connection = null;
-		Statement statement = null;
-		ResultSet resultSet = null;
-
-		try {
-			connection = databaseConnectionFactory.createConnection();
-			statement = connection.createStatement();
-			resultSet = statement.executeQuery(query);
-
-			return createObjects(resultSet);
-
-		} finally {
-			databaseConnectionFactory.close(resultSet, statement, connection);
-		}
-	}
-
-	/**
-	 * 
-	 * Creates a list of <T>s filled with values from the provided ResultSet
-	 * 
-	 * @param resultSet
-	 *            ResultSet that contains the result of the
-	 *            database-select-query
-	 * 
-	 * @return List of <T>s filled with values from the provided ResultSet
-	 * 
-	 * @throws SecurityException
-	 * @throws IllegalArgumentException
-	 * @throws SQLException
-	 * @throws InstantiationException
-	 * @throws IllegalAccessException
-	 * @throws IntrospectionException
-	 * @throws InvocationTargetException
-	 * @throws NoSuchMethodException 
-	 */
-	private List<T> createObjects(ResultSet resultSet)
-			throws SQLException, InstantiationException,
-			IllegalAccessException, IntrospectionException,
-			InvocationTargetException, IllegalArgumentException, NoSuchMethodException, SecurityException {
-
-		List<T> list = new ArrayList<>();
-
-		while (resultSet.next()) {
-
-			T instance = type.getDeclaredConstructor().newInstance();
-
-			for (Field field : type.getDeclaredFields()) {
-
-				/* We assume the table-column-names exactly match the variable-names of T */
-				Object value = resultSet.getObject(field.getName());
-				if(value!=null){
-					PropertyDescriptor propertyDescriptor = new PropertyDescriptor(field.getName(), type);
-					propertyDescriptor.getWriteMethod().invoke(instance, value);
-				}
+	public List<T> selectObjects(Object... args) throws SQLException {
+		synchronized (databaseConnectionFactory) {
+			PreparedStatement statement = databaseConnectionFactory.prepareStatement(query);
+			for (int i = 0; i < args.length; i++)
+				statement.setObject(i + 1, args[i]);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				List<T> list = new ArrayList<>();
+				while (resultSet.next())
+					list.add(mapper.map(resultSet));
+				return list;
 			}
-
-			list.add(instance);
 		}
-		return list;
 	}
 }
@@ -10,7 +10,20 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite.tables;
 
+import com.minres.scviewer.database.sqlite.db.RowMapper;
+
 public class ScvGenerator {
+	/** Creates an instance from a row containing all columns */
+	public static final RowMapper<ScvGenerator> MAPPER = resultSet -> {
+		ScvGenerator generator = new ScvGenerator();
+		generator.setId(resultSet.getInt("id"));
+		generator.setStream(resultSet.getInt("stream"));
+		generator.setName(resultSet.getString("name"));
+		generator.setBegin_attr(resultSet.getInt("begin_attr"));
+		generator.setEnd_attr(resultSet.getInt("end_attr"));
+		return generator;
+	};
+
 	public int getId() {
 		return id;
 	}
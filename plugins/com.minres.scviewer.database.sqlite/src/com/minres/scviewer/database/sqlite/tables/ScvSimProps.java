@@ -10,8 +10,17 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite.tables;
 
+import com.minres.scviewer.database.sqlite.db.RowMapper;
+
 public class ScvSimProps {
 	
+	/** Creates an instance from a row containing all columns */
+	public static final RowMapper<ScvSimProps> MAPPER = resultSet -> {
+		ScvSimProps props = new ScvSimProps();
+		props.setTime_resolution(resultSet.getLong("time_resolution"));
+		return props;
+	};
+
 	private long time_resolution;
 
 	public ScvSimProps() {
@@ -10,7 +10,18 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite.tables;
 
+import com.minres.scviewer.database.sqlite.db.RowMapper;
+
 public class ScvStream {
+	/** Creates an instance from a row containing all columns */
+	public static final RowMapper<ScvStream> MAPPER = resultSet -> {
+		ScvStream stream = new ScvStream();
+		stream.setId(resultSet.getInt("id"));
+		stream.setName(resultSet.getString("name"));
+		stream.setKind(resultSet.getString("kind"));
+		return stream;
+	};
+
 	public int getId() {
 		return id;
 	}
@@ -10,7 +10,19 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite.tables;
 
+import com.minres.scviewer.database.sqlite.db.RowMapper;
+
 public class ScvTx {
+	/** Creates an instance from a row containing all columns */
+	public static final RowMapper<ScvTx> MAPPER = resultSet -> {
+		ScvTx tx = new ScvTx();
+		tx.setId(resultSet.getInt("id"));
+		tx.setGenerator(resultSet.getInt("generator"));
+		tx.setStream(resultSet.getInt("stream"));
+		tx.setConcurrencyLevel(resultSet.getInt("concurrencyLevel"));
+		return tx;
+	};
+
 	public int getId() {
 		return id;
 	}
@@ -10,8 +10,21 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite.tables;
 
+import com.minres.scviewer.database.sqlite.db.RowMapper;
+
 public class ScvTxAttribute {
 
+	/** Creates an instance from a row containing all columns */
+	public static final RowMapper<ScvTxAttribute> MAPPER = resultSet -> {
+		ScvTxAttribute attribute = new ScvTxAttribute();
+		attribute.setTx(resultSet.getInt("tx"));
+		attribute.setType(resultSet.getInt("type"));
+		attribute.setName(resultSet.getString("name"));
+		attribute.setData_type(resultSet.getInt("data_type"));
+		attribute.setData_value(resultSet.getString("data_value"));
+		return attribute;
+	};
+
 	public int getTx() {
 		return tx;
 	}
@@ -10,7 +10,18 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite.tables;
 
+import com.minres.scviewer.database.sqlite.db.RowMapper;
+
 public class ScvTxEvent {
+	/** Creates an instance from a row containing all columns */
+	public static final RowMapper<ScvTxEvent> MAPPER = resultSet -> {
+		ScvTxEvent event = new ScvTxEvent();
+		event.setTx(resultSet.getInt("tx"));
+		event.setType(resultSet.getInt("type"));
+		event.setTime(resultSet.getLong("time"));
+		return event;
+	};
+
 	public int getTx() {
 		return tx;
 	}
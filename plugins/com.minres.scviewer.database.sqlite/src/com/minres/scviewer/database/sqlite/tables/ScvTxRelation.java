@@ -10,7 +10,18 @@
  *******************************************************************************/
 package com.minres.scviewer.database.sqlite.tables;
 
+import com.minres.scviewer.database.sqlite.db.RowMapper;
+
 public class ScvTxRelation {
+	/** Creates an instance from a row containing all columns */
+	public static final RowMapper<ScvTxRelation> MAPPER = resultSet -> {
+		ScvTxRelation relation = new ScvTxRelation();
+		relation.setName(resultSet.getString("name"));
+		relation.setSrc(resultSet.getInt("src"));
+		relation.setSink(resultSet.getInt("sink"));
+		return relation;
+	};
+
 	public String getName() {
 		return name;
 	}
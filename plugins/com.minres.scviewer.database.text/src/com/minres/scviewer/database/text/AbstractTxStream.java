@@ -11,18 +11,13 @@
  *******************************************************************************/
 package com.minres.scviewer.database.text;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-
 import com.minres.scviewer.database.EventEntry;
-import com.minres.scviewer.database.EventList;
 import com.minres.scviewer.database.HierNode;
 import com.minres.scviewer.database.IEvent;
 import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
+import com.minres.scviewer.database.TxEventList;
 import com.minres.scviewer.database.WaveformType;
-import com.minres.scviewer.database.tx.ITx;
-import com.minres.scviewer.database.tx.ITxEvent;
 
 /**
  * The Class AbstractTxStream.
@@ -37,11 +32,14 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 	/** The loader. */
 	protected TextDbLoader loader;
 
+	/** The event table shared by a stream and its generators. */
+	final TxEventList.Table eventTable;
+
 	/** The events. */
-	IEventList events = new EventList();
+	final TxEventList events;
 
 	/** The max concurrency. */
-	private int rowCount = -1;
+	private volatile int rowCount = -1;
 
 	/**
 	 * Instantiates a new abstract tx stream.
@@ -49,12 +47,16 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 	 * @param loader the loader
 	 * @param id     the id
 	 * @param name   the name
+	 * @param table  the event table of the stream
+	 * @param view   the view of the event table
 	 */
-	protected AbstractTxStream(TextDbLoader loader, Long id, String name) {
+	protected AbstractTxStream(TextDbLoader loader, Long id, String name, TxEventList.Table table, int view) {
 		super(name);
 		fullName=name;
 		this.loader = loader;
 		this.id = id;
+		this.eventTable = table;
+		this.events = new TxEventList(table, view);
 	}
 
 	/**
@@ -66,15 +68,6 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 	public String getFullName() {
 		return  fullName;
 	}
-	/**
-	 * Adds the event.
-	 *
-	 * @param evt the evt
-	 */
-	public void addEvent(ITxEvent evt) {
-		events.put(evt.getTime(), evt);
-	}
-
 	/**
 	 * Gets the events.
 	 *
@@ -148,46 +141,13 @@ abstract class AbstractTxStream extends HierNode implements IWaveform {
 		return 0;
 	}
 	/**
-	 * Calculate concurrency.
+	 * Calculate concurrency, the rows of the stream and of its generators are
+	 * assigned in parallel.
 	 */
 	void calculateConcurrency() {
 		if (rowCount>=0)
 			return;
-		ArrayList<Long> rowEndTime = new ArrayList<>();
-		HashMap<Long, Integer> rowByTxId = new HashMap<>();
-		for(EventEntry entry: events) {
-			for(IEvent evt:entry.events) {
-				TxEvent txEvt = (TxEvent) evt;
-				ITx tx = txEvt.getTransaction();
-				int rowIdx = 0;
-				switch(evt.getKind()) {
-				case END:
-					Long txId = txEvt.getTransaction().getId();
-					txEvt.setConcurrencyIndex(rowByTxId.get(txId));
-					rowByTxId.remove(txId);
-					break;
-				case SINGLE:
-					for (; rowIdx < rowEndTime.size() && rowEndTime.get(rowIdx)>tx.getBeginTime(); rowIdx++);
-					if (rowEndTime.size() <= rowIdx)
-						rowEndTime.add(tx.getEndTime());
-					else
-						rowEndTime.set(rowIdx, tx.getEndTime());
-					((TxEvent) evt).setConcurrencyIndex(rowIdx);
-					break;
-				case BEGIN:
-					for (; rowIdx < rowEndTime.size() && rowEndTime.get(rowIdx)>tx.getBeginTime(); rowIdx++);
-					if (rowEndTime.size() <= rowIdx)
-						rowEndTime.add(tx.getEndTime());
-					else
-						rowEndTime.set(rowIdx, tx.getEndTime());
-					((TxEvent) evt).setConcurrencyIndex(rowIdx);
-					rowByTxId.put(tx.getId(), rowIdx);
-					break;
-				}
-			}
-		}
-		rowCount=rowEndTime.size()>0?rowEndTime.size():1;
-		//getChildNodes().parallelStream().forEach(c -> ((TxGenerator)c).calculateConcurrency());
-		getChildNodes().stream().forEach(c -> ((TxGenerator)c).calculateConcurrency());
+		rowCount = events.assignRows();
+		getChildNodes().parallelStream().forEach(c -> ((TxGenerator)c).calculateConcurrency());
 	}
 }
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2020 MINRES Technologies GmbH
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.text;
+
+import java.io.IOException;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+import com.minres.scviewer.database.tx.ITxAttribute;
+
+/**
+ * A compact serializer of {@link ScvTx} for the MapDB transaction store. Ids and
+ * times are written as packed longs, attributes as index into the attribute
+ * type table followed by their value: strings as index into the string
+ * dictionary of the loader, integers zigzag encoded as packed long, floating
+ * point numbers as raw bits.
+ */
+class ScvTxSerializer implements Serializer<ScvTx> {
+
+	private final TextDbLoader loader;
+
+	/**
+	 * Instantiates a new serializer.
+	 *
+	 * @param loader the loader providing the attribute types and values
+	 */
+	ScvTxSerializer(TextDbLoader loader) {
+		this.loader = loader;
+	}
+
+	@Override
+	public void serialize(DataOutput2 out, ScvTx value) throws IOException {
+		out.packLong(value.id);
+		out.packLong(value.streamId);
+		out.packLong(value.generatorId);
+		out.packLong(value.beginTime);
+		out.packLong(value.endTime - value.beginTime);
+		out.packInt(value.attributes.size());
+		for (ITxAttribute attr : value.attributes) {
+			TxAttribute txAttr = (TxAttribute) attr;
+			out.packInt(txAttr.getAttributeType().getIndex());
+			byte tag = txAttr.getTag();
+			long bits = txAttr.getBits(loader);
+			out.writeByte(tag);
+			if (tag == TxAttribute.DOUBLE)
+				out.writeLong(bits);
+			else
+				out.packLong((bits << 1) ^ (bits >> 63));
+		}
+	}
+
+	@Override
+	public ScvTx deserialize(DataInput2 input, int available) throws IOException {
+		long id = input.unpackLong();
+		long streamId = input.unpackLong();
+		long generatorId = input.unpackLong();
+		long beginTime = input.unpackLong();
+		ScvTx tx = new ScvTx(id, streamId, generatorId, beginTime);
+		tx.endTime = beginTime + input.unpackLong();
+		int size = input.unpackInt();
+		for (int i = 0; i < size; i++) {
+			TxAttributeType type = loader.attributeTypeTable.get(input.unpackInt());
+			byte tag = input.readByte();
+			long bits;
+			if (tag == TxAttribute.DOUBLE) {
+				bits = input.readLong();
+			} else {
+				long zigzag = input.unpackLong();
+				bits = (zigzag >>> 1) ^ -(zigzag & 1);
+			}
+			tx.attributes.add(new TxAttribute(type, tag, bits, loader));
+		}
+		return tx;
+	}
+}
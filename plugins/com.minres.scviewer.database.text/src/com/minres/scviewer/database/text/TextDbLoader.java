@@ -14,13 +14,11 @@ package com.minres.scviewer.database.text;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -30,6 +28,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
@@ -47,10 +53,13 @@ import com.minres.scviewer.database.DataType;
 import com.minres.scviewer.database.EventKind;
 import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.IWaveformDbLoader;
+import com.minres.scviewer.database.IndexCache;
 import com.minres.scviewer.database.InputFormatException;
 import com.minres.scviewer.database.RelationType;
 import com.minres.scviewer.database.RelationTypeFactory;
 import com.minres.scviewer.database.tx.ITx;
+import com.minres.scviewer.database.tx.TxAttributeValues;
+import com.minres.scviewer.database.tx.TxCache;
 
 /**
  * The Class TextDbLoader.
@@ -66,15 +75,27 @@ public class TextDbLoader implements IWaveformDbLoader {
 
 	private static final long MAPDB_INCREMENTAL_ALLOC = 128l*1024l*1024l;
 
+	/** The number of threads tokenizing the input. */
+	private static final int PARSER_THREADS = Integer.getInteger("TxlogParserThreads", Runtime.getRuntime().availableProcessors());
+
+	/** The size of the blocks the input is split into for tokenization. */
+	private static final int BLOCK_SIZE = 1 << 22;
+
 	/** The max time. */
-	private Long maxTime = 0L;
+	Long maxTime = 0L;
 
 	/** The map db. */
 	DB mapDb = null;
 
-	/** The attr values. */
+	/** The persistent index being written in the background. */
+	private IndexCache indexCache = null;
+
+	/** The string attribute values, other values are stored in their native type. */
 	final List<String> attrValues = new ArrayList<>();
 
+	/** The index of the attr values. */
+	final Map<String, Integer> attrValueLut = new HashMap<>();
+
 	/** The relation types. */
 	final Map<String, RelationType> relationTypes = UnifiedMap.newMap();
 
@@ -90,6 +111,9 @@ public class TextDbLoader implements IWaveformDbLoader {
 	/** The attribute types. */
 	final Map<String, TxAttributeType> attributeTypes = UnifiedMap.newMap();
 
+	/** The attribute types by index. */
+	final List<TxAttributeType> attributeTypeTable = new ArrayList<>();
+
 	/** The relations in. */
 	final HashMultimap<Long, ScvRelation> relationsIn = HashMultimap.create();
 
@@ -97,7 +121,7 @@ public class TextDbLoader implements IWaveformDbLoader {
 	final HashMultimap<Long, ScvRelation> relationsOut = HashMultimap.create();
 
 	/** The tx cache. */
-	HashMap<Long, Tx> txCache = new HashMap<>();
+	final TxCache<Tx> txCache = new TxCache<>();
 
 	/** The threads. */
 	List<Thread> threads = new ArrayList<>();
@@ -145,20 +169,13 @@ public class TextDbLoader implements IWaveformDbLoader {
 	 * @return the transaction
 	 */
 	public ITx getTransaction(long txId) {
-		if (txCache.containsKey(txId))
-			return txCache.get(txId);
-		if(transactions.containsKey(txId)) {
-			Tx tx = new Tx(this, transactions.get(txId));
-			txCache.put(txId, tx);
-			return tx;
-		} else {
-			throw new IllegalArgumentException();
-		}
+		return txCache.get(txId, id -> new Tx(this, getScvTx(id)));
 	}
 
 	public ScvTx getScvTx(long id) {
-		if(transactions.containsKey(id))
-			return transactions.get(id);
+		ScvTx tx = transactions.get(id);
+		if(tx!=null)
+			return tx;
 		else
 			throw new IllegalArgumentException();
 	}
@@ -223,6 +240,11 @@ public class TextDbLoader implements IWaveformDbLoader {
 	@Override
 	public void load(File file) throws InputFormatException {
 		dispose();
+		IndexCache cache = IndexCache.of(file, TxIndexFile.FORMAT, TxIndexFile.VERSION);
+		if (cache != null && readIndex(cache)) {
+			txStreams.values().parallelStream().forEach(TxStream::calculateConcurrency);
+			return;
+		}
 		FileType fType = getFileType(file);
 		if (file.length() < MEMMAP_LIMIT * (fType!=FileType.PLAIN ? 1 : 10)
 				|| "memory".equals(System.getProperty("ScvBackingDB", "file")))
@@ -243,7 +265,7 @@ public class TextDbLoader implements IWaveformDbLoader {
 		TextDbParser parser = new TextDbParser(this);
 		try {
 
-			parser.txSink = mapDb.hashMap("transactions", Serializer.LONG, Serializer.JAVA).create();
+			parser.txSink = mapDb.hashMap("transactions", Serializer.LONG, new ScvTxSerializer(this)).create();
 			InputStream is = new BufferedInputStream(new FileInputStream(file));
 			parser.parseInput(fType==FileType.GZIP ? new GZIPInputStream(is) : fType==FileType.LZ4? new FramedLZ4CompressorInputStream(is) : is);
 		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
@@ -253,6 +275,29 @@ public class TextDbLoader implements IWaveformDbLoader {
 			transactions = parser.txSink;			
 		}
 		txStreams.values().parallelStream().forEach(TxStream::calculateConcurrency);
+		if (cache != null) {
+			indexCache = cache;
+			cache.writeAsync(out -> TxIndexFile.write(out, this));
+		}
+	}
+
+	/**
+	 * Reads the database from a valid persistent index of the file.
+	 *
+	 * @param cache the index
+	 * @return true, if the index has been read
+	 */
+	private boolean readIndex(IndexCache cache) {
+		ByteBuffer buf = cache.read();
+		if (buf == null)
+			return false;
+		try {
+			TxIndexFile.read(buf, this);
+			return true;
+		} catch (RuntimeException e) {
+			dispose();
+			return false;
+		}
 	}
 
 	/**
@@ -260,12 +305,19 @@ public class TextDbLoader implements IWaveformDbLoader {
 	 */
 	@Override
 	public void dispose() {
+		if (indexCache != null) {
+			indexCache.cancel();
+			indexCache = null;
+		}
 		attrValues.clear();
+		attrValueLut.clear();
 		relationTypes.clear();
 		txStreams.clear();
 		txGenerators.clear();
 		transactions = null;
+		txCache.clear();
 		attributeTypes.clear();
+		attributeTypeTable.clear();
 		relationsIn.clear();
 		relationsOut.clear();
 		if (mapDb != null) {
@@ -304,48 +356,130 @@ public class TextDbLoader implements IWaveformDbLoader {
 		/** The tx sink. */
 		HTreeMap<Long, ScvTx> txSink;
 
-		/** The reader. */
-		BufferedReader reader = null;
+		/** The number of threads tokenizing the input. */
+		final int threads;
 
 		/** The generator. */
 		TxGenerator generator = null;
 
-		/** The attr value lut. */
-		Map<String, Integer> attrValueLut = new HashMap<>();
-
 		/**
 		 * Instantiates a new text db parser.
 		 *
 		 * @param loader the loader
 		 */
 		public TextDbParser(TextDbLoader loader) {
+			this(loader, PARSER_THREADS);
+		}
+
+		/**
+		 * Instantiates a new text db parser.
+		 *
+		 * @param loader  the loader
+		 * @param threads the number of threads tokenizing the input
+		 */
+		public TextDbParser(TextDbLoader loader, int threads) {
 			super();
 			this.loader = loader;
+			this.threads = Math.max(1, threads);
 		}
 
 		/**
-		 * Parses the input.
+		 * Parses the input. The input is parsed in a pipeline: a reader thread reads
+		 * (and decompresses) the input in blocks of complete lines, a pool of workers
+		 * tokenizes the blocks into records and the calling thread applies the records
+		 * in file order.
 		 *
 		 * @param inputStream the input stream
-		 * @throws IOException Signals that an I/O exception has occurred.
 		 * @throws InputFormatException Signals that the input format is wrong
 		 */
 		void parseInput(InputStream inputStream) throws InputFormatException {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			BlockingQueue<Future<TxLogRecords>> blocks = new ArrayBlockingQueue<>(2 * threads);
+			Thread reader = new Thread(() -> readBlocks(inputStream, executor, blocks), "txlog reader");
+			reader.setDaemon(true);
+			reader.start();
 			try {
-				reader =  new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-				String curLine = reader.readLine();
-				String nextLine = null;
-				while ((nextLine = reader.readLine()) != null && curLine != null) {
-					curLine = parseLine(curLine, nextLine, false);
-				}
-				if (curLine != null)
-					parseLine(curLine, nextLine, true);
+				TxLogRecords records;
+				do {
+					records = blocks.take().get();
+					if (records == null) { // the input could not be read completely
+						finishTx();
+						return;
+					}
+					apply(records);
+				} while (!records.last);
+				finishTx();
 				for(Entry<Long, ScvTx> e: transactionById.entrySet()) {
 					ScvTx scvTx = e.getValue();
 					scvTx.endTime=loader.maxTime;
 					txSink.put(e.getKey(), scvTx);
 				}
-			} catch(IOException e) {}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new InputFormatException(e.getCause().toString());
+			} finally {
+				reader.interrupt();
+				executor.shutdownNow();
+			}
+		}
+
+		/**
+		 * Reads the input in blocks ending at a line end and queues the tokenization
+		 * of the blocks. A null result marks a read error, a failed one any other
+		 * failure of the reader.
+		 */
+		private static void readBlocks(InputStream inputStream, ExecutorService executor, BlockingQueue<Future<TxLogRecords>> blocks) {
+			byte[] buf = new byte[BLOCK_SIZE];
+			int len = 0;
+			try {
+				try {
+					while (true) {
+						int read = inputStream.read(buf, len, buf.length - len);
+						if (read < 0)
+							break;
+						len += read;
+						if (len < buf.length)
+							continue;
+						int cut = lastLineEnd(buf, len);
+						if (cut == 0) { // a line longer than the block
+							buf = Arrays.copyOf(buf, buf.length * 2);
+							continue;
+						}
+						final byte[] block = buf;
+						buf = new byte[Math.max(BLOCK_SIZE, len - cut)];
+						System.arraycopy(block, cut, buf, 0, len - cut);
+						len -= cut;
+						blocks.put(executor.submit(() -> TxLogRecords.parse(block, cut, false)));
+					}
+				} catch (IOException e) {
+					// the complete lines read so far are parsed
+					final byte[] block = buf;
+					final int cut = lastLineEnd(buf, len);
+					blocks.put(executor.submit(() -> TxLogRecords.parse(block, cut, false)));
+					blocks.put(CompletableFuture.completedFuture(null));
+					return;
+				}
+				final byte[] block = buf;
+				final int blockLen = len;
+				blocks.put(executor.submit(() -> TxLogRecords.parse(block, blockLen, true)));
+			} catch (InterruptedException | RejectedExecutionException e) {
+				// the parser stopped
+			} catch (Throwable t) {
+				// e.g. a corrupt compressed input or a line exhausting the memory
+				try {
+					blocks.put(CompletableFuture.failedFuture(t));
+				} catch (InterruptedException e) {
+					// the parser stopped
+				}
+			}
+		}
+
+		private static int lastLineEnd(byte[] buf, int len) {
+			int cut = len;
+			while (cut > 0 && buf[cut - 1] != '\n')
+				cut--;
+			return cut;
 		}
 
 		/**
@@ -362,95 +496,126 @@ public class TextDbLoader implements IWaveformDbLoader {
 			if (loader.attributeTypes.containsKey(key)) {
 				res = loader.attributeTypes.get(key);
 			} else {
-				res = new TxAttributeType(name, dataType, type);
+				res = new TxAttributeType(loader.attributeTypeTable.size(), name, dataType, type);
 				loader.attributeTypes.put(key, res);
+				loader.attributeTypeTable.add(res);
 			}
 			return res;
 		}
 
+		/** The transaction the following attribute lines belong to. */
+		private ScvTx attrTx = null;
+
+		/** The types of the attribute lines of attrTx. */
+		private List<TxAttributeType> attrTypes = null;
+
+		private int attrIdx = 0;
+
+		/** true if attrTx is to be stored once its attribute lines are read. */
+		private boolean attrTxEnded = false;
+
 		/**
-		 * Parses the line.
+		 * Applies the records of a block.
 		 *
-		 * @param curLine  the cur line
-		 * @param nextLine the next line
-		 * @return the string
-		 * @throws IOException Signals that an I/O exception has occurred.
+		 * @param records the records
 		 * @throws InputFormatException Signals that the input format is wrong
 		 */
-		private String parseLine(String curLine, String nextLine, boolean last) throws IOException, InputFormatException {
-			if(curLine.charAt(0)=='t') {
-				String[] tokens = curLine.split(" ");
-				//if ("tx_record_attribute".equals(tokens[0]) && tokens.length>4) {
-				if (curLine.length()>5 && curLine.charAt(5)=='c' && tokens.length>4) {
-					Long id = Long.parseLong(tokens[1]);
-					String name = tokens[2].substring(1, tokens[2].length()-1);
-					DataType type = DataType.valueOf(tokens[3]);
-					String remaining = tokens.length > 5 ? String.join(" ", Arrays.copyOfRange(tokens, 5, tokens.length)) : "";
-					TxAttributeType attrType = getAttrType(name, type, AssociationType.RECORD);
-					transactionById.get(id).attributes.add(new TxAttribute(attrType, getAttrString(attrType, remaining)));
-				//} else if ("tx_begin".equals(tokens[0]) && tokens.length>4) {
-				} else if (curLine.charAt(3)=='b' && tokens.length>4) {
-					Long id = Long.parseLong(tokens[1]);
-					Long genId = Long.parseLong(tokens[2]);
-					TxGenerator gen = loader.txGenerators.get(genId);
-					ScvTx scvTx = new ScvTx(id, gen.stream.getId(), genId,
-							Long.parseLong(tokens[3]) * stringToScale(tokens[4]));
+		private void apply(TxLogRecords records) throws InputFormatException {
+			for (int i = 0; i < records.size; i++) {
+				long[] v = records.values;
+				Object[] str = records.strings;
+				int j = 3 * i;
+				boolean last = records.last && i == records.size - 1;
+				if (records.kinds[i] == TxLogRecords.ATTRIBUTE && attrTx != null) {
+					TxAttributeType attrType = attrTypes.get(attrIdx++);
+					attrTx.attributes.add(new TxAttribute(attrType, getAttrValue(attrType, (String) str[j])));
+					continue;
+				}
+				finishTx();
+				switch (records.kinds[i]) {
+				case TxLogRecords.RECORD_ATTRIBUTE: {
+					DataType type = DataType.valueOf((String) str[j + 1]);
+					TxAttributeType attrType = getAttrType((String) str[j], type, AssociationType.RECORD);
+					transactionById.get(v[j]).attributes.add(new TxAttribute(attrType, getAttrValue(attrType, (String) str[j + 2])));
+					break;
+				}
+				case TxLogRecords.BEGIN: {
+					long id = v[j];
+					TxGenerator gen = loader.txGenerators.get(v[j + 1]);
+					ScvTx scvTx = new ScvTx(id, gen.stream.getId(), v[j + 1], v[j + 2]);
 					loader.maxTime = loader.maxTime > scvTx.beginTime ? loader.maxTime : scvTx.beginTime;
-					if (nextLine != null && nextLine.charAt(0) == 'a') {
-						int idx = 0;
-						while (nextLine != null && nextLine.charAt(0) == 'a') {
-							String[] attrTokens = nextLine.split("\\s+");
-							TxAttributeType attrType = gen.beginAttrs.get(idx);
-							TxAttribute attr = new TxAttribute(attrType, getAttrString(attrType, attrTokens[1]));
-							scvTx.attributes.add(attr);
-							idx++;
-							nextLine = reader.readLine();
-						}
-					}
 					transactionById.put(id, scvTx);
-				//} else if ("tx_end".equals(tokens[0]) && tokens.length>4) {
-				} else if (curLine.charAt(3)=='e' && tokens.length>4) {
-					Long id = Long.parseLong(tokens[1]);
+					startAttributes(scvTx, gen.beginAttrs, false);
+					break;
+				}
+				case TxLogRecords.END: {
+					long id = v[j];
 					ScvTx scvTx = transactionById.get(id);
-					assert Long.parseLong(tokens[2]) == scvTx.generatorId;
-					scvTx.endTime = Long.parseLong(tokens[3]) * stringToScale(tokens[4]);
+					assert v[j + 1] == scvTx.generatorId;
+					scvTx.endTime = v[j + 2];
 					loader.maxTime = loader.maxTime > scvTx.endTime ? loader.maxTime : scvTx.endTime;
 					TxGenerator gen = loader.txGenerators.get(scvTx.generatorId);
-					TxStream stream = loader.txStreams.get(gen.stream.getId());
 					if (scvTx.beginTime == scvTx.endTime) {
-						stream.addEvent(new TxEvent(loader, EventKind.SINGLE, id, scvTx.beginTime));
-						gen.addEvent(new TxEvent(loader, EventKind.SINGLE, id, scvTx.beginTime));
+						gen.addEvent(EventKind.SINGLE, id, scvTx.beginTime);
 					} else {
-						stream.addEvent(new TxEvent(loader, EventKind.BEGIN, id, scvTx.beginTime));
-						gen.addEvent(new TxEvent(loader, EventKind.BEGIN, id, scvTx.beginTime));
-						stream.addEvent(new TxEvent(loader, EventKind.END, id, scvTx.endTime));
-						gen.addEvent(new TxEvent(loader, EventKind.END, id, scvTx.endTime));
+						gen.addEvent(EventKind.BEGIN, id, scvTx.beginTime);
+						gen.addEvent(EventKind.END, id, scvTx.endTime);
 					}
-					if (nextLine != null && nextLine.charAt(0) == 'a') {
-						int idx = 0;
-						while (nextLine != null && nextLine.charAt(0) == 'a') {
-							String[] attrTokens = nextLine.split("\\s+");
-							TxAttributeType attrType = gen.endAttrs.get(idx);
-							TxAttribute attr = new TxAttribute(attrType, getAttrString(attrType, attrTokens[1]));
-							scvTx.attributes.add(attr);
-							idx++;
-							nextLine = reader.readLine();
-						}
-					}
-					txSink.put(scvTx.getId(), scvTx);
-					transactionById.remove(id);
-				//} else if ("tx_relation".equals(tokens[0]) && tokens.length>3) {
-				} else if (curLine.charAt(5)=='l' && tokens.length>3) {
-					Long tr2 = Long.parseLong(tokens[2]);
-					Long tr1 = Long.parseLong(tokens[3]);
-					String relType = tokens[1].substring(1, tokens[1].length() - 1);
+					startAttributes(scvTx, gen.endAttrs, true);
+					break;
+				}
+				case TxLogRecords.RELATION: {
+					long tr2 = v[j];
+					long tr1 = v[j + 1];
+					String relType = (String) str[j];
 					if (!loader.relationTypes.containsKey(relType))
 						loader.relationTypes.put(relType, RelationTypeFactory.create(relType));
 					ScvRelation rel = new ScvRelation(loader.relationTypes.get(relType), tr1, tr2);
 					loader.relationsOut.put(tr1, rel);
 					loader.relationsIn.put(tr2, rel);
+					break;
 				}
-			} else if (curLine.length()>13 && "scv_tr_stream".equals(curLine.substring(0, 13))) {
+				case TxLogRecords.ATTRIBUTE: // an attribute line not following a transaction
+					parseLine((String) str[j + 1], last);
+					break;
+				case TxLogRecords.LINE:
+					parseLine((String) str[j], last);
+					break;
+				case TxLogRecords.ERROR:
+					throw (RuntimeException) str[j];
+				default:
+					break;
+				}
+			}
+		}
+
+		private void startAttributes(ScvTx scvTx, List<TxAttributeType> types, boolean ended) {
+			attrTx = scvTx;
+			attrTypes = types;
+			attrIdx = 0;
+			attrTxEnded = ended;
+		}
+
+		/**
+		 * Finishes the attribute lines of the current transaction, ended transactions are stored.
+		 */
+		private void finishTx() {
+			if (attrTx != null && attrTxEnded) {
+				txSink.put(attrTx.getId(), attrTx);
+				transactionById.remove(attrTx.getId());
+			}
+			attrTx = null;
+		}
+
+		/**
+		 * Parses a line not describing a transaction.
+		 *
+		 * @param curLine  the line
+		 * @param last     true if this is the last line of the input
+		 * @throws InputFormatException Signals that the input format is wrong
+		 */
+		private void parseLine(String curLine, boolean last) throws InputFormatException {
+			if (curLine.length()>13 && "scv_tr_stream".equals(curLine.substring(0, 13))) {
 				Matcher matcher = scv_tr_stream.matcher(curLine);
 				if (matcher.matches()) {
 					Long id = Long.parseLong(matcher.group(1));
@@ -481,60 +646,40 @@ public class TextDbLoader implements IWaveformDbLoader {
 				}
 			} else if (curLine.charAt(0) == ')') {
 				generator = null;
-			} else if(!last)			
+			} else if(!last)
 				throw new InputFormatException("Don't know what to do with: '" + curLine + "'");
-			return nextLine;
 		}
 
 		/**
-		 * Gets the attr string.
+		 * Gets the native value of an attribute, strings are shared using the string
+		 * dictionary of the loader.
 		 *
 		 * @param attrType the attr type
-		 * @param string   the string
-		 * @return the attr string
+		 * @param string   the value as written in the log
+		 * @return the attr value
 		 */
-		private String getAttrString(TxAttributeType attrType, String string) {
-			String value;
+		private Object getAttrValue(TxAttributeType attrType, String string) {
+			Object value;
 			switch (attrType.getDataType()) {
 			case STRING:
 			case ENUMERATION:
 				value = string.substring(1, string.length() - 1);
 				break;
 			default:
-				value = string;
+				value = TxAttributeValues.valueOf(attrType.getDataType(), string);
 			}
-			if (attrValueLut.containsKey(value)) {
-				return loader.attrValues.get(attrValueLut.get(value));
+			if (!(value instanceof String))
+				return value;
+			Integer index = loader.attrValueLut.get(value);
+			if (index != null) {
+				return loader.attrValues.get(index);
 			} else {
-				attrValueLut.put(value, loader.attrValues.size());
-				loader.attrValues.add(value);
+				loader.attrValueLut.put((String) value, loader.attrValues.size());
+				loader.attrValues.add((String) value);
 				return value;
 			}
 		}
 
-		/**
-		 * String to scale.
-		 *
-		 * @param scale the scale
-		 * @return the long
-		 */
-		private long stringToScale(String scale) {
-			// TODO: scale to IWaveformDb.databaseTimeScale
-			String cmp = scale.trim();
-			if ("fs".equals(cmp))
-				return 1L;
-			if ("ps".equals(cmp))
-				return 1000L;
-			if ("ns".equals(cmp))
-				return 1000000L;
-			if ("us".equals(cmp))
-				return 1000000000L;
-			if ("ms".equals(cmp))
-				return 1000000000000L;
-			if ("s".equals(cmp))
-				return 1000000000000000L;
-			return 1L;
-		}
 		private void add(Long id, TxStream stream) {
 			loader.txStreams.put(id, stream);
 			loader.pcs.firePropertyChange(IWaveformDbLoader.STREAM_ADDED, null, stream);
@@ -121,7 +121,7 @@ class Tx implements ITx {
 			return true;
 		if (obj == null || getClass() != obj.getClass())
 			return false;
-		return this.getScvTx().equals(((Tx) obj).getScvTx());
+		return id == ((Tx) obj).id && loader == ((Tx) obj).loader;
 	}
 
 	/**
@@ -131,7 +131,7 @@ class Tx implements ITx {
 	 */
 	@Override
 	public int hashCode() {
-		return getScvTx().hashCode();
+		return Long.hashCode(id);
 	}
 
 	/**
@@ -151,7 +151,7 @@ class Tx implements ITx {
 	 */
 	@Override
 	public long getId() {
-		return getScvTx().id;
+		return id;
 	}
 
 	/**
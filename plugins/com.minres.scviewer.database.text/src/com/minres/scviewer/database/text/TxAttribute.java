@@ -28,20 +28,100 @@ public class TxAttribute implements ITxAttribute, Serializable {
 	/** The attribute type. */
 	private final TxAttributeType attributeType;
 
+	/** The tag of a string value, it is stored as index into the string dictionary of the loader. */
+	static final byte STRING = 0;
+
+	/** The tag of a {@link Long} value. */
+	static final byte LONG = 1;
+
+	/** The tag of a {@link Double} value, it is stored as its raw bits. */
+	static final byte DOUBLE = 2;
+
+	/** The tag of a {@link Boolean} value, it is stored as 0 or 1. */
+	static final byte BOOLEAN = 3;
+
 	/** The value. */
-	private final String value;
+	private final Object value;
 
 	/**
 	 * Instantiates a new tx attribute.
 	 *
 	 * @param type  the type
-	 * @param value the value
+	 * @param value the native value
 	 */
-	TxAttribute(TxAttributeType type, String value) {
+	TxAttribute(TxAttributeType type, Object value) {
 		this.attributeType = type;
 		this.value = value;
 	}
 
+	/**
+	 * Instantiates a tx attribute from its stored form.
+	 *
+	 * @param type   the type
+	 * @param tag    the tag of the value
+	 * @param bits   the stored value
+	 * @param loader the loader providing the string dictionary
+	 */
+	TxAttribute(TxAttributeType type, byte tag, long bits, TextDbLoader loader) {
+		this.attributeType = type;
+		switch (tag) {
+		case LONG:
+			value = bits;
+			break;
+		case DOUBLE:
+			value = Double.longBitsToDouble(bits);
+			break;
+		case BOOLEAN:
+			value = bits != 0;
+			break;
+		default:
+			value = loader.attrValues.get((int) bits);
+		}
+	}
+
+	/**
+	 * Gets the tag of the stored form of the value.
+	 *
+	 * @return the tag
+	 */
+	byte getTag() {
+		if (value instanceof Long)
+			return LONG;
+		if (value instanceof Double)
+			return DOUBLE;
+		if (value instanceof Boolean)
+			return BOOLEAN;
+		return STRING;
+	}
+
+	/**
+	 * Gets the stored form of the value.
+	 *
+	 * @param loader the loader providing the string dictionary
+	 * @return the stored value
+	 */
+	long getBits(TextDbLoader loader) {
+		switch (getTag()) {
+		case LONG:
+			return (Long) value;
+		case DOUBLE:
+			return Double.doubleToRawLongBits((Double) value);
+		case BOOLEAN:
+			return (Boolean) value ? 1 : 0;
+		default:
+			return loader.attrValueLut.get(value);
+		}
+	}
+
+	/**
+	 * Gets the attribute type.
+	 *
+	 * @return the attribute type
+	 */
+	TxAttributeType getAttributeType() {
+		return attributeType;
+	}
+
 	/**
 	 * Gets the name.
 	 *
@@ -25,6 +25,9 @@ class TxAttributeType implements ITxAttributeType, Serializable {
 	/** The Constant serialVersionUID. */
 	private static final long serialVersionUID = 7159721937208946828L;
 
+	/** The index in the attribute type table of the loader. */
+	private final int index;
+
 	/** The name. */
 	private String name;
 
@@ -37,16 +40,27 @@ class TxAttributeType implements ITxAttributeType, Serializable {
 	/**
 	 * Instantiates a new tx attribute type.
 	 *
+	 * @param index    the index in the attribute type table
 	 * @param name     the name
 	 * @param dataType the data type
 	 * @param type     the type
 	 */
-	TxAttributeType(String name, DataType dataType, AssociationType type) {
+	TxAttributeType(int index, String name, DataType dataType, AssociationType type) {
+		this.index = index;
 		this.name = name;
 		this.dataType = dataType;
 		this.type = type;
 	}
 
+	/**
+	 * Gets the index in the attribute type table of the loader.
+	 *
+	 * @return the index
+	 */
+	int getIndex() {
+		return index;
+	}
+
 	/**
 	 * Gets the name.
 	 *
@@ -0,0 +1,382 @@
+/*******************************************************************************
+ * Copyright (c) 2020 MINRES Technologies GmbH
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.text;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import com.minres.scviewer.database.AssociationType;
+import com.minres.scviewer.database.DataType;
+import com.minres.scviewer.database.EventEntry;
+import com.minres.scviewer.database.EventKind;
+import com.minres.scviewer.database.IEvent;
+import com.minres.scviewer.database.IHierNode;
+import com.minres.scviewer.database.IWaveformDbLoader;
+import com.minres.scviewer.database.IndexCache;
+import com.minres.scviewer.database.RelationType;
+import com.minres.scviewer.database.RelationTypeFactory;
+import com.minres.scviewer.database.TxEventList;
+import com.minres.scviewer.database.tx.ITxAttribute;
+
+/**
+ * The layout of the persistent index (see {@link IndexCache}) of a parsed text
+ * transaction log. It holds the string attribute values and the attribute
+ * types, the streams with their generators, the relations, the events of each
+ * stream and the transaction table. The transaction table is not read but
+ * accessed in the mapped index using a sorted id column. Attribute values are
+ * stored with the tag and the bits of {@link TxAttribute}.
+ */
+class TxIndexFile {
+
+	/** The name of the index format. */
+	static final String FORMAT = "txidx";
+
+	/** The version of the index format. */
+	static final int VERSION = 2;
+
+	private static final EventKind[] KINDS = EventKind.values();
+
+	private TxIndexFile() {
+	}
+
+	/**
+	 * Writes the content of the loader.
+	 *
+	 * @param out    the output
+	 * @param loader the loader
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static void write(DataOutputStream out, TextDbLoader loader) throws IOException {
+		out.writeLong(loader.getMaxTime());
+		out.writeInt(loader.attrValues.size());
+		for (String value : loader.attrValues)
+			IndexCache.writeString(out, value);
+		out.writeInt(loader.attributeTypeTable.size());
+		for (TxAttributeType type : loader.attributeTypeTable) {
+			IndexCache.writeString(out, type.getName());
+			out.writeByte(type.getDataType().ordinal());
+			out.writeByte(type.getType().ordinal());
+		}
+		out.writeInt(loader.txStreams.size());
+		for (TxStream stream : loader.txStreams.values()) {
+			out.writeLong(stream.getId());
+			IndexCache.writeString(out, stream.getFullName());
+			IndexCache.writeString(out, stream.getKind());
+			out.writeInt(stream.getChildNodes().size());
+			for (IHierNode node : stream.getChildNodes()) {
+				TxGenerator gen = (TxGenerator) node;
+				out.writeLong(gen.getId());
+				IndexCache.writeString(out, gen.getName());
+				writeAttributeTypes(out, gen.beginAttrs);
+				writeAttributeTypes(out, gen.endAttrs);
+			}
+		}
+		List<String> relationTypes = new ArrayList<>(loader.relationTypes.keySet());
+		out.writeInt(relationTypes.size());
+		for (String name : relationTypes)
+			IndexCache.writeString(out, name);
+		out.writeInt(loader.relationsOut.size());
+		for (ScvRelation rel : loader.relationsOut.values()) {
+			out.writeInt(relationTypes.indexOf(rel.relationType.getName()));
+			out.writeLong(rel.source);
+			out.writeLong(rel.target);
+		}
+		writeTransactions(out, loader);
+	}
+
+	private static void writeAttributeTypes(DataOutputStream out, List<TxAttributeType> types) throws IOException {
+		out.writeInt(types.size());
+		for (TxAttributeType type : types)
+			out.writeInt(type.getIndex());
+	}
+
+	/**
+	 * Writes the transaction section: the transaction records, the events of the
+	 * streams, the ids in ascending order with the offset of the respective record
+	 * and the offset of the events. Offsets are relative to the start of the
+	 * section, they fit into an int as the cache aborts writing indexes larger than
+	 * 2 GiB.
+	 */
+	private static void writeTransactions(DataOutputStream out, TextDbLoader loader) throws IOException {
+		int count = loader.transactions.size();
+		long[] ids = new long[count];
+		long[] generators = new long[count];
+		int[] offsets = new int[count];
+		int idx = 0;
+		int start = out.size();
+		out.writeInt(count);
+		for (ScvTx tx : loader.transactions.values()) {
+			ids[idx] = tx.id;
+			generators[idx] = tx.generatorId;
+			offsets[idx++] = out.size() - start;
+			out.writeLong(tx.id);
+			out.writeLong(tx.streamId);
+			out.writeLong(tx.generatorId);
+			out.writeLong(tx.beginTime);
+			out.writeLong(tx.endTime);
+			out.writeInt(tx.attributes.size());
+			for (ITxAttribute attr : tx.attributes) {
+				TxAttribute txAttr = (TxAttribute) attr;
+				out.writeInt(txAttr.getAttributeType().getIndex());
+				out.writeByte(txAttr.getTag());
+				out.writeLong(txAttr.getBits(loader));
+			}
+		}
+		int[] order = IntStream.range(0, count).boxed().sorted((a, b) -> Long.compare(ids[a], ids[b]))
+				.mapToInt(Integer::intValue).toArray();
+		long[] sortedIds = new long[count];
+		long[] sortedGenerators = new long[count];
+		for (int i = 0; i < count; i++) {
+			sortedIds[i] = ids[order[i]];
+			sortedGenerators[i] = generators[order[i]];
+		}
+		int eventsOffset = out.size() - start;
+		for (TxStream stream : loader.txStreams.values())
+			writeEvents(out, stream, sortedIds, sortedGenerators);
+		for (long id : sortedIds)
+			out.writeLong(id);
+		for (int i : order)
+			out.writeInt(offsets[i]);
+		out.writeInt(eventsOffset);
+	}
+
+	/**
+	 * Writes the events of a stream as columns of time, transaction id, generator
+	 * id and kind. The events of the generators are the ones of their stream in the
+	 * same order.
+	 */
+	private static void writeEvents(DataOutputStream out, TxStream stream, long[] ids, long[] generators) throws IOException {
+		int count = 0;
+		for (EventEntry entry : stream.getEvents())
+			count += entry.events.length;
+		out.writeInt(count);
+		for (EventEntry entry : stream.getEvents())
+			for (IEvent evt : entry.events)
+				out.writeLong(entry.timestamp);
+		for (EventEntry entry : stream.getEvents())
+			for (IEvent evt : entry.events)
+				out.writeLong(((TxEventList.Event) evt).getTransactionId());
+		for (EventEntry entry : stream.getEvents())
+			for (IEvent evt : entry.events)
+				out.writeLong(generators[Arrays.binarySearch(ids, ((TxEventList.Event) evt).getTransactionId())]);
+		for (EventEntry entry : stream.getEvents())
+			for (IEvent evt : entry.events)
+				out.writeByte(evt.getKind().ordinal());
+	}
+
+	/**
+	 * Reads the index into the loader, the transactions stay in the mapped index.
+	 *
+	 * @param buf    the content of the index
+	 * @param loader the loader
+	 */
+	static void read(ByteBuffer buf, TextDbLoader loader) {
+		long maxTime = buf.getLong();
+		int count = buf.getInt();
+		for (int i = 0; i < count; i++) {
+			String value = IndexCache.readString(buf);
+			loader.attrValueLut.put(value, loader.attrValues.size());
+			loader.attrValues.add(value);
+		}
+		count = buf.getInt();
+		DataType[] dataTypes = DataType.values();
+		AssociationType[] associationTypes = AssociationType.values();
+		for (int i = 0; i < count; i++) {
+			String name = IndexCache.readString(buf);
+			DataType dataType = dataTypes[buf.get()];
+			TxAttributeType type = new TxAttributeType(i, name, dataType, associationTypes[buf.get()]);
+			loader.attributeTypes.put(name + "-" + dataType.toString(), type);
+			loader.attributeTypeTable.add(type);
+		}
+		int streams = buf.getInt();
+		for (int i = 0; i < streams; i++) {
+			long id = buf.getLong();
+			TxStream stream = new TxStream(loader, id, IndexCache.readString(buf), IndexCache.readString(buf));
+			loader.txStreams.put(id, stream);
+			loader.pcs.firePropertyChange(IWaveformDbLoader.STREAM_ADDED, null, stream);
+			int generators = buf.getInt();
+			for (int j = 0; j < generators; j++) {
+				long genId = buf.getLong();
+				TxGenerator gen = new TxGenerator(loader, genId, IndexCache.readString(buf), stream);
+				readAttributeTypes(buf, loader, gen.beginAttrs);
+				readAttributeTypes(buf, loader, gen.endAttrs);
+				loader.txGenerators.put(genId, gen);
+				loader.pcs.firePropertyChange(IWaveformDbLoader.GENERATOR_ADDED, null, gen);
+			}
+		}
+		count = buf.getInt();
+		RelationType[] relationTypes = new RelationType[count];
+		for (int i = 0; i < count; i++) {
+			String name = IndexCache.readString(buf);
+			relationTypes[i] = RelationTypeFactory.create(name);
+			loader.relationTypes.put(name, relationTypes[i]);
+		}
+		count = buf.getInt();
+		for (int i = 0; i < count; i++) {
+			ScvRelation rel = new ScvRelation(relationTypes[buf.getInt()], buf.getLong(), buf.getLong());
+			loader.relationsOut.put(rel.source, rel);
+			loader.relationsIn.put(rel.target, rel);
+		}
+		ByteBuffer section = buf.slice();
+		ByteBuffer events = section.duplicate().position(section.getInt(section.capacity() - 4)).slice();
+		for (int i = 0; i < streams; i++)
+			readEvents(events, loader);
+		loader.transactions = new MappedTxTable(section, loader);
+		loader.maxTime = maxTime;
+	}
+
+	private static void readAttributeTypes(ByteBuffer buf, TextDbLoader loader, List<TxAttributeType> types) {
+		int count = buf.getInt();
+		for (int i = 0; i < count; i++)
+			types.add(loader.attributeTypeTable.get(buf.getInt()));
+	}
+
+	private static void readEvents(ByteBuffer buf, TextDbLoader loader) {
+		int count = buf.getInt();
+		long[] times = readLongs(buf, count);
+		long[] txIds = readLongs(buf, count);
+		long[] genIds = readLongs(buf, count);
+		byte[] kinds = new byte[count];
+		buf.get(kinds);
+		TxGenerator gen = null;
+		for (int i = 0; i < count; i++) {
+			if (gen == null || gen.getId() != genIds[i])
+				gen = loader.txGenerators.get(genIds[i]);
+			gen.addEvent(KINDS[kinds[i]], txIds[i], times[i]);
+		}
+	}
+
+	private static long[] readLongs(ByteBuffer buf, int size) {
+		long[] values = new long[size];
+		buf.asLongBuffer().get(values);
+		buf.position(buf.position() + 8 * size);
+		return values;
+	}
+
+	/**
+	 * The transaction table of a mapped index. Transactions are decoded on access,
+	 * the lookup is a binary search in the id column. Only absolute reads of the
+	 * buffer are used so the table can be accessed concurrently.
+	 */
+	static class MappedTxTable extends AbstractMap<Long, ScvTx> {
+
+		private final ByteBuffer records;
+
+		private final TextDbLoader loader;
+
+		private final int size;
+
+		private final LongBuffer ids;
+
+		private final IntBuffer offsets;
+
+		MappedTxTable(ByteBuffer records, TextDbLoader loader) {
+			this.records = records;
+			this.loader = loader;
+			this.size = records.getInt(0);
+			int end = records.capacity() - 4 - size * 12;
+			ids = records.duplicate().position(end).slice().asLongBuffer();
+			offsets = records.duplicate().position(end + size * 8).slice().asIntBuffer();
+		}
+
+		private int indexOf(Object key) {
+			if (!(key instanceof Long))
+				return -1;
+			long id = (Long) key;
+			int low = 0;
+			int high = size - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				long midId = ids.get(mid);
+				if (midId < id)
+					low = mid + 1;
+				else if (midId > id)
+					high = mid - 1;
+				else
+					return mid;
+			}
+			return -1;
+		}
+
+		private ScvTx decode(int index) {
+			int pos = offsets.get(index);
+			ScvTx tx = new ScvTx(records.getLong(pos), records.getLong(pos + 8), records.getLong(pos + 16),
+					records.getLong(pos + 24));
+			tx.endTime = records.getLong(pos + 32);
+			int count = records.getInt(pos + 40);
+			pos += 44;
+			for (int i = 0; i < count; i++, pos += 13) {
+				TxAttributeType type = loader.attributeTypeTable.get(records.getInt(pos));
+				tx.attributes.add(new TxAttribute(type, records.get(pos + 4), records.getLong(pos + 5), loader));
+			}
+			return tx;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return indexOf(key) >= 0;
+		}
+
+		@Override
+		public ScvTx get(Object key) {
+			int index = indexOf(key);
+			return index < 0 ? null : decode(index);
+		}
+
+		@Override
+		public Set<Map.Entry<Long, ScvTx>> entrySet() {
+			return new AbstractSet<Map.Entry<Long, ScvTx>>() {
+				@Override
+				public Iterator<Map.Entry<Long, ScvTx>> iterator() {
+					return new Iterator<Map.Entry<Long, ScvTx>>() {
+						int index = 0;
+
+						@Override
+						public boolean hasNext() {
+							return index < size;
+						}
+
+						@Override
+						public Map.Entry<Long, ScvTx> next() {
+							if (index >= size)
+								throw new NoSuchElementException();
+							ScvTx tx = decode(index++);
+							return new AbstractMap.SimpleImmutableEntry<>(tx.id, tx);
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2020 MINRES Technologies GmbH
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.text;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The typed records of a block of complete lines of a text transaction log.
+ * Blocks are tokenized concurrently working on the raw bytes, the records are
+ * applied in file order by the parser. Lines other than transaction lines are
+ * kept as string and handled by the parser.
+ */
+class TxLogRecords {
+
+	/** tx_begin: id, generator id, time */
+	static final byte BEGIN = 0;
+
+	/** tx_end: id, generator id, time */
+	static final byte END = 1;
+
+	/** an attribute value line following tx_begin or tx_end: value, line */
+	static final byte ATTRIBUTE = 2;
+
+	/** tx_record_attribute: id, name, type, value */
+	static final byte RECORD_ATTRIBUTE = 3;
+
+	/** tx_relation: id of the target, id of the source, relation name */
+	static final byte RELATION = 4;
+
+	/** any other line: line */
+	static final byte LINE = 5;
+
+	/** a line which could not be tokenized: exception */
+	static final byte ERROR = 6;
+
+	/** true if this is the last block of the input */
+	final boolean last;
+
+	int size = 0;
+
+	byte[] kinds = new byte[256];
+
+	long[] values = new long[3 * 256];
+
+	Object[] strings = new Object[3 * 256];
+
+	private TxLogRecords(boolean last) {
+		this.last = last;
+	}
+
+	/**
+	 * Tokenizes a block of complete lines.
+	 *
+	 * @param buf  the buffer
+	 * @param len  the number of bytes in the buffer
+	 * @param last true if this is the last block of the input
+	 * @return the records
+	 */
+	static TxLogRecords parse(byte[] buf, int len, boolean last) {
+		TxLogRecords records = new TxLogRecords(last);
+		int start = 0;
+		while (start < len) {
+			int end = start;
+			while (end < len && buf[end] != '\n')
+				end++;
+			int lineEnd = end > start && buf[end - 1] == '\r' ? end - 1 : end;
+			if (lineEnd > start) {
+				try {
+					records.parseLine(buf, start, lineEnd);
+				} catch (RuntimeException e) {
+					// the records following an error are not applied anyway
+					records.add(ERROR, 0, 0, 0, e, null, null);
+					break;
+				}
+			}
+			start = end + 1;
+		}
+		return records;
+	}
+
+	private void parseLine(byte[] buf, int from, int to) {
+		if (buf[from] == 't') {
+			// the tokens as of String.split(" ")
+			int tokenEnd = to;
+			while (tokenEnd > from && buf[tokenEnd - 1] == ' ')
+				tokenEnd--;
+			int[] starts = new int[6];
+			int[] ends = new int[6];
+			int count = 0;
+			int tokenStart = from;
+			for (int i = from; i <= tokenEnd; i++) {
+				if (i == tokenEnd || buf[i] == ' ') {
+					if (count < starts.length) {
+						starts[count] = tokenStart;
+						ends[count] = i;
+					}
+					count++;
+					tokenStart = i + 1;
+				}
+			}
+			int length = to - from;
+			if (length > 5 && buf[from + 5] == 'c' && count > 4) {
+				add(RECORD_ATTRIBUTE, parseLong(buf, starts[1], ends[1]), 0, 0,
+						unquote(buf, starts[2], ends[2]),
+						string(buf, starts[3], ends[3]),
+						count > 5 ? string(buf, starts[5], tokenEnd) : "");
+			} else if (charAt(buf, from, to, 3) == 'b' && count > 4) {
+				add(BEGIN, parseLong(buf, starts[1], ends[1]), parseLong(buf, starts[2], ends[2]),
+						parseLong(buf, starts[3], ends[3]) * scale(buf, starts[4], ends[4]), null, null, null);
+			} else if (charAt(buf, from, to, 3) == 'e' && count > 4) {
+				add(END, parseLong(buf, starts[1], ends[1]), parseLong(buf, starts[2], ends[2]),
+						parseLong(buf, starts[3], ends[3]) * scale(buf, starts[4], ends[4]), null, null, null);
+			} else if (charAt(buf, from, to, 5) == 'l' && count > 3) {
+				add(RELATION, parseLong(buf, starts[2], ends[2]), parseLong(buf, starts[3], ends[3]), 0,
+						unquote(buf, starts[1], ends[1]), null, null);
+			}
+		} else if (buf[from] == 'a') {
+			// the second token as of String.split("\\s+")
+			int start = from;
+			while (start < to && !isWhitespace(buf[start]))
+				start++;
+			while (start < to && isWhitespace(buf[start]))
+				start++;
+			if (start == to)
+				throw new ArrayIndexOutOfBoundsException(1);
+			int end = start;
+			while (end < to && !isWhitespace(buf[end]))
+				end++;
+			add(ATTRIBUTE, 0, 0, 0, string(buf, start, end), string(buf, from, to), null);
+		} else {
+			add(LINE, 0, 0, 0, string(buf, from, to), null, null);
+		}
+	}
+
+	private void add(byte kind, long v0, long v1, long v2, Object s0, Object s1, Object s2) {
+		if (size == kinds.length) {
+			kinds = Arrays.copyOf(kinds, size * 2);
+			values = Arrays.copyOf(values, 3 * size * 2);
+			strings = Arrays.copyOf(strings, 3 * size * 2);
+		}
+		kinds[size] = kind;
+		values[3 * size] = v0;
+		values[3 * size + 1] = v1;
+		values[3 * size + 2] = v2;
+		strings[3 * size] = s0;
+		strings[3 * size + 1] = s1;
+		strings[3 * size + 2] = s2;
+		size++;
+	}
+
+	private static char charAt(byte[] buf, int from, int to, int index) {
+		if (from + index >= to)
+			throw new StringIndexOutOfBoundsException(index);
+		return (char) buf[from + index];
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == 0x0b || b == '\f' || b == '\r';
+	}
+
+	private static String string(byte[] buf, int from, int to) {
+		return new String(buf, from, to - from, StandardCharsets.UTF_8);
+	}
+
+	private static String unquote(byte[] buf, int from, int to) {
+		if (to - from < 2)
+			throw new StringIndexOutOfBoundsException(to - from - 1);
+		return string(buf, from + 1, to - 1);
+	}
+
+	private static long parseLong(byte[] buf, int from, int to) {
+		int i = from;
+		boolean negative = false;
+		if (i < to && (buf[i] == '-' || buf[i] == '+'))
+			negative = buf[i++] == '-';
+		if (i == to || to - i > 18)
+			return Long.parseLong(string(buf, from, to));
+		long value = 0;
+		for (; i < to; i++) {
+			int digit = buf[i] - '0';
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException("For input string: \"" + string(buf, from, to) + "\"");
+			value = value * 10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * The time scale factor of a time unit, the conversion follows the one of the
+	 * line based parser.
+	 */
+	private static long scale(byte[] buf, int from, int to) {
+		while (from < to && buf[from] <= ' ')
+			from++;
+		while (to > from && buf[to - 1] <= ' ')
+			to--;
+		int len = to - from;
+		if (len == 1 && buf[from] == 's')
+			return 1000000000000000L;
+		if (len != 2 || buf[from + 1] != 's')
+			return 1L;
+		switch (buf[from]) {
+		case 'p':
+			return 1000L;
+		case 'n':
+			return 1000000L;
+		case 'u':
+			return 1000000000L;
+		case 'm':
+			return 1000000000000L;
+		default:
+			return 1L;
+		}
+	}
+}
@@ -13,6 +13,7 @@ package com.minres.scviewer.database.text;
 
 import com.minres.scviewer.database.DirectionType;
 import com.minres.scviewer.database.IWaveform;
+import com.minres.scviewer.database.TxEventList;
 
 /**
  * The Class TxStream.
@@ -31,7 +32,7 @@ class TxStream extends AbstractTxStream {
 	 * @param kind   the kind
 	 */
 	TxStream(TextDbLoader loader, Long id, String name, String kind) {
-		super(loader, id, name);
+		super(loader, id, name, new TxEventList.Table(loader::getTransaction), TxEventList.STREAM);
 		this.kind = kind;
 	}
 
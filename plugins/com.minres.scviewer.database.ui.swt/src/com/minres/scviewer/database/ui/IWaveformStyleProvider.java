@@ -1,13 +1,39 @@
 package com.minres.scviewer.database.ui;
 
+import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.wb.swt.SWTResourceManager;
 
 public interface IWaveformStyleProvider {
 	
 	Font getNameFont();
 
 	Font getNameFontHighlite();
+
+	/**
+	 * Gets the font of the values painted into signal tracks. The font is owned by
+	 * the provider, by default it is derived from the name font.
+	 *
+	 * @return the font
+	 */
+	default Font getSignalFont() {
+		return getSignalFont(getNameFont());
+	}
+
+	/**
+	 * Gets the monospace font of the values painted into signal tracks, it is half
+	 * as high as the given font.
+	 *
+	 * @param font the name font
+	 * @return the font
+	 */
+	static Font getSignalFont(Font font) {
+		FontData fd = font.getFontData()[0];
+		int height = font.getDevice().getDPI().y * fd.getHeight() / 72;
+		return SWTResourceManager.getFont("monospace", (height+1)/2, SWT.NORMAL);
+	}
 	
 	int getTrackHeight();
 
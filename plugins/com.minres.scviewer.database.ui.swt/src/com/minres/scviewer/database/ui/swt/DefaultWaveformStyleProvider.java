@@ -21,11 +21,14 @@ public class DefaultWaveformStyleProvider implements IWaveformStyleProvider {
 	
 	private Font nameFontB;
 
+	private Font signalFont;
+
     Color[] colors = new Color[WaveformColors.values().length];
 
 	public DefaultWaveformStyleProvider() {
 		nameFont = Display.getCurrent().getSystemFont();
 		nameFontB = SWTResourceManager.getBoldFont(nameFont);
+		signalFont = IWaveformStyleProvider.getSignalFont(nameFont);
         colors[WaveformColors.LINE.ordinal()] = SWTResourceManager.getColor(SWT.COLOR_RED);
         colors[WaveformColors.LINE_HIGHLITE.ordinal()] = SWTResourceManager.getColor(SWT.COLOR_CYAN);
         colors[WaveformColors.TRACK_BG_EVEN.ordinal()] = SWTResourceManager.getColor(SWT.COLOR_BLACK);
@@ -76,6 +79,11 @@ public class DefaultWaveformStyleProvider implements IWaveformStyleProvider {
 		return nameFontB;
 	}
 
+	@Override
+	public Font getSignalFont() {
+		return signalFont;
+	}
+
 	@Override
 	public int getTrackHeight() {
 		return 50;
@@ -49,7 +49,9 @@ public class CursorPainter implements IPainter, ICursor {
 	}
 
 	public void setTime(long time) {
+		long oldTime = this.time;
 		this.time = time;
+		waveCanvas.redrawCursor(this, oldTime);
 	}
 
 	public boolean isDragging() {
@@ -58,6 +60,7 @@ public class CursorPainter implements IPainter, ICursor {
 
 	public void setDragging(boolean isDragging) {
 		this.isDragging = isDragging;
+		waveCanvas.redrawCursor(this, time);
 	}
 
 	
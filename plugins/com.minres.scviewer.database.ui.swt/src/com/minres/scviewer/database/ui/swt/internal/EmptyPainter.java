@@ -10,12 +10,9 @@
  *******************************************************************************/
 package com.minres.scviewer.database.ui.swt.internal;
 
-import javax.swing.JPanel;
-
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Color;
-import org.eclipse.swt.graphics.FontData;
-import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 
 import com.minres.scviewer.database.ui.TrackEntry;
@@ -27,16 +24,18 @@ public class EmptyPainter extends TrackPainter {
 	 */
 	private final WaveformCanvas waveCanvas;
 
-	private static final JPanel DUMMY_PANEL = new JPanel();
-
 	public EmptyPainter(WaveformCanvas txDisplay, boolean even, TrackEntry trackEntry) {
 		super(trackEntry, even);
 		this.waveCanvas = txDisplay;
 	}
 
+	@Override
+	public boolean dependsOnVisibleArea() {
+		return true;
+	}
+
 	public void paintArea(Projection proj, Rectangle area) {
 		Color bgColor = trackEntry.selected?this.waveCanvas.styleProvider.getColor(WaveformColors.TRACK_BG_HIGHLITE):this.waveCanvas.styleProvider.getColor(even ? WaveformColors.TRACK_BG_EVEN : WaveformColors.TRACK_BG_ODD);
-		GC gc = proj.getGC();
 		proj.setBackground(bgColor);
 		proj.setFillRule(SWT.FILL_EVEN_ODD);
 		proj.fillRectangle(area);
@@ -50,15 +49,15 @@ public class EmptyPainter extends TrackPainter {
 		String label = trackEntry.waveform.getName();
 		if(label.length()>0) {
 			Color textColor=waveCanvas.styleProvider.getColor(WaveformColors.SIGNAL_TEXT);
-			FontData fd = gc.getFont().getFontData()[0];
-			int height = gc.getDevice().getDPI().y * fd.getHeight() / 72;
-			java.awt.Font tmpAwtFont = new java.awt.Font(fd.getName(), fd.getStyle(), height);
-			int width = DUMMY_PANEL.getFontMetrics(tmpAwtFont).stringWidth(label);
-
-			int xBegin = (area.width-width)/2-5;
-			xBegin = xBegin<0?0:xBegin;
-			int xEnd = (area.width+width)/2+5;
-			xEnd = xEnd>area.width?area.width:xEnd;
+			Point extent = proj.getGC().textExtent(label);
+			int width = extent.x;
+			int height = extent.y;
+			// the label is centered in the visible part of the track
+			Rectangle visible = proj.unProject(waveCanvas.getClientArea());
+			int xBegin = (visible.width-width)/2-5;
+			xBegin = visible.x + (xBegin<0?0:xBegin);
+			int xEnd = (visible.width+width)/2+5;
+			xEnd = visible.x + (xEnd>visible.width?visible.width:xEnd);
 			int yOffsetT = this.waveCanvas.styleProvider.getTrackHeight() / 5 + area.y;
 			int yOffsetM = this.waveCanvas.styleProvider.getTrackHeight() / 2 + area.y;
 			int yOffsetB = 4 * this.waveCanvas.styleProvider.getTrackHeight() / 5 + area.y;
@@ -70,15 +69,15 @@ public class EmptyPainter extends TrackPainter {
 					xEnd - 1,   yOffsetB, 
 					xBegin + 1, yOffsetB
 			};
-			gc.setBackground(bgColor);
-			gc.fillPolygon(points);
-			gc.setForeground(drawColor);
-			gc.drawPolygon(points);
-			Rectangle old = gc.getClipping();
-			gc.setForeground(textColor);
-			gc.setClipping(xBegin + 3, yOffsetT, xEnd - xBegin - 5, yOffsetB - yOffsetT);
-			gc.drawText(label, xBegin + 3, yOffsetM - height / 2 - 1);
-			gc.setClipping(old);
+			proj.setBackground(bgColor);
+			proj.fillPolygon(points);
+			proj.setForeground(drawColor);
+			proj.drawPolygon(points);
+			Rectangle old = proj.getClipping();
+			proj.setForeground(textColor);
+			proj.setClipping(old.intersection(new Rectangle(xBegin + 3, yOffsetT, xEnd - xBegin - 5, yOffsetB - yOffsetT)));
+			proj.drawText(label, xBegin + 3, yOffsetM - height / 2 - 1);
+			proj.setClipping(old);
 		}
 	}
 }
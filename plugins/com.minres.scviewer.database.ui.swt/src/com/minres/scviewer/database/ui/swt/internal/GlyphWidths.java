@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.ui.swt.internal;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.GC;
+
+/**
+ * The widths of the printable ASCII glyphs of a font, measured once per font
+ * and used to fit value labels into their boxes without measuring each label.
+ * Labels of monospace fonts are fitted in constant time. The widths are only
+ * accessed on the UI thread.
+ */
+class GlyphWidths {
+
+	private static final char FIRST = ' ';
+
+	private static final char LAST = '~';
+
+	private static final Map<Font, GlyphWidths> cache = new WeakHashMap<>();
+
+	private final int[] widths = new int[LAST - FIRST + 1];
+
+	private final int maxWidth;
+
+	/** the width of all glyphs if the font is monospace, -1 otherwise */
+	private final int fixedWidth;
+
+	private final int height;
+
+	private GlyphWidths(GC gc) {
+		int max = 0;
+		for (char c = FIRST; c <= LAST; c++) {
+			widths[c - FIRST] = gc.getAdvanceWidth(c);
+			max = Math.max(max, widths[c - FIRST]);
+		}
+		maxWidth = max;
+		boolean fixed = true;
+		for (int w : widths)
+			fixed &= w == max;
+		fixedWidth = fixed ? max : -1;
+		height = gc.getFontMetrics().getHeight();
+	}
+
+	/**
+	 * Gets the glyph widths of a font.
+	 *
+	 * @param gc   a GC used to measure the font if it is not cached
+	 * @param font the font
+	 * @return the glyph widths
+	 */
+	static GlyphWidths of(GC gc, Font font) {
+		GlyphWidths res = cache.get(font);
+		if (res == null) {
+			Font old = gc.getFont();
+			gc.setFont(font);
+			res = new GlyphWidths(gc);
+			gc.setFont(old);
+			cache.put(font, res);
+		}
+		return res;
+	}
+
+	/**
+	 * Gets the height of a line of text.
+	 *
+	 * @return the height in pixels
+	 */
+	int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Gets the width of a glyph, characters outside of the printable ASCII range
+	 * have the width of the widest glyph.
+	 *
+	 * @param c the character
+	 * @return the width in pixels
+	 */
+	int getWidth(char c) {
+		return c >= FIRST && c <= LAST ? widths[c - FIRST] : maxWidth;
+	}
+
+	/**
+	 * Gets the width of a text.
+	 *
+	 * @param text the text
+	 * @return the width in pixels
+	 */
+	int getWidth(String text) {
+		if (fixedWidth >= 0 && allAscii(text))
+			return fixedWidth * text.length();
+		int res = 0;
+		for (int i = 0; i < text.length(); i++)
+			res += getWidth(text.charAt(i));
+		return res;
+	}
+
+	/**
+	 * Gets the length of the longest prefix of a label which fits into a width
+	 * when followed by a suffix marking it as truncated. If the label fits as a
+	 * whole its length is returned, at least one character is kept.
+	 *
+	 * @param label  the label
+	 * @param suffix the suffix appended to truncated labels
+	 * @param width  the available width in pixels
+	 * @return the number of characters of the label to show
+	 */
+	int fit(String label, String suffix, int width) {
+		if (getWidth(label) <= width)
+			return label.length();
+		int available = width - getWidth(suffix);
+		if (fixedWidth > 0 && allAscii(label))
+			return Math.max(1, Math.min(label.length(), available / fixedWidth));
+		int used = 0;
+		int count = 0;
+		while (count < label.length() && used + getWidth(label.charAt(count)) <= available)
+			used += getWidth(label.charAt(count++));
+		return Math.max(1, count);
+	}
+
+	private static boolean allAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < FIRST || c > LAST)
+				return false;
+		}
+		return true;
+	}
+}
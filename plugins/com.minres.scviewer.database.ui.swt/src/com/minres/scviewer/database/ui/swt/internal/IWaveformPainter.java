@@ -10,6 +10,8 @@
  *******************************************************************************/
 package com.minres.scviewer.database.ui.swt.internal;
 
+import org.eclipse.swt.graphics.Rectangle;
+
 import com.minres.scviewer.database.ui.TrackEntry;
 
 public interface IWaveformPainter extends IPainter {
@@ -20,4 +22,36 @@ public interface IWaveformPainter extends IPainter {
 
 	public TrackEntry getTrackEntry();
 
+	/**
+	 * Checks if the painting depends on the visible part of the track, such
+	 * tracks are painted again as a whole when scrolling horizontally.
+	 *
+	 * @return true, if the painting depends on the visible part
+	 */
+	public default boolean dependsOnVisibleArea() {
+		return false;
+	}
+
+	/**
+	 * Sets the visible part of the track before its tiles are painted. Painters
+	 * scaling the values to the ones in view return the scale, tiles are painted
+	 * again once it changes.
+	 *
+	 * @param visible the visible part of the track
+	 * @return the scale of the values or null if the painting does not depend on
+	 *         the visible part
+	 */
+	public default Object setVisibleArea(Rectangle visible) {
+		return null;
+	}
+
+	/**
+	 * Paints what depends on the visible part of the track on top of its tiles.
+	 *
+	 * @param proj    the projection to draw on
+	 * @param visible the visible part of the track
+	 */
+	public default void paintVisibleArea(Projection proj, Rectangle visible) {
+	}
+
 }
\ No newline at end of file
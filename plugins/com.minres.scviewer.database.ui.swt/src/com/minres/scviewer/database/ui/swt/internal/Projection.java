@@ -4,6 +4,7 @@ import java.util.Arrays;
 
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 
@@ -89,6 +90,10 @@ public class Projection {
 		gc.drawText(string, x+translation.x, y+translation.y);
 	}
 
+	public void drawImage(Image image, int x, int y) {
+		gc.drawImage(image, x+translation.x, y+translation.y);
+	}
+
 	private int[] project(int[] points) {
 		int[] res = Arrays.copyOf(points, points.length);
 		for(int i=0; i<points.length; i+=2) {
@@ -10,20 +10,19 @@
  *******************************************************************************/
 package com.minres.scviewer.database.ui.swt.internal;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collection;
-
-import javax.swing.JPanel;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
-import org.eclipse.swt.graphics.FontData;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
-import org.eclipse.swt.widgets.Display;
 
 import com.minres.scviewer.database.BitVector;
 import com.minres.scviewer.database.DoubleVal;
@@ -31,6 +30,7 @@ import com.minres.scviewer.database.EventEntry;
 import com.minres.scviewer.database.IEvent;
 import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
+import com.minres.scviewer.database.SignalSummary;
 import com.minres.scviewer.database.ui.TrackEntry;
 import com.minres.scviewer.database.ui.WaveformColors;
 
@@ -64,29 +64,138 @@ public class SignalPainter extends TrackPainter {
 		}
 	}
 
-	/**
-	 * 
-	 */
-	private static final JPanel DUMMY_PANEL = new JPanel();
+	/// the position of times far beyond the canvas, keeps the coordinates small
+	private static final int FAR_POS = Integer.MAX_VALUE / 4;
 
 	private final WaveformCanvas waveCanvas;
 
 	int yOffsetT;
 	int yOffsetM;
 	int yOffsetB;
+	/// minimum painted canvas position in canvas coordinates
+	int minPosX;
 	/// maximum visible canvas position in canvas coordinates
 	int maxPosX;
 	/// maximum visible position in waveform coordinates
 	int maxValX;
 
+	/// the summary of the signal, requested once it has more changes than pixels in view
+	private CompletableFuture<SignalSummary> summary;
+
+	private IWaveform summaryWaveform;
+
+	/// the stencil of analog or real values scaled to the values in view
+	private SignalStencil scaledStencil;
+
+	/// the signal, visible part, scale and display settings the scaled stencil belongs to
+	private List<Object> scaledView;
+
 	public SignalPainter(WaveformCanvas txDisplay, boolean even, TrackEntry trackEntry) {
 		super(trackEntry, even);
 		this.waveCanvas = txDisplay;
 	}
 
-	private int getXPosEnd(long time) {
+	/**
+	 * Gets the position of a time, value changes are painted at their position
+	 * also if it is outside of the painted area so that their shapes do not
+	 * depend on the area.
+	 */
+	private int getXPos(long time) {
 		long ltmp = time / this.waveCanvas.getScale();
-		return ltmp > maxPosX ? maxPosX : (int) ltmp;
+		return ltmp > FAR_POS ? FAR_POS : (int) ltmp;
+	}
+
+	/**
+	 * Limits a position to the painted area and a margin, the ends of shapes
+	 * continuing beyond the area are drawn in the margin and are not visible.
+	 */
+	private int clampX(int x) {
+		return Math.max(minPosX - 2, Math.min(maxPosX + 2, x));
+	}
+
+	/**
+	 * Draws the line of a value between two positions, the parts beyond the
+	 * margin of the painted area are cut off.
+	 */
+	private void drawValueLine(Projection proj, int xBegin, int yBegin, int xEnd, int yEnd) {
+		int x0 = clampX(xBegin);
+		int x1 = clampX(xEnd);
+		double slope = xEnd > xBegin ? (double) (yEnd - yBegin) / (xEnd - xBegin) : 0;
+		proj.drawLine(x0, (int) Math.round(yBegin + slope * (x0 - xBegin)), x1, (int) Math.round(yBegin + slope * (x1 - xBegin)));
+	}
+
+	@Override
+	public boolean dependsOnVisibleArea() {
+		return trackEntry.waveform.getWidth() != 1;
+	}
+
+	@Override
+	public Object setVisibleArea(Rectangle visible) {
+		IWaveform signal = trackEntry.waveform;
+		List<Object> view = Arrays.asList(signal, visible.x, visible.width, waveCanvas.getScale(),
+				trackEntry.waveDisplay, trackEntry.valueDisplay);
+		if (view.equals(scaledView))
+			return scaledStencil != null ? scaledStencil.getScale() : null;
+		scaledView = view;
+		scaledStencil = null;
+		long beginTime = visible.x * waveCanvas.getScale();
+		long endTime = beginTime + visible.width * waveCanvas.getScale();
+		EventEntry first = signal.getEvents().floorEntry(beginTime);
+		if (first == null)
+			first = signal.getEvents().firstEntry();
+		if (first == null || !isScaled(first.events[0]))
+			return null;
+		IEventList entries = signal.getEvents().subMap(first.timestamp, true, endTime);
+		SignalSummary.Level level = getSummaryLevel(signal, entries.size(), visible.width);
+		boolean continous = trackEntry.waveDisplay == TrackEntry.WaveDisplay.CONTINOUS;
+		boolean signed = trackEntry.valueDisplay == TrackEntry.ValueDisplay.SIGNED;
+		IEvent left = first.events[0];
+		if (level != null) {
+			int from = level.ceilingIndex(first.timestamp + 1);
+			scaledStencil = left instanceof DoubleVal ? new RealStencil(level, from, endTime, left, continous)
+					: new MultiBitStencilAnalog(level, from, endTime, left, continous, signed);
+		} else {
+			scaledStencil = left instanceof DoubleVal ? new RealStencil(entries, left, continous)
+					: new MultiBitStencilAnalog(entries, left, continous, signed);
+		}
+		return scaledStencil.getScale();
+	}
+
+	/** checks if a value is painted scaled to the values in view */
+	private boolean isScaled(IEvent val) {
+		return val instanceof DoubleVal || (val instanceof BitVector && ((BitVector) val).getWidth() > 1
+				&& trackEntry.waveDisplay != TrackEntry.WaveDisplay.DEFAULT);
+	}
+
+	/**
+	 * Paints the label of a multi bit value beginning left of the visible part at
+	 * its left border, the tiles only hold the label at the begin of the value.
+	 */
+	@Override
+	public void paintVisibleArea(Projection proj, Rectangle visible) {
+		IWaveform signal = trackEntry.waveform;
+		if (signal.getWidth() <= 1 || trackEntry.waveDisplay != TrackEntry.WaveDisplay.DEFAULT)
+			return;
+		long beginTime = visible.x * waveCanvas.getScale();
+		EventEntry left = signal.getEvents().floorEntry(beginTime);
+		if (left == null || !(left.events[0] instanceof BitVector) || getXPos(left.timestamp) >= visible.x - 1)
+			return;
+		EventEntry right = signal.getEvents().higherEntry(beginTime);
+		minPosX = visible.x;
+		maxPosX = visible.x + visible.width;
+		yOffsetT = this.waveCanvas.styleProvider.getTrackHeight() / 5 + visible.y;
+		yOffsetM = this.waveCanvas.styleProvider.getTrackHeight() / 2 + visible.y;
+		yOffsetB = 4 * this.waveCanvas.styleProvider.getTrackHeight() / 5 + visible.y;
+		int xEnd = Math.min(maxPosX, right != null ? getXPos(right.timestamp) : FAR_POS);
+		if (xEnd - visible.x < 3)
+			return;
+		// hide the part of the label at the begin of the value reaching into view
+		if (trackEntry.selected)
+			proj.setBackground(this.waveCanvas.styleProvider.getColor(WaveformColors.TRACK_BG_HIGHLITE));
+		else
+			proj.setBackground(this.waveCanvas.styleProvider.getColor(even ? WaveformColors.TRACK_BG_EVEN : WaveformColors.TRACK_BG_ODD));
+		proj.fillRectangle(new Rectangle(visible.x, yOffsetT + 1, xEnd - 1 - visible.x, yOffsetB - yOffsetT - 1));
+		new MultiBitStencil(proj.getGC()).drawLabel(proj, visible, (BitVector) left.events[0], visible.x, xEnd);
 	}
 
 	public void paintArea(Projection proj, Rectangle area) {
@@ -106,6 +215,9 @@ public class SignalPainter extends TrackPainter {
 		EventEntry first = signal.getEvents().floorEntry(beginTime);
 		if (first == null)
 			first = signal.getEvents().firstEntry();
+		// the last value in the area lasts until the next change after it
+		EventEntry after = signal.getEvents().higherEntry(endTime);
+		long afterTime = after != null ? after.timestamp : Long.MAX_VALUE;
 		beginTime = first.timestamp;
 		proj.setForeground(this.waveCanvas.styleProvider.getColor(WaveformColors.LINE));
 		proj.setLineStyle(SWT.LINE_SOLID);
@@ -113,13 +225,19 @@ public class SignalPainter extends TrackPainter {
 		IEventList entries = signal.getEvents().subMap(beginTime, true, endTime);
 		SignalChange left = new SignalChange(entries.firstEntry());
 		SignalChange right = new SignalChange(entries.size() > 1 ? entries.higherEntry(left.time) : entries.firstEntry());
+		minPosX = area.x;
 		maxPosX = area.x + area.width;
 		yOffsetT = this.waveCanvas.styleProvider.getTrackHeight() / 5 + area.y;
 		yOffsetM = this.waveCanvas.styleProvider.getTrackHeight() / 2 + area.y;
 		yOffsetB = 4 * this.waveCanvas.styleProvider.getTrackHeight() / 5 + area.y;
+		SignalSummary.Level level = getSummaryLevel(signal, entries.size(), area.width);
+		if (level != null) {
+			paintSummary(proj, area, level, first, endTime, after);
+			return;
+		}
 		int xSigChangeBeginVal = Math.max(area.x, (int) (left.time / this.waveCanvas.getScale()));
-		int xSigChangeBeginPos = area.x;
-		int xSigChangeEndPos = Math.max(area.x, getXPosEnd(right.time));
+		int xSigChangeBeginPos = getXPos(left.time);
+		int xSigChangeEndPos = getXPos(right.time);
 
 		boolean multiple = false;
 		if (xSigChangeEndPos == xSigChangeBeginPos) {
@@ -127,14 +245,14 @@ public class SignalPainter extends TrackPainter {
 			// a) left == right
 			// b) left to close to right
 			if (left.time == right.time) {
-				right.time = endTime;
+				right.set(after, afterTime);
 			} else {
 				multiple = true;
 				long eTime = (xSigChangeBeginVal + 1) * this.waveCanvas.getScale();
-				right.set(entries.floorEntry(eTime), endTime);
+				right.set(entries.floorEntry(eTime), afterTime);
 				right.time = eTime;
 			}
-			xSigChangeEndPos = getXPosEnd(right.time);
+			xSigChangeEndPos = getXPos(right.time);
 		}
 
 
@@ -146,8 +264,9 @@ public class SignalPainter extends TrackPainter {
 					break;
 				left.assign(right);
 				xSigChangeBeginPos = xSigChangeEndPos;
-				right.set(entries.higherEntry(left.time), endTime);
-				xSigChangeEndPos = getXPosEnd(right.time);
+				EventEntry next = entries.higherEntry(left.time);
+				right.set(next != null ? next : after, afterTime);
+				xSigChangeEndPos = getXPos(right.time);
 				multiple = false;
 				if (xSigChangeEndPos == xSigChangeBeginPos) {
 					multiple = true;
@@ -155,15 +274,89 @@ public class SignalPainter extends TrackPainter {
 					EventEntry entry = entries.floorEntry(eTime);
 					if(entry!=null && entry.timestamp> right.time)
 						right.set(entry, endTime);
-					xSigChangeEndPos = getXPosEnd(eTime);
+					xSigChangeEndPos = getXPos(eTime);
 				}
 			} while (left.time < endTime);
 			stencil.dispose();
 		}
 	}
 
+	/**
+	 * Gets the level of the summary of the signal to paint it with, the summary is
+	 * built in the background and the canvas is redrawn once it is available.
+	 *
+	 * @return the level or null if the value changes are painted one by one
+	 */
+	private SignalSummary.Level getSummaryLevel(IWaveform signal, int changes, int width) {
+		if (changes <= width)
+			return null;
+		if (summary == null || summaryWaveform != signal) {
+			summaryWaveform = signal;
+			summary = SignalSummary.of(signal);
+			if (!summary.isDone())
+				summary.thenRun(() -> {
+					if (!waveCanvas.isDisposed())
+						waveCanvas.getDisplay().asyncExec(() -> {
+							if (!waveCanvas.isDisposed())
+								waveCanvas.redraw();
+						});
+				});
+		}
+		if (!summary.isDone() || summary.isCompletedExceptionally())
+			return null;
+		return summary.join().getLevel(waveCanvas.getScale());
+	}
+
+	/**
+	 * Paints the signal using a level of its summary whose buckets are not wider
+	 * than a pixel. The value changes of a bucket are placed at the pixel of its
+	 * first change, pixels with several changes are painted as one block.
+	 */
+	private void paintSummary(Projection proj, Rectangle area, SignalSummary.Level level, EventEntry first, long endTime, EventEntry after) {
+		int size = level.size();
+		int from = level.ceilingIndex(first.timestamp + 1);
+		IEvent left = first.events[0];
+		boolean signed = trackEntry.valueDisplay == TrackEntry.ValueDisplay.SIGNED;
+		SignalStencil stencil = getStencil(proj.getGC(), left, level, from, endTime);
+		if (stencil == null)
+			return;
+		int xBegin = getXPos(first.timestamp);
+		int i = from;
+		while (i < size && level.getBegin(i) <= endTime) {
+			int x = getXPos(level.getBegin(i));
+			IEvent right = level.getFirst(i);
+			IEvent last = null;
+			int count = 0;
+			int flags = 0;
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (; i < size && level.getBegin(i) <= endTime && getXPos(level.getBegin(i)) == x; i++) {
+				count += level.getCount(i);
+				flags |= level.getFlags(i);
+				min = Math.min(min, level.getMin(i, signed));
+				max = Math.max(max, level.getMax(i, signed));
+				last = level.getLast(i);
+			}
+			if (x > xBegin)
+				stencil.draw(proj, area, left, right, xBegin, x, false);
+			if (count == 1) {
+				xBegin = x;
+			} else {
+				stencil.drawMultiple(proj, area, left, last, x, flags, min, max);
+				xBegin = x + 1;
+			}
+			left = last;
+		}
+		int xEnd = after != null ? getXPos(after.timestamp) : FAR_POS;
+		if (xEnd >= xBegin)
+			stencil.draw(proj, area, left, after != null ? after.events[0] : left, xBegin, xEnd, false);
+		stencil.dispose();
+	}
+
 	private SignalStencil getStencil(GC gc, SignalChange left, IEventList entries) {
 		IEvent val = left.value;
+		if(scaledStencil!=null && isScaled(val))
+			return scaledStencil;
 		if(val instanceof BitVector) {
 			BitVector bv = (BitVector) val;
 			if(bv.getWidth()==1)
@@ -180,27 +373,62 @@ public class SignalPainter extends TrackPainter {
 			return null;
 	}
 
+	private SignalStencil getStencil(GC gc, IEvent left, SignalSummary.Level level, int from, long endTime) {
+		if(scaledStencil!=null && isScaled(left))
+			return scaledStencil;
+		if(left instanceof BitVector) {
+			BitVector bv = (BitVector) left;
+			if(bv.getWidth()==1)
+				return new SingleBitStencil();
+			if(trackEntry.waveDisplay==TrackEntry.WaveDisplay.DEFAULT)
+				return new MultiBitStencil(gc);
+			else
+				return new MultiBitStencilAnalog(level, from, endTime, left,
+						trackEntry.waveDisplay==TrackEntry.WaveDisplay.CONTINOUS,
+						trackEntry.valueDisplay==TrackEntry.ValueDisplay.SIGNED);
+		} else if (left instanceof DoubleVal)
+			return new RealStencil(level, from, endTime, left, trackEntry.waveDisplay==TrackEntry.WaveDisplay.CONTINOUS);
+		else
+			return null;
+	}
+
 	private interface SignalStencil {
 
 		public void draw(Projection proj, Rectangle area, IEvent left, IEvent right, int xBegin, int xEnd, boolean multiple);
 
+		/**
+		 * Draws a pixel holding several value changes of a summarized signal.
+		 *
+		 * @param flags the flags of the changes, see {@link SignalSummary.Level#getFlags(int)}
+		 * @param min   the minimum value of the changes
+		 * @param max   the maximum value of the changes
+		 */
+		public default void drawMultiple(Projection proj, Rectangle area, IEvent left, IEvent right, int x, int flags, double min, double max) {
+			draw(proj, area, left, right, x, x + 1, true);
+		}
+
+		/**
+		 * Gets the scale of the values if they are painted scaled to a range.
+		 *
+		 * @return the scale or null
+		 */
+		public default Object getScale() {
+			return null;
+		}
+
 		public void dispose();
 	}
 
 	private class MultiBitStencil implements SignalStencil {
 
-		private java.awt.Font tmpAwtFont;
-		private int height;
 		private Font font;
+		private GlyphWidths glyphs;
 
 		public MultiBitStencil(GC gc) {
-			FontData fd = gc.getFont().getFontData()[0];
-			height = gc.getDevice().getDPI().y * fd.getHeight() / 72;
-			tmpAwtFont = new java.awt.Font(fd.getName(), fd.getStyle(), (height+1)*3/4); // determines the length of the box
-			font = new Font(Display.getCurrent(), "monospace", (height+1)/2, 0); // determines the size of the labels
+			font = waveCanvas.styleProvider.getSignalFont();
+			glyphs = GlyphWidths.of(gc, font);
 		}
 		public void dispose() {
-			font.dispose();
 		}
 
 		public void draw(Projection proj, Rectangle area, IEvent left, IEvent right, int xBegin, int xEnd, boolean multiple) {
@@ -214,51 +442,19 @@ public class SignalPainter extends TrackPainter {
 			int width = xEnd - xBegin;
 			switch(width) {
 			default: {
+				int x0 = clampX(xBegin);
+				int x1 = clampX(xEnd);
 				int[] points = { 
-						xBegin,     yOffsetM, 
-						xBegin + 1, yOffsetT, 
-						xEnd - 1,   yOffsetT, 
-						xEnd,       yOffsetM, 
-						xEnd - 1,   yOffsetB, 
-						xBegin + 1, yOffsetB
+						x0,     yOffsetM, 
+						x0 + 1, yOffsetT, 
+						x1 - 1, yOffsetT, 
+						x1,     yOffsetM, 
+						x1 - 1, yOffsetB, 
+						x0 + 1, yOffsetB
 				};
 				proj.setForeground(colorBorder);
 				proj.drawPolygon(points);
-				proj.setForeground(waveCanvas.styleProvider.getColor(WaveformColors.SIGNAL_TEXT));
-				String label = null;
-				switch(trackEntry.valueDisplay) {
-				case SIGNED:
-					label=last.toSignedValue().toString();
-					break;
-				case UNSIGNED:
-					label=last.toUnsignedValue().toString();
-					break;
-				case BINARY:
-					label=last.toString();
-					break;
-				default:
-					label=/*"h'"+*/last.toHexString();
-				}
-				if (xBegin < area.x) {
-					xBegin = area.x;
-					width = xEnd - xBegin;
-				}
-				Point bb = new Point(DUMMY_PANEL.getFontMetrics(tmpAwtFont).stringWidth(label), height);
-				String ext = "";
-				while(width<bb.x && label.length()>1) {
-					label = label.substring(0, label.length()-1);
-					ext="+";
-					bb = new Point(DUMMY_PANEL.getFontMetrics(tmpAwtFont).stringWidth(label +ext), height);
-				}
-				if (width > (bb.x+1)) {
-					Rectangle old = proj.getClipping();
-					proj.setClipping(xBegin + 3, yOffsetT, xEnd - xBegin - 5, yOffsetB - yOffsetT);
-					Font old_font = proj.getGC().getFont();
-					proj.getGC().setFont(font);
-					proj.drawText(label+ext, xBegin + 3, yOffsetM - bb.y / 2 - 1);
-					proj.setClipping(old);
-					proj.getGC().setFont(old_font);
-				}
+				drawLabel(proj, area, last, xBegin, xEnd);
 				break;
 			}
 			case 2:
@@ -273,6 +469,52 @@ public class SignalPainter extends TrackPainter {
 			}
 		}
 
+		/**
+		 * Draws the label of a value behind its begin, the parts outside of the area
+		 * are clipped.
+		 */
+		void drawLabel(Projection proj, Rectangle area, BitVector value, int xBegin, int xEnd) {
+			String label = null;
+			switch(trackEntry.valueDisplay) {
+			case SIGNED:
+				label=value.toSignedValue().toString();
+				break;
+			case UNSIGNED:
+				label=value.toUnsignedValue().toString();
+				break;
+			case BINARY:
+				label=value.toString();
+				break;
+			default:
+				label=/*"h'"+*/value.toHexString();
+			}
+			int width = xEnd - xBegin;
+			int count = glyphs.fit(label, "+", width);
+			if (count < label.length())
+				label = label.substring(0, count) + "+";
+			Point bb = new Point(glyphs.getWidth(label), glyphs.getHeight());
+			if (width > (bb.x+1) && xBegin + 3 < area.x + area.width && xBegin + 3 + bb.x > area.x) {
+				proj.setForeground(waveCanvas.styleProvider.getColor(WaveformColors.SIGNAL_TEXT));
+				Rectangle old = proj.getClipping();
+				proj.setClipping(old.intersection(new Rectangle(xBegin + 3, yOffsetT, width - 5, yOffsetB - yOffsetT)));
+				Font old_font = proj.getGC().getFont();
+				proj.getGC().setFont(font);
+				proj.drawText(label, xBegin + 3, yOffsetM - bb.y / 2 - 1);
+				proj.setClipping(old);
+				proj.getGC().setFont(old_font);
+			}
+		}
+
+		@Override
+		public void drawMultiple(Projection proj, Rectangle area, IEvent left, IEvent right, int x, int flags, double min, double max) {
+			Color colorBorder = waveCanvas.styleProvider.getColor(WaveformColors.SIGNAL_CHANGE);
+			if ((flags & SignalSummary.X) != 0)
+				colorBorder = waveCanvas.styleProvider.getColor(WaveformColors.SIGNALX);
+			else if ((flags & SignalSummary.Z) != 0)
+				colorBorder = waveCanvas.styleProvider.getColor(WaveformColors.SIGNALZ);
+			proj.setForeground(colorBorder);
+			proj.drawPolygon(new int[]{/*tl*/x, yOffsetT,/*tr*/x + 1, yOffsetT,/*br*/x + 1, yOffsetB,/*bl*/x, yOffsetB});
+		}
 	}
 
 	private class MultiBitStencilAnalog implements SignalStencil {
@@ -281,7 +523,25 @@ public class SignalPainter extends TrackPainter {
 		final boolean signed;
 		private BigInteger maxVal;
 		private BigInteger minVal;
-		int yRange = (yOffsetB-yOffsetT);
+		public MultiBitStencilAnalog(SignalSummary.Level level, int from, long endTime, Object left, boolean continous, boolean signed) {
+			this.continous=continous;
+			this.signed=signed;
+			minVal=signed?((BitVector)left).toSignedValue():((BitVector)left).toUnsignedValue();
+			maxVal=minVal;
+			for (int i = from; i < level.size() && level.getBegin(i) <= endTime; i++) {
+				double min = level.getMin(i, signed);
+				double max = level.getMax(i, signed);
+				if (!Double.isInfinite(min))
+					minVal=minVal.min(new BigDecimal(min).toBigInteger());
+				if (!Double.isInfinite(max))
+					maxVal=maxVal.max(new BigDecimal(max).toBigInteger());
+			}
+			if(maxVal.equals(minVal)) {
+				maxVal=maxVal.subtract(BigInteger.ONE);
+				minVal=minVal.add(BigInteger.ONE);
+			}
+		}
+
 		public MultiBitStencilAnalog(IEventList entries, Object left, boolean continous, boolean signed) {
 			this.continous=continous;
 			this.signed=signed;
@@ -295,7 +555,7 @@ public class SignalPainter extends TrackPainter {
 						maxVal=maxVal.max(v);
 						minVal=minVal.min(v);
 					}
-				if(maxVal==minVal) {
+				if(maxVal.equals(minVal)) {
 					maxVal=maxVal.subtract(BigInteger.ONE);
 					minVal=minVal.add(BigInteger.ONE);
 				}
@@ -308,29 +568,40 @@ public class SignalPainter extends TrackPainter {
 
 		public void dispose() {	}
 
+		@Override
+		public Object getScale() {
+			return Arrays.asList(minVal, maxVal);
+		}
+
+		@Override
+		public void drawMultiple(Projection proj, Rectangle area, IEvent left, IEvent right, int x, int flags, double min, double max) {
+			double leftVal = (signed?((BitVector)left).toSignedValue():((BitVector)left).toUnsignedValue()).doubleValue();
+			double rightVal = (signed?((BitVector)right).toSignedValue():((BitVector)right).toUnsignedValue()).doubleValue();
+			double lowest = minVal.doubleValue();
+			double range = maxVal.subtract(minVal).doubleValue();
+			int yRange = yOffsetB-yOffsetT;
+			int yMin = (int) ((Math.min(Math.min(min, leftVal), rightVal) - lowest) * yRange / range);
+			int yMax = (int) ((Math.max(Math.max(max, leftVal), rightVal) - lowest) * yRange / range);
+			proj.setForeground(waveCanvas.styleProvider.getColor(WaveformColors.SIGNAL_REAL));
+			proj.drawLine(x, yOffsetB-yMin, x, yOffsetB-yMax);
+		}
+
 		public void draw(Projection proj, Rectangle area, IEvent left, IEvent right, int xBegin, int xEnd, boolean multiple) {
 			BigInteger leftVal = signed?((BitVector)left).toSignedValue():((BitVector)left).toUnsignedValue();
 			BigInteger rightVal= signed?((BitVector)right).toSignedValue():((BitVector)right).toUnsignedValue();
 			proj.setForeground(waveCanvas.styleProvider.getColor(WaveformColors.SIGNAL_REAL));
 			BigInteger range = maxVal.subtract(minVal);
+			BigInteger yRange = BigInteger.valueOf(yOffsetB-yOffsetT);
 			// ((leftVal-minVal) * yRange / range);
-			int yOffsetLeft = leftVal.subtract(minVal).multiply(BigInteger.valueOf(yRange)).divide(range).intValue();
+			int yOffsetLeft = leftVal.subtract(minVal).multiply(yRange).divide(range).intValue();
 			// ((rightVal-minVal) * yRange / range);
-			int yOffsetRight = rightVal.subtract(minVal).multiply(BigInteger.valueOf(yRange)).divide(range).intValue();
+			int yOffsetRight = rightVal.subtract(minVal).multiply(yRange).divide(range).intValue();
 			if(continous) {
-				if (xEnd > maxPosX) {
-					proj.drawLine(xBegin, yOffsetB-yOffsetLeft, maxPosX, yOffsetB-yOffsetRight);
-				} else {
-					proj.drawLine(xBegin, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetRight);
-				}
+				drawValueLine(proj, xBegin, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetRight);
 			} else {
-				if (xEnd > maxPosX) {
-					proj.drawLine(xBegin, yOffsetB-yOffsetLeft, maxPosX, yOffsetB-yOffsetLeft);
-				} else {
-					proj.drawLine(xBegin, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetLeft);
-					if(yOffsetRight!=yOffsetLeft) {
-						proj.drawLine(xEnd, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetRight);
-					}
+				drawValueLine(proj, xBegin, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetLeft);
+				if (xEnd <= maxPosX && yOffsetRight!=yOffsetLeft) {
+					proj.drawLine(xEnd, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetRight);
 				}
 			}
 		}
@@ -364,9 +635,9 @@ public class SignalPainter extends TrackPainter {
 				}
 				proj.setForeground(color);
 				if (xEnd > maxPosX) {
-					proj.drawLine(xBegin, yOffset, maxPosX, yOffset);
+					proj.drawLine(clampX(xBegin), yOffset, maxPosX, yOffset);
 				} else {
-					proj.drawLine(xBegin, yOffset, xEnd, yOffset);
+					proj.drawLine(clampX(xBegin), yOffset, xEnd, yOffset);
 					int yNext = yOffsetM;
 					switch (((BitVector) right).getValue()[0]) {
 					case '1':
@@ -396,6 +667,26 @@ public class SignalPainter extends TrackPainter {
 
 		boolean continous=true;
 
+		public RealStencil(SignalSummary.Level level, int from, long endTime, Object left, boolean continous) {
+			this.continous=continous;
+			minVal=((DoubleVal) left).value;
+			double maxVal=minVal;
+			for (int i = from; i < level.size() && level.getBegin(i) <= endTime; i++) {
+				double min = level.getMin(i, false);
+				double max = level.getMax(i, false);
+				if (Double.isInfinite(min) && Double.isInfinite(max))
+					continue;
+				minVal = Double.isNaN(minVal) ? min : Math.min(minVal, min);
+				maxVal = Double.isNaN(maxVal) ? max : Math.max(maxVal, max);
+			}
+			if(Double.isNaN(maxVal)){
+				maxVal=minVal=0.0;
+			}
+			range = (maxVal-minVal)*scaleFactor;
+			double avg = (maxVal+minVal)/2.0;
+			minVal=avg-(avg-minVal)*scaleFactor;
+		}
+
 		public RealStencil(IEventList entries, Object left, boolean continous) {
 			this.continous=continous;
 			Collection<EventEntry> values = entries.entrySet();
@@ -426,6 +717,31 @@ public class SignalPainter extends TrackPainter {
 
 		public void dispose() {	}
 
+		@Override
+		public Object getScale() {
+			return Arrays.asList(minVal, range);
+		}
+
+		@Override
+		public void drawMultiple(Projection proj, Rectangle area, IEvent left, IEvent right, int x, int flags, double min, double max) {
+			if ((flags & SignalSummary.NAN) != 0) {
+				proj.setForeground(waveCanvas.styleProvider.getColor(WaveformColors.SIGNAL_NAN));
+				proj.drawLine(x, yOffsetT, x, yOffsetB);
+			}
+			for (double v : new double[] {((DoubleVal) left).value, ((DoubleVal) right).value}) {
+				if (!Double.isNaN(v)) {
+					min = Math.min(min, v);
+					max = Math.max(max, v);
+				}
+			}
+			if (min > max)
+				return;
+			proj.setForeground(waveCanvas.styleProvider.getColor(WaveformColors.SIGNAL_REAL));
+			int yMin = (int) ((min-minVal) * (yOffsetB-yOffsetT) / range);
+			int yMax = (int) ((max-minVal) * (yOffsetB-yOffsetT) / range);
+			proj.drawLine(x, yOffsetB-yMin, x, yOffsetB-yMax);
+		}
+
 		public void draw(Projection proj, Rectangle area, IEvent left, IEvent right, int xBegin, int xEnd, boolean multiple) {
 			double leftVal = ((DoubleVal) left).value;
 			double rightVal= ((DoubleVal) right).value;
@@ -434,10 +750,10 @@ public class SignalPainter extends TrackPainter {
 				int width = xEnd - xBegin;
 				if (width > 1) {
 					int[] points = { 
-							xBegin, yOffsetT, 
-							xEnd,   yOffsetT, 
-							xEnd,   yOffsetB, 
-							xBegin, yOffsetB
+							clampX(xBegin), yOffsetT, 
+							clampX(xEnd),   yOffsetT, 
+							clampX(xEnd),   yOffsetB, 
+							clampX(xBegin), yOffsetB
 					};
 					proj.setForeground(color);
 					proj.drawPolygon(points);
@@ -452,19 +768,11 @@ public class SignalPainter extends TrackPainter {
 				int yOffsetLeft = (int) ((leftVal-minVal) * (yOffsetB-yOffsetT) / range);
 				int yOffsetRight = Double.isNaN(rightVal)?yOffsetLeft:(int) ((rightVal-minVal) * (yOffsetB-yOffsetT) / range);
 				if(continous) {
-					if (xEnd > maxPosX) {
-						proj.drawLine(xBegin, yOffsetB-yOffsetLeft, maxPosX, yOffsetB-yOffsetRight);
-					} else {
-						proj.drawLine(xBegin, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetRight);
-					}
+					drawValueLine(proj, xBegin, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetRight);
 				} else {
-					if (xEnd > maxPosX) {
-						proj.drawLine(xBegin, yOffsetB-yOffsetLeft, maxPosX, yOffsetB-yOffsetLeft);
-					} else {
-						proj.drawLine(xBegin, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetLeft);
-						if(yOffsetRight!=yOffsetLeft) {
-							proj.drawLine(xEnd, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetRight);
-						}
+					drawValueLine(proj, xBegin, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetLeft);
+					if (xEnd <= maxPosX && yOffsetRight!=yOffsetLeft) {
+						proj.drawLine(xEnd, yOffsetB-yOffsetLeft, xEnd, yOffsetB-yOffsetRight);
 					}
 				}
 			}
@@ -11,6 +11,7 @@
 package com.minres.scviewer.database.ui.swt.internal;
 
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Color;
@@ -24,6 +25,7 @@ import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.tx.ITx;
 import com.minres.scviewer.database.tx.ITxEvent;
+import com.minres.scviewer.database.tx.TxIntervalIndex;
 import com.minres.scviewer.database.ui.TrackEntry;
 import com.minres.scviewer.database.ui.WaveformColors;
 
@@ -38,6 +40,7 @@ public class StreamPainter extends TrackPainter{
 	private int txHeight;
 	// TODO: remove TreeMap usage
 	private TreeMap<ITx, ITxEvent> seenTx;
+	private CompletableFuture<TxIntervalIndex> index;
 
 	public StreamPainter(WaveformCanvas waveCanvas, boolean even, TrackEntry trackEntry) {
 		super(trackEntry, even);
@@ -72,11 +75,6 @@ public class StreamPainter extends TrackPainter{
 		long beginTime = beginPos*scaleFactor;
 		long endTime = beginTime + area.width*scaleFactor;
 
-		IEventList events = stream.getEvents();
-		EventEntry firstTx = events.floorEntry(beginTime);
-		EventEntry lastTx = events.ceilingEntry(endTime);
-		if(firstTx==null) firstTx = events.firstEntry();
-		if(lastTx==null) lastTx = events.lastEntry();
 		proj.setFillRule(SWT.FILL_EVEN_ODD);
 		proj.setLineStyle(SWT.LINE_SOLID);
 		proj.setLineWidth(1);
@@ -84,6 +82,30 @@ public class StreamPainter extends TrackPainter{
 
 		for( int y1=area.y+trackHeight/2; y1<area.y+trackEntry.height; y1+=trackHeight)
 			proj.drawLine(area.x, y1, area.x+area.width, y1);
+		TxIntervalIndex intervals = getIndex();
+		if(intervals!=null) {
+			ITx highlighted=null;
+			int highlightedRow=0;
+			long selectedId=waveCanvas.currentSelection!=null? waveCanvas.currentSelection.getId():-1;
+			for(int row=0; row<intervals.getRowCount(); row++)
+				for(ITx tx: intervals.getOverlapping(row, beginTime, endTime)) {
+					if(selectedId==tx.getId()) {
+						highlighted=tx;
+						highlightedRow=row;
+					}
+					drawTx(proj, area, tx, row, false);
+				}
+			if(highlighted!=null){
+				proj.setForeground(this.waveCanvas.styleProvider.getColor(WaveformColors.LINE_HIGHLITE));
+				drawTx(proj, area, highlighted, highlightedRow, true);
+			}
+			return;
+		}
+		IEventList events = stream.getEvents();
+		EventEntry firstTx = events.floorEntry(beginTime);
+		EventEntry lastTx = events.ceilingEntry(endTime);
+		if(firstTx==null) firstTx = events.firstEntry();
+		if(lastTx==null) lastTx = events.lastEntry();
 		if(firstTx==lastTx) {
 			for(IEvent txEvent: firstTx.events)
 				drawTx(proj, area, ((ITxEvent)txEvent).getTransaction(), ((ITxEvent)txEvent).getRowIndex(), false);
@@ -153,8 +175,40 @@ public class StreamPainter extends TrackPainter{
 		}
 	}
 
+	/**
+	 * Gets the interval index of the stream if it is built. It is built in the
+	 * background, until then or if the stream is not indexed the events are
+	 * searched and once it is available the track is painted again.
+	 */
+	private TxIntervalIndex getIndex() {
+		if(index==null) {
+			index = TxIntervalIndex.of(stream);
+			if(!index.isDone())
+				index.thenRun(() -> {
+					if (!waveCanvas.isDisposed())
+						waveCanvas.getDisplay().asyncExec(() -> {
+							if (!waveCanvas.isDisposed())
+								waveCanvas.redrawTrack(this);
+						});
+				});
+		}
+		return index.isDone() && !index.isCompletedExceptionally() ? index.join() : null;
+	}
+
 	public ITx getClicked(Point point) {
 		int lane=point.y/waveCanvas.styleProvider.getTrackHeight();
+		TxIntervalIndex intervals = getIndex();
+		if(intervals!=null) {
+			long timePoint=point.x*waveCanvas.getScale();
+			long timePointLow=(point.x-5)*waveCanvas.getScale();
+			ITx res = intervals.getAt(lane, timePoint);
+			for(int row=0; row<intervals.getRowCount(); row++)
+				for(ITx tx: intervals.getOverlapping(row, timePointLow+1, timePoint))
+					if(tx.getBeginTime()==tx.getEndTime() && tx.getBeginTime()>timePointLow
+							&& (res==null || tx.getBeginTime()>res.getBeginTime()))
+						res=tx;
+			return res;
+		}
 		EventEntry firstTx=stream.getEvents().floorEntry(point.x*waveCanvas.getScale());
 		if(firstTx!=null){
 			do {
@@ -172,6 +226,7 @@ public class StreamPainter extends TrackPainter{
 
 	public void setStream(IWaveform stream) {
 		this.stream = stream;
+		this.index = null;
 	}
 
 	protected ITx getTxFromEntry(int lane, int offset, IEvent[] firstTx) {
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.ui.swt.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+
+import com.minres.scviewer.database.ui.TrackEntry;
+import com.minres.scviewer.database.ui.WaveformColors;
+
+/**
+ * A cache of rendered tiles of the track area. A tile is the image of one track
+ * for a column of {@link #TILE_WIDTH} pixels at a scale, painting the track
+ * area only draws the cached tiles and renders the missing ones. Tiles are
+ * evicted in least recently used order once they exceed the pixel budget which
+ * can be set using the system property ScvTileCachePixels.
+ * <p>
+ * SWT only allows drawing on the UI thread, so tiles are rendered there. The
+ * columns next to the visible ones are rendered ahead in small batches when
+ * the UI thread is idle, so scrolling mostly draws cached tiles.
+ */
+class TileCache {
+
+	/** The width of a tile in pixels. */
+	static final int TILE_WIDTH = 256;
+
+	/** The maximum number of pixels of all cached tiles. */
+	static final long MAX_PIXELS = Long.getLong("ScvTileCachePixels", 1L << 23);
+
+	/** The time rendering ahead may take per run on the UI thread in ms. */
+	private static final long PREFETCH_SLICE = 10;
+
+	/**
+	 * The identity of a tile. Besides the painter, column and scale it holds the
+	 * state of the track entry and the scale of the values affecting the painting
+	 * so that changing them renders the tile again.
+	 */
+	private static final class Key {
+
+		final IWaveformPainter painter;
+
+		final long column;
+
+		final long scale;
+
+		final int height;
+
+		final boolean selected;
+
+		final TrackEntry.ValueDisplay valueDisplay;
+
+		final TrackEntry.WaveDisplay waveDisplay;
+
+		final Object valueScale;
+
+		Key(IWaveformPainter painter, long column, long scale, Object valueScale) {
+			TrackEntry entry = painter.getTrackEntry();
+			this.painter = painter;
+			this.column = column;
+			this.scale = scale;
+			this.height = painter.getHeight();
+			this.selected = entry.selected;
+			this.valueDisplay = entry.valueDisplay;
+			this.waveDisplay = entry.waveDisplay;
+			this.valueScale = valueScale;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return painter == other.painter && column == other.column && scale == other.scale
+					&& height == other.height && selected == other.selected
+					&& valueDisplay == other.valueDisplay && waveDisplay == other.waveDisplay
+					&& Objects.equals(valueScale, other.valueScale);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(painter), column, scale, height, selected, valueDisplay, waveDisplay, valueScale);
+		}
+	}
+
+	private final WaveformCanvas waveCanvas;
+
+	private final LinkedHashMap<Key, Image> tiles = new LinkedHashMap<>(64, 0.75f, true);
+
+	private long pixels = 0;
+
+	/** the tiles to render ahead, replaced on each paint */
+	private Deque<Key> prefetch = new ArrayDeque<>();
+
+	/** the tiles being rendered ahead */
+	private Deque<Key> pending = new ArrayDeque<>();
+
+	private boolean prefetchScheduled = false;
+
+	TileCache(WaveformCanvas waveCanvas) {
+		this.waveCanvas = waveCanvas;
+	}
+
+	/**
+	 * Draws the tiles of a track covering an area, rendering the missing ones.
+	 *
+	 * @param proj       the projection to draw on
+	 * @param painter    the painter of the track
+	 * @param y          the vertical offset of the track
+	 * @param fromX      the first horizontal position to cover
+	 * @param toX        the horizontal position after the last one to cover
+	 * @param valueScale the scale of the values returned by
+	 *                   {@link IWaveformPainter#setVisibleArea(Rectangle)}
+	 */
+	void draw(Projection proj, IWaveformPainter painter, int y, int fromX, int toX, Object valueScale) {
+		if (painter.getHeight() <= 0)
+			return;
+		long scale = waveCanvas.getScale();
+		for (long column = Math.floorDiv(fromX, TILE_WIDTH); column * TILE_WIDTH < toX; column++) {
+			Key key = new Key(painter, column, scale, valueScale);
+			Image tile = tiles.get(key);
+			if (tile == null)
+				tile = render(key);
+			proj.drawImage(tile, (int) (column * TILE_WIDTH), y);
+		}
+	}
+
+	/**
+	 * Requests the tiles of a track next to an area to be rendered ahead.
+	 *
+	 * @param painter    the painter of the track
+	 * @param fromX      the first visible horizontal position
+	 * @param toX        the horizontal position after the last visible one
+	 * @param valueScale the scale of the values the tiles are drawn with
+	 */
+	void prefetch(IWaveformPainter painter, int fromX, int toX, Object valueScale) {
+		if (painter.getHeight() <= 0)
+			return;
+		long scale = waveCanvas.getScale();
+		long first = Math.floorDiv(fromX, TILE_WIDTH);
+		long last = Math.floorDiv(toX - 1, TILE_WIDTH);
+		if (first > 0)
+			prefetch.add(new Key(painter, first - 1, scale, valueScale));
+		prefetch.add(new Key(painter, last + 1, scale, valueScale));
+	}
+
+	/**
+	 * Starts rendering the requested tiles ahead once the UI thread is idle,
+	 * requests of previous paints are dropped as the painters are set to the
+	 * latest visible area.
+	 */
+	void schedulePrefetch() {
+		Deque<Key> requested = prefetch;
+		prefetch = new ArrayDeque<>();
+		requested.removeIf(tiles::containsKey);
+		pending = requested;
+		if (requested.isEmpty())
+			return;
+		if (!prefetchScheduled) {
+			prefetchScheduled = true;
+			waveCanvas.getDisplay().asyncExec(this::runPrefetch);
+		}
+	}
+
+	private void runPrefetch() {
+		prefetchScheduled = false;
+		if (waveCanvas.isDisposed())
+			return;
+		long deadline = System.currentTimeMillis() + PREFETCH_SLICE;
+		long scale = waveCanvas.getScale();
+		while (!pending.isEmpty() && System.currentTimeMillis() < deadline) {
+			Key key = pending.poll();
+			if (key.scale == scale && !tiles.containsKey(key) && waveCanvas.hasWaveformPainter(key.painter))
+				render(key);
+		}
+		if (!pending.isEmpty()) {
+			prefetchScheduled = true;
+			waveCanvas.getDisplay().asyncExec(this::runPrefetch);
+		}
+	}
+
+	private Image render(Key key) {
+		int x = (int) (key.column * TILE_WIDTH);
+		int y = key.painter.getVerticalOffset() + waveCanvas.getRulerHeight();
+		Image tile = new Image(waveCanvas.getDisplay(), TILE_WIDTH, key.height);
+		GC gc = new GC(tile);
+		gc.setFont(waveCanvas.getFont());
+		Projection proj = new Projection(gc);
+		proj.setTranslation(new Point(-x, -y));
+		Rectangle area = new Rectangle(x, y, TILE_WIDTH, key.height);
+		proj.setBackground(waveCanvas.styleProvider.getColor(WaveformColors.TRACK_BG_EVEN));
+		proj.fillRectangle(area);
+		key.painter.paintArea(proj, area);
+		gc.dispose();
+		tiles.put(key, tile);
+		pixels += (long) TILE_WIDTH * key.height;
+		evict();
+		return tile;
+	}
+
+	/** removes the least recently used tiles until the budget is met, the last tile is kept */
+	private void evict() {
+		Iterator<Map.Entry<Key, Image>> it = tiles.entrySet().iterator();
+		while (pixels > MAX_PIXELS && tiles.size() > 1 && it.hasNext()) {
+			Map.Entry<Key, Image> entry = it.next();
+			pixels -= (long) TILE_WIDTH * entry.getKey().height;
+			entry.getValue().dispose();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Removes the tiles of the painters matching a predicate.
+	 *
+	 * @param filter the predicate on the painters
+	 */
+	void invalidate(Predicate<IWaveformPainter> filter) {
+		Iterator<Map.Entry<Key, Image>> it = tiles.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Key, Image> entry = it.next();
+			if (filter.test(entry.getKey().painter)) {
+				pixels -= (long) TILE_WIDTH * entry.getKey().height;
+				entry.getValue().dispose();
+				it.remove();
+			}
+		}
+		pending.removeIf(key -> filter.test(key.painter));
+	}
+
+	/**
+	 * Removes all tiles.
+	 */
+	void clear() {
+		invalidate(p -> true);
+	}
+}
@@ -26,40 +26,52 @@ public class TrackAreaPainter implements IPainter {
 	private final WaveformCanvas waveCanvas;
 
 	final TreeMap<Integer, IWaveformPainter> trackVerticalOffset;
+
+	private final TileCache tileCache;
+
 	/**
 	 * @param txDisplay
 	 */
 	public TrackAreaPainter(WaveformCanvas waveCanvas) {
 		this.waveCanvas = waveCanvas;
 		this.trackVerticalOffset= new TreeMap<>();
+		this.tileCache = new TileCache(waveCanvas);
 	}
 
 	public void paintArea(Projection proj, Rectangle a) {
-		Rectangle area = proj.unProject(new Rectangle(a.x, a.y+waveCanvas.rulerHeight, a.width, a.height-waveCanvas.rulerHeight));
+		Rectangle area = proj.unProject(new Rectangle(a.x, a.y+waveCanvas.rulerHeight, a.width, a.height-waveCanvas.rulerHeight))
+				.intersection(proj.getClipping());
+		if(area.isEmpty()) return;
 		proj.setBackground(this.waveCanvas.styleProvider.getColor(WaveformColors.TRACK_BG_EVEN));
 		proj.setFillRule(SWT.FILL_EVEN_ODD);
 		proj.fillRectangle(area);
 		if(trackVerticalOffset.size()>0){
+			Rectangle visible = proj.unProject(waveCanvas.getClientArea());
 			Integer firstKey=trackVerticalOffset.floorKey(area.y);
 			if(firstKey==null) firstKey=trackVerticalOffset.firstKey();
 			Integer lastKey = trackVerticalOffset.floorKey(area.y+area.height);
 			//if(lastKey==null) lastKey= trackVerticalOffset.lastKey();
-			Rectangle subArea = new Rectangle(area.x, 0, area.width, 0);
-			if(lastKey.equals(firstKey)){
-				subArea.y=firstKey;
-				IWaveformPainter p = trackVerticalOffset.get(firstKey);
-				subArea.height=p.getHeight();
-				p.paintArea(proj, subArea);
-			}else{
-				for(Entry<Integer, IWaveformPainter> entry : trackVerticalOffset.subMap(firstKey, true, lastKey, true).entrySet()){
-					subArea.y=entry.getKey();
-					subArea.height=entry.getValue().getHeight();
-					entry.getValue().paintArea(proj, subArea);
+			for(Entry<Integer, IWaveformPainter> entry : trackVerticalOffset.subMap(firstKey, true, lastKey, true).entrySet()){
+				IWaveformPainter painter = entry.getValue();
+				if(painter instanceof EmptyPainter) {
+					// its label depends on the visible area so it is not cached
+					painter.paintArea(proj, new Rectangle(area.x, entry.getKey(), area.width, painter.getHeight()));
+				} else {
+					Rectangle visibleTrack = new Rectangle(visible.x, entry.getKey(), visible.width, painter.getHeight());
+					Object valueScale = painter.setVisibleArea(visibleTrack);
+					tileCache.draw(proj, painter, entry.getKey(), area.x, area.x+area.width, valueScale);
+					tileCache.prefetch(painter, area.x, area.x+area.width, valueScale);
+					painter.paintVisibleArea(proj, visibleTrack);
 				}
 			}
+			tileCache.schedulePrefetch();
 		}
 	}
 
+	TileCache getTileCache() {
+		return tileCache;
+	}
+
 	public void addTrackPainter(IWaveformPainter trackPainter){
 		trackVerticalOffset.put(trackPainter.getVerticalOffset()+waveCanvas.rulerHeight, trackPainter);
 
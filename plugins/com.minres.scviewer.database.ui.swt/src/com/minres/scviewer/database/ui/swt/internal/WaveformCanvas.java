@@ -55,6 +55,8 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 	public static final long ZOOM_FULL = -1;
 
 	private static final int INITIAL_ZOOM_BAR_MAX = 1000;
+
+	private static final int MAX_DAMAGE_REGIONS = 16;
 	
 	private boolean doubleBuffering = true;
 
@@ -94,6 +96,18 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 
 	HashMap<IWaveform, IWaveformPainter> wave2painterMap;
 
+	private Image backingImg;
+
+	/** the origin and scale the backing image was painted with */
+	private Point paintedOrigin;
+
+	private long paintedScale;
+
+	/** the regions painted again on the next paint besides the ones exposed by scrolling, in canvas coordinates */
+	private List<Rectangle> damage = new ArrayList<>();
+
+	private boolean damageAll = true;
+
 	public WaveformCanvas(final Composite parent, int style, IWaveformStyleProvider styleProvider, ZoomBar.IProvider scrollbarProvider) {
 		super(parent, (style & ~SWT.H_SCROLL) | SWT.DOUBLE_BUFFERED | SWT.NO_BACKGROUND | SWT.V_SCROLL );
 		this.styleProvider=styleProvider;
@@ -104,6 +118,10 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 			}
 		});
 		addPaintListener((final PaintEvent event) -> paint(event.gc));
+		addDisposeListener(e -> {
+			trackAreaPainter.getTileCache().clear();
+			if(backingImg!=null) backingImg.dispose();
+		});
 		painterList = new LinkedList<>();
 		origin = new Point(0, 0);
 		selectionListeners = new LinkedList<>();
@@ -157,7 +175,8 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 		checkWidget();
 		origin.x = x;
 		origin.y = y;
-		syncSb();
+		syncScrollBars();
+		redrawDamaged();
 	}
 
 	@Override
@@ -274,6 +293,7 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 
 	void clearAllWaveformPainter(boolean update) {
 		trackAreaPainter.trackVerticalOffset.clear();
+		trackAreaPainter.getTileCache().clear();
 		wave2painterMap.clear();
 		if(update) syncSb();
 	}
@@ -288,6 +308,20 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 		if(update) syncSb();
 	}
 
+	boolean hasWaveformPainter(IWaveformPainter painter) {
+		return wave2painterMap.get(painter.getTrackEntry().waveform)==painter;
+	}
+
+	/**
+	 * Redraws the canvas painting a track again instead of using its cached tiles.
+	 *
+	 * @param painter the painter of the track
+	 */
+	void redrawTrack(IWaveformPainter painter) {
+		trackAreaPainter.getTileCache().invalidate(p -> p == painter);
+		redraw();
+	}
+
 	public List<CursorPainter> getCursorPainters() {
 		return cursorPainters;
 	}
@@ -309,7 +343,7 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 						setScalingFactor(factor, lowerTime+time_diff/2);
 					} else {
 						origin.x = -(int) (lowerTime/getScale());
-						WaveformCanvas.this.getDisplay().asyncExec(() -> {redraw();});
+						WaveformCanvas.this.getDisplay().asyncExec(() -> {redrawDamaged();});
 					}
 					lastHorSelection=sel;
 				}
@@ -327,7 +361,7 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 				if (!painterList.isEmpty()) {
 					origin.y=-vertical.getSelection();
 					fireSelectionEvent();
-					WaveformCanvas.this.getDisplay().asyncExec(() -> {redraw();});
+					WaveformCanvas.this.getDisplay().asyncExec(() -> {redrawDamaged();});
 				}
 			}
 		});
@@ -339,12 +373,16 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 	 * :<b> transform, image size, client area</b>.
 	 */
 	public void syncSb() {
+		syncScrollBars();
+		redraw();
+	}
+
+	private void syncScrollBars() {
 		if (!painterList.isEmpty()) {
 			syncHSb();
 			syncVSb();
 			fireSelectionEvent();
 		}
-		redraw();
 	}
 
 	private void syncVSb() {
@@ -391,29 +429,129 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 		if(pt.x==0  || pt.y==0) return;
 		Rectangle clientRect = getClientArea(); /* Canvas' painting area */
 		GC thisGc = gc;
-		Image dBackingImg = null;
+		List<Rectangle> regions = null;
 		if(doubleBuffering) {
-			dBackingImg = new Image(getDisplay(), pt.x, pt.y);
-			thisGc = new GC(dBackingImg);
+			if(backingImg==null || !backingImg.getBounds().equals(new Rectangle(0, 0, pt.x, pt.y))) {
+				if(backingImg!=null) backingImg.dispose();
+				backingImg = new Image(getDisplay(), pt.x, pt.y);
+				damageAll = true;
+			}
+			thisGc = new GC(backingImg);
 			thisGc.setBackground(gc.getBackground());
 			thisGc.setForeground(gc.getForeground());
 			thisGc.setFont(gc.getFont());
-
+			if(!damageAll && paintedOrigin!=null && paintedScale==getScale())
+				regions = scrollBackingImage(thisGc, clientRect);
 		}
 		Projection p = new Projection(thisGc);
 		p.setTranslation(origin);
 		if (!painterList.isEmpty() ) {
-			for (IPainter painter : painterList)
-				painter.paintArea(p, clientRect);
+			if(regions==null) {
+				for (IPainter painter : painterList)
+					painter.paintArea(p, clientRect);
+			} else {
+				for (Rectangle region : regions) {
+					thisGc.setClipping(region);
+					for (IPainter painter : painterList)
+						painter.paintArea(p, clientRect);
+				}
+			}
 		} else {
 			gc.fillRectangle(clientRect);
 			initScrollBars();
 		}
+		damage.clear();
+		damageAll = false;
+		paintedOrigin = new Point(origin.x, origin.y);
+		paintedScale = getScale();
 		if(doubleBuffering) {
-			gc.drawImage(dBackingImg, 0, 0);
-			if(dBackingImg!=null) dBackingImg.dispose();
 			thisGc.dispose();
+			gc.drawImage(backingImg, 0, 0);
+		}
+	}
+
+	/**
+	 * Moves the content of the backing image by the change of the origin since it
+	 * was painted. The ruler only moves with the time axis, so it is painted again
+	 * if the origin moved horizontally.
+	 *
+	 * @return the regions to paint again or null if everything has to be painted
+	 */
+	private List<Rectangle> scrollBackingImage(GC gc, Rectangle clientRect) {
+		int dx = origin.x - paintedOrigin.x;
+		int dy = origin.y - paintedOrigin.y;
+		int top = clientRect.y + rulerHeight;
+		int height = clientRect.height - rulerHeight;
+		if(Math.abs(dx)>=clientRect.width || Math.abs(dy)>=height)
+			return null;
+		List<Rectangle> regions = new ArrayList<>();
+		if(dx!=0 || dy!=0) {
+			gc.copyArea(clientRect.x, top, clientRect.width, height, clientRect.x+dx, top+dy);
+			if(dx!=0) {
+				regions.add(new Rectangle(clientRect.x, clientRect.y, clientRect.width, rulerHeight));
+				// e.g. empty tracks center their label in the visible area
+				for(Entry<Integer, IWaveformPainter> entry : trackAreaPainter.trackVerticalOffset.entrySet())
+					if(entry.getValue().dependsOnVisibleArea())
+						regions.add(new Rectangle(clientRect.x, entry.getKey()+origin.y, clientRect.width, entry.getValue().getHeight()));
+				if(dx>0)
+					regions.add(new Rectangle(clientRect.x, top, dx, height));
+				else
+					regions.add(new Rectangle(clientRect.x+clientRect.width+dx, top, -dx, height));
+			}
+			if(dy>0)
+				regions.add(new Rectangle(clientRect.x, top, clientRect.width, dy));
+			else if(dy<0)
+				regions.add(new Rectangle(clientRect.x, top+height+dy, clientRect.width, -dy));
+		}
+		for(Rectangle r : damage) {
+			regions.add(r);
+			if(dx!=0 || dy!=0)
+				regions.add(new Rectangle(r.x+dx, r.y+dy, r.width, r.height));
+		}
+		return regions;
+	}
+
+	@Override
+	public void redraw() {
+		damageAll = true;
+		super.redraw();
+	}
+
+	@Override
+	public void redraw(int x, int y, int width, int height, boolean all) {
+		if(damage.size()<MAX_DAMAGE_REGIONS)
+			damage.add(new Rectangle(x, y, width, height));
+		else
+			damageAll = true;
+		super.redraw(x, y, width, height, all);
+	}
+
+	/**
+	 * Redraws the canvas painting only the regions damaged since the last paint
+	 * and the ones exposed by moving the origin, the rest is copied from the
+	 * previous paint.
+	 */
+	void redrawDamaged() {
+		super.redraw();
+	}
+
+	/**
+	 * Redraws the columns of a cursor at its previous and current time.
+	 *
+	 * @param painter the cursor
+	 * @param oldTime the previous time
+	 */
+	void redrawCursor(CursorPainter painter, long oldTime) {
+		if(isDisposed()) return;
+		Rectangle clientRect = getClientArea();
+		GC gc = new GC(this);
+		for(long time : new long[] {oldTime, painter.getTime()}) {
+			long x = time/getScale() + origin.x;
+			int width = gc.textExtent(timeToString(time)).x + 2;
+			if(x+width>=clientRect.x && x<=clientRect.x+clientRect.width)
+				redraw((int) x, clientRect.y, width, clientRect.height, false);
 		}
+		gc.dispose();
 	}
 
 	public List<Object> getElementsAt(Point point) {
@@ -453,6 +591,7 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 
 	public void setSelected(ITx currentSelection) {
 		this.currentSelection = currentSelection;
+		trackAreaPainter.getTileCache().invalidate(p -> p instanceof StreamPainter);
 		if (currentSelection != null)
 			reveal(currentSelection);
 		arrowPainter.setTx(currentSelection);
@@ -601,6 +740,7 @@ public class WaveformCanvas extends Canvas implements IWaveformZoom{
 
 	public void setStyleProvider(IWaveformStyleProvider styleProvider) {
 		this.styleProvider=styleProvider;
+		trackAreaPainter.getTileCache().clear();
 		redraw();
 	}
 
@@ -23,6 +23,7 @@ import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import org.eclipse.core.runtime.ListenerList;
@@ -84,6 +85,7 @@ import com.minres.scviewer.database.WaveformType;
 import com.minres.scviewer.database.tx.ITx;
 import com.minres.scviewer.database.tx.ITxEvent;
 import com.minres.scviewer.database.tx.ITxRelation;
+import com.minres.scviewer.database.tx.TxIntervalIndex;
 import com.minres.scviewer.database.ui.GotoDirection;
 import com.minres.scviewer.database.ui.ICursor;
 import com.minres.scviewer.database.ui.IWaveformStyleProvider;
@@ -682,7 +684,18 @@ public class WaveformView implements IWaveformView {
 				}
 			} else if (entry.waveform.getType() == WaveformType.TRANSACTION) {
 				ITx[] resultsList = new ITx[entry.waveform.getRowCount()];
-				EventEntry firstTx = entry.waveform.getEvents().floorEntry(time);
+				CompletableFuture<TxIntervalIndex> index = TxIntervalIndex.of(entry.waveform);
+				EventEntry firstTx = null;
+				boolean found;
+				if (index.isDone() && !index.isCompletedExceptionally() && index.join() != null) {
+					TxIntervalIndex intervals = index.join();
+					for (int row = 0; row < resultsList.length; row++)
+						resultsList[row] = intervals.getAt(row, time);
+					found = true;
+				} else {
+					firstTx = entry.waveform.getEvents().floorEntry(time);
+					found = firstTx != null;
+				}
 				if (firstTx != null) {
 					do {
 						for (IEvent e : firstTx.events) {
@@ -697,6 +710,8 @@ public class WaveformView implements IWaveformView {
 						}
 						firstTx = entry.waveform.getEvents().lowerEntry(firstTx.timestamp);
 					} while (firstTx != null && !isArrayFull(resultsList));
+				}
+				if (found) {
 					boolean separator = false;
 					StringBuilder sb = new StringBuilder();
 					for (ITx o : resultsList) {
@@ -1474,10 +1489,8 @@ public class WaveformView implements IWaveformView {
 					pcs.firePropertyChange(MARKER_PROPERTY + painter.id, oldVal, time);
 				}
 				canvas.getDisplay().asyncExec(() -> {
-					if (!canvas.isDisposed()) {
-						canvas.redraw();
+					if (!canvas.isDisposed())
 						updateValueList();
-					}
 				});
 			}
 		});
@@ -1574,7 +1587,7 @@ public class WaveformView implements IWaveformView {
 
 	public void asyncUpdate(Widget widget) {
 		widget.getDisplay().asyncExec(() -> {
-			waveformCanvas.redraw();
+			waveformCanvas.redrawDamaged();
 			updateValueList();
 		});
 	}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.vcd;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A reusable, mutable character sequence over a range of ASCII bytes. It allows
+ * to inspect VCD tokens without creating Strings.
+ */
+class ByteSequence implements CharSequence {
+
+	byte[] bytes;
+
+	int start;
+
+	int end;
+
+	ByteSequence() {
+		this(new byte[64]);
+	}
+
+	ByteSequence(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Lets this sequence refer to the bytes of other starting at from, no data is copied.
+	 */
+	ByteSequence view(ByteSequence other, int from) {
+		bytes = other.bytes;
+		start = other.start + from;
+		end = other.end;
+		return this;
+	}
+
+	/**
+	 * Copies the bytes of other starting at from into this sequence.
+	 */
+	ByteSequence copy(ByteSequence other, int from) {
+		return copy(other, from, other.length());
+	}
+
+	/**
+	 * Copies the bytes of other from from to to (exclusive) into this sequence.
+	 */
+	ByteSequence copy(ByteSequence other, int from, int to) {
+		int len = to - from;
+		if (bytes.length < len)
+			bytes = new byte[Math.max(len, bytes.length * 2)];
+		System.arraycopy(other.bytes, other.start + from, bytes, 0, len);
+		start = 0;
+		end = len;
+		return this;
+	}
+
+	void append(int b) {
+		if (end == bytes.length)
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		bytes[end++] = (byte) b;
+	}
+
+	void clear() {
+		start = end = 0;
+	}
+
+	@Override
+	public int length() {
+		return end - start;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char) (bytes[start + index] & 0xff);
+	}
+
+	@Override
+	public CharSequence subSequence(int from, int to) {
+		ByteSequence ret = new ByteSequence(bytes);
+		ret.start = start + from;
+		ret.end = start + to;
+		return ret;
+	}
+
+	/**
+	 * Checks if the sequence equals the given ASCII literal.
+	 */
+	boolean is(String literal) {
+		if (literal.length() != length())
+			return false;
+		for (int i = 0; i < literal.length(); i++)
+			if (bytes[start + i] != literal.charAt(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Parses the unsigned decimal number starting at from.
+	 */
+	long parseLong(int from) {
+		if (from >= length())
+			throw new NumberFormatException("empty number in '" + this + "'");
+		long res = 0;
+		for (int i = start + from; i < end; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException("invalid number '" + this + "'");
+			res = res * 10 + digit;
+		}
+		return res;
+	}
+
+	@Override
+	public String toString() {
+		return new String(bytes, start, length(), StandardCharsets.UTF_8);
+	}
+}
@@ -65,4 +65,13 @@ public interface IVCDDatabaseBuilder {
 	 */
 	public void appendTransition(int netId, long currentTime, double decodedValue);
 
+	/**
+	 * Append transition of a bit vector net not wider than {@link BitVector#MAX_PACKED_WIDTH}.
+	 *
+	 * @param netId the int value
+	 * @param currentTime the current time in ps
+	 * @param packedValue the value in the packed 2-bit-per-bit encoding
+	 */
+	public void appendPackedTransition(int netId, long currentTime, long packedValue);
+
 }
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.vcd;
+
+import java.util.HashMap;
+
+/**
+ * Maps VCD identifier codes to net ids. Identifiers of up to 9 printable ASCII
+ * characters (the usual case) are encoded into a long and looked up in a
+ * primitive open addressing table, so no String is needed per value change.
+ * Longer identifiers fall back to a String keyed map.
+ */
+class NetIdMap {
+
+	static final int MAX_ENCODED_LENGTH = 9;
+
+	private long[] keys = new long[1024];
+
+	/** net id+1, 0 marks an empty slot */
+	private int[] nets = new int[1024];
+
+	private int count = 0;
+
+	private final HashMap<String, Integer> longIds = new HashMap<>();
+
+	/**
+	 * Gets the net id of the identifier code.
+	 *
+	 * @param id the identifier code
+	 * @return the net id or -1 if unknown
+	 */
+	int get(CharSequence id) {
+		long code = encode(id);
+		if (code < 0) {
+			Integer net = longIds.get(id.toString());
+			return net == null ? -1 : net;
+		}
+		int mask = keys.length - 1;
+		int pos = hash(code) & mask;
+		while (nets[pos] != 0) {
+			if (keys[pos] == code)
+				return nets[pos] - 1;
+			pos = (pos + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds the identifier code.
+	 *
+	 * @param id  the identifier code
+	 * @param net the net id
+	 */
+	void put(CharSequence id, int net) {
+		long code = encode(id);
+		if (code < 0) {
+			longIds.put(id.toString(), net);
+			return;
+		}
+		if (++count * 2 > keys.length)
+			rehash();
+		insert(code, net + 1);
+	}
+
+	private void insert(long code, int value) {
+		int mask = keys.length - 1;
+		int pos = hash(code) & mask;
+		while (nets[pos] != 0 && keys[pos] != code)
+			pos = (pos + 1) & mask;
+		keys[pos] = code;
+		nets[pos] = value;
+	}
+
+	private void rehash() {
+		long[] oldKeys = keys;
+		int[] oldNets = nets;
+		keys = new long[oldKeys.length * 2];
+		nets = new int[oldNets.length * 2];
+		for (int i = 0; i < oldKeys.length; i++)
+			if (oldNets[i] != 0)
+				insert(oldKeys[i], oldNets[i]);
+	}
+
+	/**
+	 * Encodes identifiers of printable ASCII characters as base 95 number, returns -1
+	 * if the identifier cannot be encoded.
+	 */
+	static long encode(CharSequence id) {
+		int len = id.length();
+		if (len == 0 || len > MAX_ENCODED_LENGTH)
+			return -1;
+		long code = 0;
+		for (int i = 0; i < len; i++) {
+			int c = id.charAt(i);
+			if (c <= ' ' || c > '~')
+				return -1;
+			code = code * 95 + (c - ' ');
+		}
+		return code;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.vcd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.minres.scviewer.database.BitVector;
+
+/**
+ * Records the value changes of a part of the value section so it can be parsed
+ * independently of the other parts. The changes are replayed in the original
+ * order into the database builder once all preceding parts are done.
+ */
+class VCDChangeBuffer implements IVCDDatabaseBuilder {
+
+	private final IVCDDatabaseBuilder target;
+
+	private final int[] widths;
+
+	private long[] times = new long[1024];
+
+	/** the net id for packed values, -(net id+1) for values kept in objects */
+	private int[] nets = new int[1024];
+
+	/** the packed value or the index into objects */
+	private long[] values = new long[1024];
+
+	private final ArrayList<Object> objects = new ArrayList<>();
+
+	private int size = 0;
+
+	/**
+	 * Instantiates a new change buffer.
+	 *
+	 * @param target the builder the changes are replayed into
+	 * @param widths the widths of the nets indexed by net id
+	 */
+	VCDChangeBuffer(IVCDDatabaseBuilder target, int[] widths) {
+		this.target = target;
+		this.widths = widths;
+	}
+
+	@Override
+	public void enterModule(String tokenString) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void exitModule() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Integer newNet(String netName, int i, int width) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int getNetWidth(int netId) {
+		return widths[netId];
+	}
+
+	@Override
+	public void appendTransition(int netId, long currentTime, BitVector decodedValue) {
+		add(-(netId + 1), currentTime, objects.size());
+		objects.add(decodedValue);
+	}
+
+	@Override
+	public void appendTransition(int netId, long currentTime, double decodedValue) {
+		add(-(netId + 1), currentTime, objects.size());
+		objects.add(decodedValue);
+	}
+
+	@Override
+	public void appendPackedTransition(int netId, long currentTime, long packedValue) {
+		add(netId, currentTime, packedValue);
+	}
+
+	private void add(int net, long time, long value) {
+		if (size == times.length) {
+			int capacity = size * 2;
+			times = Arrays.copyOf(times, capacity);
+			nets = Arrays.copyOf(nets, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		times[size] = time;
+		nets[size] = net;
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * Replays all recorded changes into the target builder.
+	 */
+	void replay() {
+		for (int i = 0; i < size; i++) {
+			int net = nets[i];
+			if (net >= 0) {
+				target.appendPackedTransition(net, times[i], values[i]);
+			} else {
+				Object value = objects.get((int) values[i]);
+				if (value instanceof BitVector)
+					target.appendTransition(-(net + 1), times[i], (BitVector) value);
+				else
+					target.appendTransition(-(net + 1), times[i], (Double) value);
+			}
+		}
+	}
+}
@@ -16,6 +16,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
@@ -29,6 +32,7 @@ import com.minres.scviewer.database.DoubleVal;
 import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.IWaveformDbLoader;
+import com.minres.scviewer.database.IndexCache;
 import com.minres.scviewer.database.InputFormatException;
 import com.minres.scviewer.database.RelationType;
 
@@ -41,6 +45,18 @@ public class VCDDbLoader implements IWaveformDbLoader, IVCDDatabaseBuilder {
 	/** The Constant TIME_RES. */
 	private static final Long TIME_RES = 1000L; // ps
 
+	/** The number of threads parsing the value section, can be set using the system property VcdParserThreads. */
+	private static final int PARSER_THREADS = Integer.getInteger("VcdParserThreads", Runtime.getRuntime().availableProcessors());
+
+	/** Decode the values of a signal on first access, can be enabled using the system property VcdLazyLoading. */
+	private static final boolean LAZY_LOADING = Boolean.getBoolean("VcdLazyLoading");
+
+	/** The parser decoding signals on demand in lazy mode. */
+	private VCDFileParser parser;
+
+	/** The index of the value section in lazy mode. */
+	private VCDIndex index;
+
 	/** The module stack. */
 	private ArrayDeque<String> moduleStack;
 
@@ -50,6 +66,9 @@ public class VCDDbLoader implements IWaveformDbLoader, IVCDDatabaseBuilder {
 	/** The max time. */
 	private long maxTime;
 
+	/** The persistent index being written in the background. */
+	private IndexCache indexCache;
+
 	/** The pcs. */
 	protected PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
@@ -68,49 +87,150 @@ public class VCDDbLoader implements IWaveformDbLoader, IVCDDatabaseBuilder {
 	/* (non-Javadoc)
 	 * @see com.minres.scviewer.database.ITrDb#load(java.io.File)
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	public void load(File file) throws InputFormatException {
 		dispose();
 		this.maxTime=0;
-		boolean res = false;
+		IndexCache cache = IndexCache.of(file, VCDIndexFile.FORMAT, VCDIndexFile.VERSION);
+		boolean cached = cache!=null && readIndex(cache);
+		boolean res = cached;
 		try {
-			signals = new Vector<>();
-			moduleStack= new ArrayDeque<>();
-			FileInputStream fis = new FileInputStream(file);
-			res = new VCDFileParser(false).load(isGzipped(file)?new GZIPInputStream(fis):fis, this);
-			moduleStack=null;
+			if(!cached) {
+				signals = new Vector<>();
+				moduleStack= new ArrayDeque<>();
+				res = LAZY_LOADING && !isGzipped(file) ? index(file) : parse(file);
+				moduleStack=null;
+			}
 		} catch(IOException e) { 
 			moduleStack=null;
 			throw new InputFormatException(e.toString());
 		}
 		if(!res) 
 			throw new InputFormatException("Could not parse VCD file");
-		// calculate max time of this database
-		for(IWaveform waveform:signals) {
-			IEventList events =waveform.getEvents();
-			if(!events.isEmpty())
-				maxTime= Math.max(maxTime, events.lastKey());
-		}
-		// extend signals to have a last value set at max time
-		for(IWaveform s:signals){
-			if(s instanceof VCDSignal<?>) {
-				IEventList events = ((VCDSignal<?>)s).getEvents();
-				if(events.size()>0 && events.lastKey()<maxTime){
-					Object val = events.lastEntry().events[0];
-					if(val instanceof BitVector) {
-						((VCDSignal<BitVector>)s).addSignalChange(maxTime, (BitVector) val);
-					} else if(val instanceof DoubleVal)
-						((VCDSignal<DoubleVal>)s).addSignalChange(maxTime, (DoubleVal) val);
-				}
+		if(index!=null) {
+			maxTime = index.getLastChangeTime()*TIME_RES;
+			for(IWaveform s:signals)
+				((VCDSignal<?>)s).setLoader(this);
+		} else {
+			// calculate max time of this database
+			for(IWaveform waveform:signals) {
+				IEventList events =waveform.getEvents();
+				if(!events.isEmpty())
+					maxTime= Math.max(maxTime, events.lastKey());
+			}
+			// extend signals to have a last value set at max time
+			for(IWaveform s:signals){
+				if(s instanceof VCDSignal<?>)
+					extendToMaxTime((VCDSignal<?>)s);
+			}
+			if(cache!=null && !cached) {
+				List<IWaveform> written = signals;
+				indexCache = cache;
+				cache.writeAsync(out -> VCDIndexFile.write(out, written));
 			}
 		}
 		pcs.firePropertyChange(IWaveformDbLoader.LOADING_FINISHED, null, null);
 	}
 
-	public void dispose() {
+	@SuppressWarnings("unchecked")
+	private void extendToMaxTime(VCDSignal<?> s) {
+		IEventList events = s.getValues();
+		if(events.size()>0 && events.lastKey()<maxTime){
+			Object val = events.lastEntry().events[0];
+			if(val instanceof BitVector) {
+				((VCDSignal<BitVector>)s).addSignalChange(maxTime, (BitVector) val);
+			} else if(val instanceof DoubleVal)
+				((VCDSignal<DoubleVal>)s).addSignalChange(maxTime, (DoubleVal) val);
+		}
+	}
+
+	/**
+	 * Reads the signals from a valid persistent index of the file.
+	 *
+	 * @return true, if the index has been read
+	 */
+	private boolean readIndex(IndexCache cache) {
+		ByteBuffer buf = cache.read();
+		if(buf==null)
+			return false;
+		signals = new Vector<>();
+		try {
+			VCDIndexFile.read(buf, this);
+			return true;
+		} catch(RuntimeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the hierarchy and indexes the value section of an uncompressed file.
+	 * The file stays open until the loader is disposed.
+	 */
+	private boolean index(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		parser = new VCDFileParser(false);
+		index = parser.index(new VCDScanner(channel, 0, channel.size()), this);
+		if(index==null) {
+			channel.close();
+			parser=null;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Decodes the values of a signal in lazy mode.
+	 *
+	 * @param signal the signal
+	 */
+	synchronized void materialize(VCDSignal<?> signal) {
+		if(signal.isMaterialized())
+			return;
+		if(index!=null) {
+			try {
+				parser.decode(index, (int) signal.getId());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			extendToMaxTime(signal);
+		}
+		// readers check the loader without locking, so it is cleared once the values are complete
+		signal.setLoader(null);
+	}
+
+	/**
+	 * Parses the file, uncompressed files are memory mapped and their value section
+	 * is parsed in parallel while gzip compressed ones are streamed.
+	 */
+	private boolean parse(File file) throws IOException {
+		if (isGzipped(file)) {
+			try (VCDScanner scanner = new VCDScanner(new GZIPInputStream(new FileInputStream(file)))) {
+				return new VCDFileParser(false).load(scanner, this);
+			}
+		} else {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+					VCDScanner scanner = new VCDScanner(channel, 0, channel.size())) {
+				return new VCDFileParser(false, PARSER_THREADS).load(scanner, this);
+			}
+		}
+	}
+
+	public synchronized void dispose() {
+		if(indexCache!=null) {
+			indexCache.cancel();
+			indexCache=null;
+		}
 		moduleStack=null;
 		signals=null;
+		parser=null;
+		if(index!=null) {
+			try {
+				index.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			index=null;
+		}
 	}
 
 	/* (non-Javadoc)
@@ -153,10 +273,21 @@ public class VCDDbLoader implements IWaveformDbLoader, IVCDDatabaseBuilder {
 	/* (non-Javadoc)
 	 * @see com.minres.scviewer.database.vcd.ITraceBuilder#newNet(java.lang.String, int, int)
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	public Integer newNet(String name, int i, int width) {
-		String netName = moduleStack.isEmpty()? name: moduleStack.peek()+"."+name;
+		return addNet(moduleStack.isEmpty()? name: moduleStack.peek()+"."+name, i, width);
+	}
+
+	/**
+	 * Adds a net.
+	 *
+	 * @param netName the full name of the net
+	 * @param i       the id of the net sharing the values, -1 if there is none
+	 * @param width   the width, 0 for real values
+	 * @return the id of the net
+	 */
+	@SuppressWarnings("unchecked")
+	Integer addNet(String netName, int i, int width) {
 		int id = signals.size();
 		if(width==0) {
 			signals.add( i<0 ? new VCDSignal<DoubleVal>(id, netName, width) :
@@ -200,6 +331,15 @@ public class VCDDbLoader implements IWaveformDbLoader, IVCDDatabaseBuilder {
 		signal.addSignalChange(time, new DoubleVal(value));
 	}
 
+	/* (non-Javadoc)
+	 * @see com.minres.scviewer.database.vcd.IVCDDatabaseBuilder#appendPackedTransition(int, long, long)
+	 */
+	@Override
+	public void appendPackedTransition(int signalId, long currentTime, long packedValue) {
+		VCDSignal<?> signal = (VCDSignal<?>) signals.get(signalId);
+		signal.addSignalChange(currentTime* TIME_RES, packedValue);
+	}
+
 	/* (non-Javadoc)
 	 * @see com.minres.scviewer.database.IWaveformDbLoader#getAllRelationTypes()
 	 */
@@ -10,41 +10,82 @@
  *******************************************************************************/
 package com.minres.scviewer.database.vcd;
 
-import java.io.*;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.text.ParseException;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.minres.scviewer.database.BitValue;
 import com.minres.scviewer.database.BitVector;
 import com.minres.scviewer.database.IWaveformDb;
 
 class VCDFileParser {
-	private StreamTokenizer tokenizer;
+	/** the minimum size of a part of the value section parsed by its own task */
+	static final long MIN_PART_SIZE = 1 << 20;
+	/** the number of parts per thread, more parts balance the load better */
+	static final int PARTS_PER_THREAD = 4;
+	private VCDScanner scanner;
 	private IVCDDatabaseBuilder traceBuilder;
-	private HashMap<String, Integer> nameToNetMap = new HashMap<>();
+	private final NetIdMap nameToNetMap;
 	private long timeScaleFactor;
 	private boolean stripNetWidth;
 	private boolean replaceColon;
 	long currentTime;
+	/** holds the value of vector changes while the identifier is read */
+	private final ByteSequence value = new ByteSequence();
+	/** view of the identifier of scalar changes */
+	private final ByteSequence id = new ByteSequence();
+
+	private final int threads;
+	/** the number of nets receiving value changes */
+	private int netCount = 0;
+	/** the index built instead of decoding values, null when decoding */
+	private VCDIndex index = null;
+	/** the only net being decoded, -1 decodes all nets */
+	private int selectedNet = -1;
 
 	public VCDFileParser(boolean stripNetWidth) {
+		this(stripNetWidth, 1);
+	}
+
+	/**
+	 * Instantiates a new VCD file parser.
+	 *
+	 * @param stripNetWidth if the bit range shall be removed from net names
+	 * @param threads the number of threads used to parse the value section of memory mapped files
+	 */
+	public VCDFileParser(boolean stripNetWidth, int threads) {
 		this.stripNetWidth=stripNetWidth;
 		this.replaceColon=false;
+		this.threads=threads;
+		this.nameToNetMap=new NetIdMap();
 	}
 
-	public boolean load(InputStream is, IVCDDatabaseBuilder builder) {
-		tokenizer = new StreamTokenizer(new BufferedReader(new InputStreamReader(is)));
-		tokenizer.resetSyntax();
-		tokenizer.wordChars(33, 126);
-		tokenizer.whitespaceChars('\r', '\r');
-		tokenizer.whitespaceChars('\n', '\n');
-		tokenizer.whitespaceChars(' ', ' ');
-		tokenizer.whitespaceChars('\t', '\t');
+	/**
+	 * Creates a parser for a part of the value section sharing the definitions of parent.
+	 */
+	private VCDFileParser(VCDFileParser parent, VCDScanner scanner, IVCDDatabaseBuilder builder) {
+		this.stripNetWidth=parent.stripNetWidth;
+		this.replaceColon=parent.replaceColon;
+		this.threads=1;
+		this.nameToNetMap=parent.nameToNetMap;
+		this.timeScaleFactor=parent.timeScaleFactor;
+		this.scanner=scanner;
+		this.traceBuilder=builder;
+	}
+
+	public boolean load(VCDScanner scanner, IVCDDatabaseBuilder builder) {
+		this.scanner = scanner;
 		try {
 			traceBuilder = builder;
 			currentTime=0;
 			while (parseDefinition());
-			while (parseTransition());
+			if (threads < 2 || scanner.position() < 0 || !parseTransitionsParallel())
+				while (parseTransition());
 			return true;
 		} catch (Exception exc) {
 			exc.printStackTrace();
@@ -52,10 +93,59 @@ class VCDFileParser {
 		}
 	}
 
+	/**
+	 * Reads the definitions and indexes the value section of a memory mapped file
+	 * without decoding any value. The values of a net are decoded later on using
+	 * {@link #decode(VCDIndex, int)}.
+	 *
+	 * @param scanner the scanner of a memory mapped file
+	 * @param builder the builder
+	 * @return the index or null if the file could not be parsed
+	 */
+	public VCDIndex index(VCDScanner scanner, IVCDDatabaseBuilder builder) {
+		this.scanner = scanner;
+		try {
+			traceBuilder = builder;
+			currentTime=0;
+			while (parseDefinition());
+			index = new VCDIndex(scanner.channel(), scanner.position(), scanner.endOffset());
+			while (parseTransition());
+			return index;
+		} catch (Exception exc) {
+			exc.printStackTrace();
+			return null;
+		} finally {
+			index = null;
+		}
+	}
+
+	/**
+	 * Decodes the value changes of a single net using the index. Only the segments
+	 * containing changes of the net are scanned.
+	 *
+	 * @param index the index created by {@link #index(VCDScanner, IVCDDatabaseBuilder)}
+	 * @param net   the net id
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void decode(VCDIndex index, int net) throws IOException {
+		long[] ranges = index.getRanges(net);
+		selectedNet = net;
+		try {
+			for (int i = 0; i < ranges.length; i += 2) {
+				scanner = new VCDScanner(index.channel(), ranges[i], ranges[i + 1]);
+				// the first range starts before any timestamp, all others at one
+				currentTime = 0;
+				while (parseTransition());
+			}
+		} finally {
+			selectedNet = -1;
+		}
+	}
+
 	private void parseScope() throws IOException, ParseException {
 		nextToken(); // Scope type (ignore)
 		nextToken();
-		traceBuilder.enterModule(tokenizer.sval);
+		traceBuilder.enterModule(token());
 		match("$end");
 	}
 
@@ -66,22 +156,20 @@ class VCDFileParser {
 
 	private void parseVar() throws IOException {
 		nextToken(); // type
-		String type = tokenizer.sval;
+		boolean real = scanner.token().is("real");
 		nextToken(); // size
-		int width = Integer.parseInt(tokenizer.sval);
-		if("real".equals(type))
-			width=0;
+		int width = real ? 0 : (int) scanner.token().parseLong(0);
 		nextToken();
-		String id = tokenizer.sval;
+		String id = token();
 		nextToken();
 		StringBuilder sb = new StringBuilder();
-		sb.append(tokenizer.sval);
-		while (nextToken() && !tokenizer.sval.equals("$end")) {
-			sb.append(tokenizer.sval);
+		sb.append(scanner.token());
+		while (nextToken() && !scanner.token().is("$end")) {
+			sb.append(scanner.token());
 		}
 		String netName = sb.toString();
-		Integer net = nameToNetMap.get(id);
-		if (net == null) { // We've never seen this net before
+		int net = nameToNetMap.get(id);
+		if (net < 0) { // We've never seen this net before
 			int openBracket = netName.indexOf('[');
 			if(stripNetWidth){
 				if (openBracket != -1) netName = netName.substring(0, openBracket);
@@ -93,7 +181,9 @@ class VCDFileParser {
 				} else
 					netName=netName.replace(":", ".");
 			}
-			nameToNetMap.put(id, traceBuilder.newNet(netName, -1, width));
+			net = traceBuilder.newNet(netName, -1, width);
+			nameToNetMap.put(id, net);
+			netCount = Math.max(netCount, net + 1);
 		} else {
 			// Shares data with existing net. Add as clone.
 			traceBuilder.newNet(netName, net, width);
@@ -103,10 +193,10 @@ class VCDFileParser {
 	private void parseComment() throws IOException {
 		nextToken();
 		StringBuilder s = new StringBuilder();
-		s.append(tokenizer.sval);
+		s.append(scanner.token());
 		nextToken();
-		while(!tokenizer.sval.equals("$end")){
-			s.append(" ").append(tokenizer.sval);
+		while(!scanner.token().is("$end")){
+			s.append(" ").append(scanner.token());
 			nextToken();
 		}
 		replaceColon|=s.toString().contains("ARTERIS Architecture");
@@ -115,10 +205,10 @@ class VCDFileParser {
 	private void parseTimescale() throws IOException {
 		nextToken();
 		StringBuilder sb = new StringBuilder();
-		sb.append(tokenizer.sval);
+		sb.append(scanner.token());
 		nextToken();
-		while(!tokenizer.sval.equals("$end")){
-			sb.append(" ").append(tokenizer.sval);
+		while(!scanner.token().is("$end")){
+			sb.append(" ").append(scanner.token());
 			nextToken();
 		}
 		String s = sb.toString();
@@ -156,90 +246,163 @@ class VCDFileParser {
 	}
 
 	private boolean parseDefinition() throws IOException, ParseException {
-		nextToken();
-		if (tokenizer.sval.equals("$scope"))
+		if (!nextToken()) return false;
+		ByteSequence token = scanner.token();
+		if (token.is("$scope"))
 			parseScope();
-		else if (tokenizer.sval.equals("$var"))
+		else if (token.is("$var"))
 			parseVar();
-		else if (tokenizer.sval.equals("$upscope"))
+		else if (token.is("$upscope"))
 			parseUpscope();
-		else if (tokenizer.sval.equals("$timescale"))
+		else if (token.is("$timescale"))
 			parseTimescale();
-		else if (tokenizer.sval.equals("$comment")) 
+		else if (token.is("$comment")) 
 			parseComment();
-		else if (tokenizer.sval.equals("$enddefinitions")) {
+		else if (token.is("$enddefinitions")) {
 			match("$end");
 			return false;
 		} else do {
 			if (!nextToken()) return false;
-		} while (!tokenizer.sval.equals("$end"));
+		} while (!token.is("$end"));
 
 		return true;
 	}
 
+	/**
+	 * Splits the remaining value section at timestamps into parts which are parsed
+	 * concurrently. The changes of each part are buffered and handed to the builder
+	 * in file order so the result equals a sequential parse.
+	 *
+	 * @return false if the value section is too small to be split
+	 */
+	private boolean parseTransitionsParallel() throws Exception {
+		long start = scanner.position();
+		long end = scanner.endOffset();
+		int parts = (int) Math.min((long) threads * PARTS_PER_THREAD, (end - start) / MIN_PART_SIZE);
+		if (parts < 2)
+			return false;
+		FileChannel channel = scanner.channel();
+		long[] bounds = new long[parts + 1];
+		bounds[0] = start;
+		bounds[parts] = end;
+		for (int i = 1; i < parts; i++)
+			bounds[i] = VCDScanner.findTimestamp(channel, Math.max(bounds[i - 1], start + (end - start) / parts * i), end);
+		// the widths are looked up by all tasks so take a snapshot
+		int[] widths = new int[netCount];
+		for (int i = 0; i < netCount; i++)
+			widths[i] = traceBuilder.getNetWidth(i);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, parts));
+		try {
+			List<Future<VCDChangeBuffer>> results = new ArrayList<>();
+			for (int i = 0; i < parts; i++) {
+				VCDScanner partScanner = new VCDScanner(channel, bounds[i], bounds[i + 1]);
+				results.add(executor.submit(() -> {
+					VCDChangeBuffer buffer = new VCDChangeBuffer(traceBuilder, widths);
+					VCDFileParser partParser = new VCDFileParser(this, partScanner, buffer);
+					while (partParser.parseTransition());
+					return buffer;
+				}));
+			}
+			for (int i = 0; i < parts; i++) {
+				results.get(i).get().replay();
+				results.set(i, null);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return true;
+	}
+
 	private boolean parseTransition() throws IOException {
 		if (!nextToken()) return false;
-		if (tokenizer.sval.charAt(0) == '#') {	// If the line begins with a #, this is a timestamp.
-			currentTime = Long.parseLong(tokenizer.sval.substring(1)) * timeScaleFactor;
-		} else {
-			if(tokenizer.sval.equals("$comment")){
+		ByteSequence token = scanner.token();
+		char first = token.charAt(0);
+		if (first == '#') {	// If the line begins with a #, this is a timestamp.
+			currentTime = token.parseLong(1) * timeScaleFactor;
+			if (index != null)
+				index.timestamp(scanner.tokenOffset());
+		} else if (first == '$') {
+			if(token.is("$comment")){
 				do {
 					if (!nextToken()) return false;
-				} while (!tokenizer.sval.equals("$end"));
-				return true;
+				} while (!token.is("$end"));
 			}
-			if (tokenizer.sval.equals("$dumpvars") || tokenizer.sval.equals("$end"))
-				return true;
-			String value;
-			String id;
-			if (tokenizer.sval.charAt(0) == 'b' || tokenizer.sval.charAt(0) == 'r') {
+			// $dumpvars, $end and the like carry no information
+		} else {
+			ByteSequence val;
+			int net;
+			if (first == 'b' || first == 'B' || first == 'r' || first == 'R') {
 				// Multiple value net. Value appears first, followed by space, then identifier
-				value = tokenizer.sval.substring(1);
-				nextToken();
-				id = tokenizer.sval;
+				val = value.copy(token, 1);
+				if (!nextToken()) return false;
+				net = nameToNetMap.get(token);
 			} else {
 				// Single value net. identifier first, then value, no space.
-				value = tokenizer.sval.substring(0, 1);
-				id = tokenizer.sval.substring(1);
+				val = value.copy(token, 0, 1);
+				net = nameToNetMap.get(id.view(token, 1));
 			}
-
-			Integer net = nameToNetMap.get(id);
-			if (net == null) 
+			if (net < 0) 
 				return true;
+			if (index != null)
+				index.touch(net, currentTime);
+			else if (selectedNet < 0 || selectedNet == net)
+				appendTransition(net, val);
+		}
+		return true;
+	}
 
-			int netWidth = traceBuilder.getNetWidth(net);
-			if(netWidth==0) {
-				if("nan".equals(value))
-					traceBuilder.appendTransition(net, currentTime, Double.NaN);
-				else
-					traceBuilder.appendTransition(net, currentTime, Double.parseDouble(value));
+	private void appendTransition(int net, ByteSequence val) {
+		int netWidth = traceBuilder.getNetWidth(net);
+		if(netWidth==0) {
+			if(val.is("nan"))
+				traceBuilder.appendTransition(net, currentTime, Double.NaN);
+			else
+				traceBuilder.appendTransition(net, currentTime, Double.parseDouble(val.toString()));
+			return;
+		}
+		// a scalar change of a vector net sets all bits to x or z
+		BitValue fill = null;
+		if (val.length() == 1 && netWidth > 1) {
+			if (val.charAt(0) == 'z')
+				fill = BitValue.Z;
+			else if (val.charAt(0) == 'x')
+				fill = BitValue.X;
+		}
+		if(netWidth<=BitVector.MAX_PACKED_WIDTH) {
+			long packed = fill == null ? BitVector.pack(netWidth, val) : fill(netWidth, fill);
+			traceBuilder.appendPackedTransition(net, currentTime, packed);
+		} else {
+			BitVector decodedValues;
+			if (fill != null) {
+				decodedValues = new BitVector(netWidth);
+				for (int i = 0; i < netWidth; i++)
+					decodedValues.setValue(i, fill);
 			} else {
-				BitVector decodedValues;
-				if (value.equals("z") && netWidth > 1) {
-					decodedValues = new BitVector(netWidth);
-					for (int i = 0; i < netWidth; i++)
-						decodedValues.setValue(i, BitValue.Z);
-				} else if (value.equals("x") && netWidth > 1) {
-					decodedValues = new BitVector(netWidth);
-					for (int i = 0; i < netWidth; i++)
-						decodedValues.setValue(i, BitValue.X);
-				} else {
-					decodedValues = BitVector.fromString(netWidth, value);
-				}
-				traceBuilder.appendTransition(net, currentTime, decodedValues);
+				decodedValues = BitVector.fromString(netWidth, val);
 			}
+			traceBuilder.appendTransition(net, currentTime, decodedValues);
 		}
-		return true;
+	}
+
+	private static long fill(int netWidth, BitValue value) {
+		long packed = 0;
+		for (int i = 0; i < netWidth; i++)
+			packed |= (long) value.ordinal() << (i * 2);
+		return packed;
 	}
 
 	private void match(String value) throws ParseException, IOException {
 		nextToken();
-		if (!tokenizer.sval.equals(value)) 
-			throw new ParseException("Line "+tokenizer.lineno()+": parse error, expected "+value+" got "+tokenizer.sval, tokenizer.lineno());
+		if (!scanner.token().is(value)) 
+			throw new ParseException("Line "+scanner.lineNo()+": parse error, expected "+value+" got "+scanner.token(), scanner.lineNo());
+	}
+
+	private String token() {
+		return scanner.token().toString();
 	}
 
 	private boolean nextToken() throws IOException {
-		return tokenizer.nextToken() != StreamTokenizer.TT_EOF;
+		return scanner.nextToken();
 	}
 
 }
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.vcd;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The index of the value section of a memory mapped VCD file. The value section
+ * is divided into segments starting at a timestamp, for each net a bitmap
+ * records the segments containing changes of the net. This allows to decode the
+ * changes of a single net by scanning only the segments touching it.
+ */
+class VCDIndex implements Closeable {
+
+	/** The minimum size of a segment, segments start at the first timestamp after this size. */
+	static final long SEGMENT_SIZE = 1 << 18;
+
+	private final FileChannel channel;
+
+	private final long end;
+
+	/** the start offsets of the segments */
+	private long[] segments = new long[64];
+
+	private int segmentCount = 0;
+
+	/** the segments touched by a net indexed by net id */
+	private BitSet[] netSegments = new BitSet[64];
+
+	private long lastChangeTime = 0;
+
+	/**
+	 * Instantiates a new index of the value section in [start, end).
+	 *
+	 * @param channel the channel of the file, closed by {@link #close()}
+	 * @param start   the start of the value section
+	 * @param end     the end of the value section
+	 */
+	VCDIndex(FileChannel channel, long start, long end) {
+		this.channel = channel;
+		this.end = end;
+		segments[segmentCount++] = start;
+	}
+
+	FileChannel channel() {
+		return channel;
+	}
+
+	/**
+	 * Records a timestamp, it starts a new segment if the current one is full.
+	 *
+	 * @param offset the file offset of the timestamp token
+	 */
+	void timestamp(long offset) {
+		if (offset - segments[segmentCount - 1] < SEGMENT_SIZE)
+			return;
+		if (segmentCount == segments.length)
+			segments = Arrays.copyOf(segments, segmentCount * 2);
+		segments[segmentCount++] = offset;
+	}
+
+	/**
+	 * Records a change of the net in the current segment.
+	 *
+	 * @param net  the net id
+	 * @param time the time of the change
+	 */
+	void touch(int net, long time) {
+		if (net >= netSegments.length)
+			netSegments = Arrays.copyOf(netSegments, Math.max(net + 1, netSegments.length * 2));
+		if (netSegments[net] == null)
+			netSegments[net] = new BitSet();
+		netSegments[net].set(segmentCount - 1);
+		lastChangeTime = time;
+	}
+
+	/**
+	 * Gets the time of the last change in the value section.
+	 *
+	 * @return the time
+	 */
+	long getLastChangeTime() {
+		return lastChangeTime;
+	}
+
+	/**
+	 * Gets the file ranges to be scanned to get all changes of the net, adjacent
+	 * segments are merged into one range.
+	 *
+	 * @param net the net id
+	 * @return pairs of start and end offset
+	 */
+	long[] getRanges(int net) {
+		BitSet touched = net < netSegments.length ? netSegments[net] : null;
+		if (touched == null)
+			return new long[0];
+		long[] ranges = new long[2 * touched.cardinality()];
+		int count = 0;
+		for (int i = touched.nextSetBit(0); i >= 0; i = touched.nextSetBit(i + 1)) {
+			long segmentEnd = i + 1 < segmentCount ? segments[i + 1] : end;
+			if (count > 0 && ranges[count - 1] == segments[i]) {
+				ranges[count - 1] = segmentEnd;
+			} else {
+				ranges[count++] = segments[i];
+				ranges[count++] = segmentEnd;
+			}
+		}
+		return Arrays.copyOf(ranges, count);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
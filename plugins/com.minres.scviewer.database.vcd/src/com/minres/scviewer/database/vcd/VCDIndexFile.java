@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.vcd;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import com.minres.scviewer.database.BitVector;
+import com.minres.scviewer.database.DoubleVal;
+import com.minres.scviewer.database.EventEntry;
+import com.minres.scviewer.database.IEvent;
+import com.minres.scviewer.database.IEventList;
+import com.minres.scviewer.database.IWaveform;
+import com.minres.scviewer.database.IndexCache;
+
+/**
+ * The layout of the persistent index (see {@link IndexCache}) of a parsed VCD
+ * file. It holds the nets followed by the value changes of each net not being an
+ * alias as array of timestamps and array of values. Bit vectors are stored in
+ * their packed form, real values as doubles.
+ */
+class VCDIndexFile {
+
+	/** The name of the index format. */
+	static final String FORMAT = "vcdidx";
+
+	/** The version of the index format. */
+	static final int VERSION = 1;
+
+	private VCDIndexFile() {
+	}
+
+	/**
+	 * Writes the nets and their value changes.
+	 *
+	 * @param out     the output
+	 * @param signals the signals of the loader
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static void write(DataOutputStream out, List<IWaveform> signals) throws IOException {
+		out.writeInt(signals.size());
+		for (IWaveform waveform : signals) {
+			VCDSignal<?> signal = (VCDSignal<?>) waveform;
+			IndexCache.writeString(out, signal.getFullName());
+			out.writeInt(signal.getWidth());
+			out.writeInt(signal.getOrigin() != signal ? (int) signal.getOrigin().getId() : -1);
+		}
+		for (IWaveform waveform : signals) {
+			VCDSignal<?> signal = (VCDSignal<?>) waveform;
+			if (signal.getOrigin() != signal)
+				continue;
+			IEventList events = signal.getEvents();
+			int count = 0;
+			for (EventEntry entry : events)
+				count += entry.events.length;
+			out.writeInt(count);
+			for (EventEntry entry : events)
+				for (int i = 0; i < entry.events.length; i++)
+					out.writeLong(entry.timestamp);
+			int width = signal.getWidth();
+			for (EventEntry entry : events) {
+				for (IEvent evt : entry.events) {
+					if (width == 0) {
+						out.writeDouble(((DoubleVal) evt).value);
+					} else if (width <= BitVector.MAX_PACKED_WIDTH) {
+						out.writeLong(((BitVector) evt).toPacked());
+					} else {
+						for (long word : ((BitVector) evt).toPackedArray())
+							out.writeLong(word);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the nets and their value changes into the loader.
+	 *
+	 * @param buf    the content of the index
+	 * @param loader the loader
+	 */
+	@SuppressWarnings("unchecked")
+	static void read(ByteBuffer buf, VCDDbLoader loader) {
+		int count = buf.getInt();
+		int[] origins = new int[count];
+		for (int i = 0; i < count; i++) {
+			String name = IndexCache.readString(buf);
+			int width = buf.getInt();
+			origins[i] = buf.getInt();
+			loader.addNet(name, origins[i], width);
+		}
+		List<IWaveform> signals = (List<IWaveform>) loader.getAllWaves();
+		for (int id = 0; id < count; id++) {
+			if (origins[id] >= 0)
+				continue;
+			VCDSignal<?> signal = (VCDSignal<?>) signals.get(id);
+			int width = signal.getWidth();
+			int size = buf.getInt();
+			long[] times = readLongs(buf, size);
+			if (width == 0) {
+				double[] values = new double[size];
+				buf.asDoubleBuffer().get(values);
+				buf.position(buf.position() + 8 * size);
+				for (int i = 0; i < size; i++)
+					((VCDSignal<DoubleVal>) signal).addSignalChange(times[i], new DoubleVal(values[i]));
+			} else if (width <= BitVector.MAX_PACKED_WIDTH) {
+				long[] values = readLongs(buf, size);
+				for (int i = 0; i < size; i++)
+					signal.addSignalChange(times[i], values[i]);
+			} else {
+				int words = (width + 31) / 32;
+				long[] values = readLongs(buf, size * words);
+				for (int i = 0; i < size; i++)
+					((VCDSignal<BitVector>) signal).addSignalChange(times[i],
+							BitVector.fromPacked(width, Arrays.copyOfRange(values, i * words, (i + 1) * words)));
+			}
+		}
+	}
+
+	private static long[] readLongs(ByteBuffer buf, int size) {
+		long[] values = new long[size];
+		buf.asLongBuffer().get(values);
+		buf.position(buf.position() + 8 * size);
+		return values;
+	}
+}
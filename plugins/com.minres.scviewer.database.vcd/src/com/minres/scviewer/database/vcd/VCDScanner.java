@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.vcd;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A byte level scanner splitting VCD input into white space separated tokens.
+ * Uncompressed files are memory mapped window by window, streams (e.g. gzip
+ * compressed input) are read in large blocks. Tokens are provided as reusable
+ * {@link ByteSequence} so no String is created unless requested.
+ */
+class VCDScanner implements Closeable {
+
+	/** The size of a memory mapped window. */
+	static final int WINDOW_SIZE = 1 << 26;
+
+	/** The size of the read buffer for streams. */
+	static final int STREAM_BUFFER_SIZE = 1 << 22;
+
+	private final FileChannel channel;
+
+	private final ReadableByteChannel stream;
+
+	/** end of the scanned range in the file (mapped mode) */
+	private final long endOffset;
+
+	/** file offset of the next window to map (mapped mode) */
+	private long nextOffset;
+
+	private ByteBuffer buffer;
+
+	private int pos = 0;
+
+	private int limit = 0;
+
+	private final ByteSequence token = new ByteSequence();
+
+	/** file offset of the current token (mapped mode) */
+	private long tokenOffset;
+
+	private int lineNo = 1;
+
+	/**
+	 * Scans the range [start, end) of a file by memory mapping it.
+	 *
+	 * @param channel the file channel
+	 * @param start   the start offset
+	 * @param end     the end offset
+	 */
+	VCDScanner(FileChannel channel, long start, long end) {
+		this.channel = channel;
+		this.stream = null;
+		this.nextOffset = start;
+		this.endOffset = end;
+	}
+
+	/**
+	 * Scans an input stream.
+	 *
+	 * @param is the input stream
+	 */
+	VCDScanner(InputStream is) {
+		this.channel = null;
+		this.stream = Channels.newChannel(is);
+		this.endOffset = -1;
+		this.buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+	}
+
+	/**
+	 * Reads the next token.
+	 *
+	 * @return true, if a token has been read, false at the end of input
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	boolean nextToken() throws IOException {
+		int b;
+		do {
+			b = read();
+			if (b < 0)
+				return false;
+			if (b == '\n')
+				lineNo++;
+		} while (b <= ' ');
+		tokenOffset = channel != null ? position() - 1 : -1;
+		token.clear();
+		do {
+			token.append(b);
+			b = read();
+		} while (b > ' ');
+		if (b == '\n')
+			lineNo++;
+		return true;
+	}
+
+	/**
+	 * The current token. The content changes with every call of {@link #nextToken()}.
+	 *
+	 * @return the token
+	 */
+	ByteSequence token() {
+		return token;
+	}
+
+	/**
+	 * The file offset of the current token, only available for mapped files.
+	 *
+	 * @return the offset or -1
+	 */
+	long tokenOffset() {
+		return tokenOffset;
+	}
+
+	/**
+	 * The file offset of the next byte to be scanned, only available for mapped files.
+	 *
+	 * @return the offset or -1
+	 */
+	long position() {
+		return channel != null ? nextOffset - (limit - pos) : -1;
+	}
+
+	/**
+	 * The file channel, only available for mapped files.
+	 *
+	 * @return the channel or null
+	 */
+	FileChannel channel() {
+		return channel;
+	}
+
+	/**
+	 * The end of the scanned range, only available for mapped files.
+	 *
+	 * @return the offset or -1
+	 */
+	long endOffset() {
+		return endOffset;
+	}
+
+	/**
+	 * The current line number.
+	 *
+	 * @return the line number
+	 */
+	int lineNo() {
+		return lineNo;
+	}
+
+	/**
+	 * Finds the start of the first timestamp token at or after from. A timestamp is
+	 * only recognized at the start of a line since a '#' might also start an
+	 * identifier code.
+	 *
+	 * @param channel the file channel
+	 * @param from    the offset to start searching
+	 * @param end     the offset to stop searching
+	 * @return the offset of the '#' or end if there is none
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static long findTimestamp(FileChannel channel, long from, long end) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+		// we need to look at the byte before from to check for a line start
+		long offset = Math.max(0, from - 1);
+		int prev = -1;
+		while (offset < end) {
+			buf.clear();
+			buf.limit((int) Math.min(buf.capacity(), end - offset));
+			int read = channel.read(buf, offset);
+			if (read <= 0)
+				break;
+			for (int i = 0; i < read; i++) {
+				int b = buf.get(i);
+				if (b == '#' && prev == '\n' && offset + i >= from)
+					return offset + i;
+				prev = b;
+			}
+			offset += read;
+		}
+		return end;
+	}
+
+	private int read() throws IOException {
+		if (pos >= limit && !fill())
+			return -1;
+		return buffer.get(pos++) & 0xff;
+	}
+
+	private boolean fill() throws IOException {
+		if (channel != null) {
+			if (nextOffset >= endOffset)
+				return false;
+			long size = Math.min(WINDOW_SIZE, endOffset - nextOffset);
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, nextOffset, size);
+			nextOffset += size;
+			limit = (int) size;
+		} else {
+			buffer.clear();
+			int read;
+			do {
+				read = stream.read(buffer);
+			} while (read == 0);
+			if (read < 0)
+				return false;
+			limit = read;
+		}
+		pos = 0;
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (stream != null)
+			stream.close();
+	}
+}
@@ -12,11 +12,12 @@ package com.minres.scviewer.database.vcd;
 
 import com.minres.scviewer.database.DirectionType;
 import com.minres.scviewer.database.EventEntry;
-import com.minres.scviewer.database.EventList;
 import com.minres.scviewer.database.HierNode;
 import com.minres.scviewer.database.IEvent;
 import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
+import com.minres.scviewer.database.PrimitiveEventList;
+import com.minres.scviewer.database.SignalEventList;
 import com.minres.scviewer.database.WaveformType;
 
 public class VCDSignal<T extends IEvent> extends HierNode implements IWaveform {
@@ -28,6 +29,12 @@ public class VCDSignal<T extends IEvent> extends HierNode implements IWaveform {
 	private final int width;
 
 	private IEventList values;
+
+	/** the signal owning the values, this if the values are not shared */
+	private final VCDSignal<T> origin;
+
+	/** the loader decoding the values on first access, null if they are available */
+	private volatile VCDDbLoader loader = null;
 	
 	public VCDSignal(String name) {
 		this(0, name, 1);
@@ -42,7 +49,8 @@ public class VCDSignal<T extends IEvent> extends HierNode implements IWaveform {
 		fullName=name;
 		this.id=id;
 		this.width=width;
-		this.values=new EventList();
+		this.values=width>0?new SignalEventList(width):new PrimitiveEventList();
+		this.origin=this;
 	}
 
 	public VCDSignal(VCDSignal<T> o, int id, String name) {
@@ -51,6 +59,7 @@ public class VCDSignal<T extends IEvent> extends HierNode implements IWaveform {
 		this.id=id;
 		this.width=o.width;
 		this.values=o.values;
+		this.origin=o;
 	}
 
 	@Override
@@ -70,24 +79,69 @@ public class VCDSignal<T extends IEvent> extends HierNode implements IWaveform {
 	public void addSignalChange(Long time, T value){
 		values.put(time, value);
 	}
+
+	public void addSignalChange(long time, long packedValue){
+		((SignalEventList)values).putPacked(time, packedValue);
+	}
 	
+	/**
+	 * Gets the signal owning the values.
+	 *
+	 * @return the signal, this if the values are not shared
+	 */
+	VCDSignal<T> getOrigin() {
+		return origin;
+	}
+
+	/**
+	 * Gets the values without decoding them.
+	 *
+	 * @return the values, incomplete until the signal is materialized
+	 */
+	IEventList getValues() {
+		return values;
+	}
+
+	/**
+	 * Lets the values be decoded by the loader on first access.
+	 *
+	 * @param loader the loader or null if the values are available
+	 */
+	void setLoader(VCDDbLoader loader) {
+		this.loader=loader;
+	}
+
+	/**
+	 * Checks if the values are available.
+	 *
+	 * @return true, if the values need not to be decoded
+	 */
+	boolean isMaterialized() {
+		return loader==null;
+	}
+
 	@Override
 	public IEventList getEvents() {
+		if(origin!=this)
+			return origin.getEvents();
+		VCDDbLoader l = loader;
+		if(l!=null)
+			l.materialize(this);
 		return values;
 	}
 
 	@Override
 	public IEvent[] getEventsAtTime(long time) {
-		return values.get(time);
+		return getEvents().get(time);
 	}
 
     @Override
     public IEvent[] getEventsBeforeTime(long time) {
-    	EventEntry e = values.floorEntry(time);
+    	EventEntry e = getEvents().floorEntry(time);
     	if(e==null)
     		return new IEvent[] {};
     	else
-    		return values.floorEntry(time).events;
+    		return e.events;
     }
 
 	@Override
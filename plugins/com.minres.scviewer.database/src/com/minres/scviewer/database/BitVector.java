@@ -18,6 +18,9 @@ import java.util.Arrays;
  */
 public class BitVector implements IEvent {
 
+	/** The maximum width of a bit vector which can be packed into a long (2 bits per bit). */
+	public static final int MAX_PACKED_WIDTH = 32;
+
 	/** The width. */
 	private final int width;
 
@@ -36,7 +39,7 @@ public class BitVector implements IEvent {
 			packedValues[i] = 0;
 	}
 
-	public static BitVector fromString(int netWidth, String value){
+	public static BitVector fromString(int netWidth, CharSequence value){
 		BitVector bv = new BitVector(netWidth);
 		int stringIndex = 0;
 		for (int convertedIndex = netWidth -1; convertedIndex >=0; convertedIndex--) {
@@ -67,6 +70,92 @@ public class BitVector implements IEvent {
 		}
 		return bv;
 	}
+	/**
+	 * Packs the value string into a long using the 2-bit-per-bit encoding of {@link BitValue}
+	 * without creating a bit vector. The conversion follows {@link #fromString(int, CharSequence)}.
+	 *
+	 * @param netWidth the net width, must not exceed {@link #MAX_PACKED_WIDTH}
+	 * @param value    the value string
+	 * @return the packed value
+	 */
+	public static long pack(int netWidth, CharSequence value) {
+		long packed = 0;
+		int stringIndex = 0;
+		for (int convertedIndex = netWidth -1; convertedIndex >=0; convertedIndex--) {
+			if(convertedIndex<value.length()) {
+				long bitValue;
+				switch (value.charAt(stringIndex++)) {
+				case '0':
+					bitValue = 0;
+					break;
+				case '1':
+					bitValue = 1;
+					break;
+				case 'z':
+					bitValue = 3;
+					break;
+				default:
+					bitValue = 2;
+				}
+				packed |= bitValue << (convertedIndex * 2);
+			}
+		}
+		return packed;
+	}
+
+	/**
+	 * Creates a bit vector from a value packed by {@link #pack(int, CharSequence)} or {@link #toPacked()}.
+	 *
+	 * @param netWidth the net width, must not exceed {@link #MAX_PACKED_WIDTH}
+	 * @param packed   the packed value
+	 * @return the bit vector
+	 */
+	public static BitVector fromPacked(int netWidth, long packed) {
+		BitVector bv = new BitVector(netWidth);
+		for (int i = 0; i < bv.packedValues.length; i++)
+			bv.packedValues[i] = (int) (packed >>> (i * 32));
+		return bv;
+	}
+
+	/**
+	 * Creates a bit vector of arbitrary width from values packed into longs, each long
+	 * holds 32 bits in the format of {@link #pack(int, CharSequence)}.
+	 *
+	 * @param netWidth the net width
+	 * @param packed   the packed values starting with the least significant bits
+	 * @return the bit vector
+	 */
+	public static BitVector fromPacked(int netWidth, long[] packed) {
+		BitVector bv = new BitVector(netWidth);
+		for (int i = 0; i < bv.packedValues.length; i++)
+			bv.packedValues[i] = (int) (packed[i / 2] >>> ((i % 2) * 32));
+		return bv;
+	}
+
+	/**
+	 * Returns the value packed into a long, only valid if the width does not exceed {@link #MAX_PACKED_WIDTH}.
+	 *
+	 * @return the packed value
+	 */
+	public long toPacked() {
+		long packed = 0;
+		for (int i = 0; i < packedValues.length && i < 2; i++)
+			packed |= (packedValues[i] & 0xffffffffL) << (i * 32);
+		return packed;
+	}
+
+	/**
+	 * Returns the value packed into longs in the format of {@link #fromPacked(int, long[])}.
+	 *
+	 * @return the packed values starting with the least significant bits
+	 */
+	public long[] toPackedArray() {
+		long[] packed = new long[(width + 31) / 32];
+		for (int i = 0; i < packedValues.length; i++)
+			packed[i / 2] |= (packedValues[i] & 0xffffffffL) << ((i % 2) * 32);
+		return packed;
+	}
+
 	/**
 	 * Sets the value.
 	 *
@@ -228,6 +317,21 @@ public class BitVector implements IEvent {
 		}
 	}
 
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof BitVector))
+			return false;
+		BitVector other = (BitVector) obj;
+		return width == other.width && Arrays.equals(packedValues, other.packedValues);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * width + Arrays.hashCode(packedValues);
+	}
+
 	/**
 	 * Gets the kind.
 	 *
@@ -27,6 +27,20 @@ public class DoubleVal implements IEvent {
 		this.value = value;
 	}
 
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof DoubleVal))
+			return false;
+		return Double.compare(value, ((DoubleVal) obj).value) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return Double.hashCode(value);
+	}
+
 	/**
 	 * Gets the kind.
 	 *
@@ -90,7 +90,7 @@ public class EmptyWaveform implements IWaveform {
 
 	@Override
 	public IEventList getEvents() {
-		return new EventList();
+		return new PrimitiveEventList();
 	}
 
 	@Override
@@ -0,0 +1,100 @@
+package com.minres.scviewer.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A pool of distinct event arrays. Each distinct value is stored once and
+ * referenced by its index so the memory scales with the number of distinct
+ * values instead of the number of value changes. Bit vectors not wider than
+ * {@link BitVector#MAX_PACKED_WIDTH} are keyed by their packed representation
+ * in a primitive open addressing table.
+ */
+class EventValuePool {
+
+	private final int width;
+
+	private final ArrayList<IEvent[]> values = new ArrayList<>();
+
+	private final HashMap<Object, Integer> indexByValue = new HashMap<>();
+
+	private long[] packedKeys = new long[16];
+
+	/** index+1 of the value, 0 marks an empty slot */
+	private int[] packedIndex = new int[16];
+
+	private int packedCount = 0;
+
+	EventValuePool(int width) {
+		this.width = width;
+	}
+
+	IEvent[] get(int idx) {
+		return values.get(idx);
+	}
+
+	int size() {
+		return values.size();
+	}
+
+	int intern(IEvent[] evts) {
+		if (evts.length == 1 && evts[0] instanceof BitVector && isPackable((BitVector) evts[0]))
+			return internPacked(((BitVector) evts[0]).toPacked(), evts);
+		Object key = evts.length == 1 ? evts[0] : Arrays.asList(evts);
+		Integer idx = indexByValue.get(key);
+		if (idx == null) {
+			idx = values.size();
+			values.add(evts);
+			indexByValue.put(key, idx);
+		}
+		return idx;
+	}
+
+	int internPacked(long packed) {
+		return internPacked(packed, null);
+	}
+
+	private boolean isPackable(BitVector bv) {
+		return bv.getWidth() == width && width > 0 && width <= BitVector.MAX_PACKED_WIDTH;
+	}
+
+	private int internPacked(long packed, IEvent[] evts) {
+		int mask = packedKeys.length - 1;
+		int pos = hash(packed) & mask;
+		while (packedIndex[pos] != 0) {
+			if (packedKeys[pos] == packed)
+				return packedIndex[pos] - 1;
+			pos = (pos + 1) & mask;
+		}
+		int idx = values.size();
+		values.add(evts != null ? evts : new IEvent[] { BitVector.fromPacked(width, packed) });
+		packedKeys[pos] = packed;
+		packedIndex[pos] = idx + 1;
+		if (++packedCount * 2 > packedKeys.length)
+			rehash();
+		return idx;
+	}
+
+	private void rehash() {
+		long[] oldKeys = packedKeys;
+		int[] oldIndex = packedIndex;
+		packedKeys = new long[oldKeys.length * 2];
+		packedIndex = new int[oldIndex.length * 2];
+		int mask = packedKeys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldIndex[i] != 0) {
+				int pos = hash(oldKeys[i]) & mask;
+				while (packedIndex[pos] != 0)
+					pos = (pos + 1) & mask;
+				packedKeys[pos] = oldKeys[i];
+				packedIndex[pos] = oldIndex[i];
+			}
+		}
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -11,6 +11,7 @@
 package com.minres.scviewer.database;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -52,6 +53,13 @@ public interface IWaveformDb extends IHierNode {
 	 */
 	public List<RelationType> getAllRelationTypes();
 
+	/**
+	 * Loads the events of several waveforms at once, e.g. before they are added to a view.
+	 *
+	 * @param waveforms the waveforms
+	 */
+	public void loadEvents(Collection<IWaveform> waveforms);
+
 	/**
 	 * Load.
 	 *
@@ -60,6 +68,15 @@ public interface IWaveformDb extends IHierNode {
 	 */
 	public boolean load(File inp);
 
+	/**
+	 * Sets an option passed to the loaders of the files loaded afterwards.
+	 *
+	 * @param name  the name of the option, see {@link IWaveformDbLoader}
+	 * @param value the value
+	 */
+	public default void setLoaderOption(String name, Object value) {
+	}
+
 	/**
 	 * Checks if is loaded.
 	 *
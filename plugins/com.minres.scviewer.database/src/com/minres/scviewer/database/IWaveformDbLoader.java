@@ -30,6 +30,9 @@ public interface IWaveformDbLoader {
 	
 	/** The Constant LOADING_FINISHED. */
 	static final String LOADING_FINISHED = "LoadingFinished";
+
+	/** The option holding the size of the cache of decompressed chunks in MiB, 0 disables the cache. */
+	static final String CHUNK_CACHE_SIZE = "ChunkCacheSize";
 	/**
 	 * Attach a non-null PropertyChangeListener to this object.
 	 * 
@@ -78,6 +81,26 @@ public interface IWaveformDbLoader {
 	 */
 	public Collection<RelationType> getAllRelationTypes();
 
+	/**
+	 * Loads the events of several waveforms at once. Loaders reading the events on
+	 * first access can use this to read them in a single pass over the input instead
+	 * of one pass per waveform.
+	 *
+	 * @param waveforms the waveforms, waveforms not provided by this loader are ignored
+	 */
+	public default void loadEvents(Collection<IWaveform> waveforms) {
+	}
+
+	/**
+	 * Sets an option applying to the files loaded afterwards. Loaders ignore
+	 * options they do not support.
+	 *
+	 * @param name  the name of the option
+	 * @param value the value
+	 */
+	public default void setOption(String name, Object value) {
+	}
+
 	/**
 	 * Dispose.
 	 */
@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent binary index of a database file. Loaders store what they parsed
+ * in a format specific layout and map it instead of parsing the file again when
+ * it is reopened. The index files are kept in a cache directory and are keyed by
+ * the path, size, modification time and a hash of the header of the input, any
+ * change of the input invalidates the index.
+ * <p>
+ * The cache is enabled using the system property ScvIndexCache=true. The
+ * directory can be set using the system property ScvIndexCacheDir and defaults
+ * to .cache/scviewer in the home directory of the user. The size of all index
+ * files is limited to ScvIndexCacheSize MiB (1024 by default), the least
+ * recently used ones are removed once a new index exceeds it. Only the index
+ * files, named by the suffix .scvi, are counted and removed. Indexes are
+ * written in the background after loading, a write is aborted as soon as the
+ * index would not fit.
+ */
+public class IndexCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(IndexCache.class);
+
+	private static final int MAGIC = 0x53435649; // SCVI
+
+	/** The default size limit of the cache directory in MiB. */
+	private static final long DEFAULT_CACHE_SIZE = 1024;
+
+	/** writes the indexes one after the other at low priority */
+	private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "IndexCacheWriter");
+		t.setDaemon(true);
+		t.setPriority(Thread.MIN_PRIORITY);
+		return t;
+	});
+
+	/** the writes not finished yet by index file */
+	private static final Map<File, Future<Boolean>> pendingWrites = new ConcurrentHashMap<>();
+
+	/** The suffix of the index files, other files of the cache directory are left alone. */
+	private static final String SUFFIX = ".scvi";
+
+	/** The number of bytes at the start of the input being hashed. */
+	private static final int HEADER_SIZE = 1 << 16;
+
+	/**
+	 * Writes the content of an index.
+	 */
+	@FunctionalInterface
+	public interface IndexWriter {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	private final File indexFile;
+
+	private final String format;
+
+	private final int version;
+
+	private final String path;
+
+	private final long size;
+
+	private final long lastModified;
+
+	private final long headerHash;
+
+	private volatile boolean cancelled = false;
+
+	private Future<Boolean> pending = null;
+
+	private IndexCache(File indexFile, String format, int version, String path, long size, long lastModified, long headerHash) {
+		this.indexFile = indexFile;
+		this.format = format;
+		this.version = version;
+		this.path = path;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.headerHash = headerHash;
+	}
+
+	/**
+	 * Gets the index of a database file. The key is taken when calling this method so
+	 * an index written later on describes the input as of now.
+	 *
+	 * @param input   the database file
+	 * @param format  the name of the index format
+	 * @param version the version of the index format
+	 * @return the index or null if the cache is disabled or the input cannot be read
+	 */
+	public static IndexCache of(File input, String format, int version) {
+		if (!isEnabled())
+			return null;
+		try {
+			String path = input.getCanonicalPath();
+			long lastModified = input.lastModified();
+			long size = input.length();
+			CRC32 crc = new CRC32();
+			try (InputStream is = new FileInputStream(input)) {
+				byte[] header = is.readNBytes(HEADER_SIZE);
+				crc.update(header);
+			}
+			String name = UUID.nameUUIDFromBytes(path.getBytes(StandardCharsets.UTF_8)).toString() + "." + format + SUFFIX;
+			return new IndexCache(new File(getCacheDir(), name), format, version, path, size, lastModified, crc.getValue());
+		} catch (IOException | SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Checks if the cache is enabled using the system property ScvIndexCache.
+	 *
+	 * @return true, if enabled
+	 */
+	public static boolean isEnabled() {
+		return Boolean.getBoolean("ScvIndexCache");
+	}
+
+	/** the size limit of the cache directory in bytes, a single index is also limited to what a buffer can map */
+	private static long getCacheSize() {
+		return Math.max(0, Long.getLong("ScvIndexCacheSize", DEFAULT_CACHE_SIZE)) << 20;
+	}
+
+	private static File getCacheDir() {
+		String dir = System.getProperty("ScvIndexCacheDir");
+		return dir != null ? new File(dir) : new File(new File(System.getProperty("user.home"), ".cache"), "scviewer");
+	}
+
+	/**
+	 * Maps the index if it exists and matches the input. If the index is just being
+	 * written the write is awaited.
+	 *
+	 * @return the content of the index or null if there is no valid index
+	 */
+	public ByteBuffer read() {
+		Future<Boolean> write = pendingWrites.get(indexFile);
+		if (write != null) {
+			try {
+				write.get();
+			} catch (ExecutionException e) {
+				return null;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+		if (!indexFile.isFile())
+			return null;
+		try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				return null;
+			ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buf.getInt() != MAGIC || buf.getInt() != version || !format.equals(readString(buf))
+					|| !path.equals(readString(buf)) || buf.getLong() != size || buf.getLong() != lastModified
+					|| buf.getLong() != headerHash)
+				return null;
+			indexFile.setLastModified(System.currentTimeMillis());
+			return buf.slice();
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the index in the background. The writer runs on another thread, so it
+	 * may only read state which does not change until the write is finished or
+	 * {@link #cancel()} returned.
+	 *
+	 * @param writer the writer of the content
+	 */
+	public synchronized void writeAsync(IndexWriter writer) {
+		cancelled = false;
+		FutureTask<Boolean> task = new FutureTask<>(() -> write(writer)) {
+			@Override
+			protected void done() {
+				pendingWrites.remove(indexFile, this);
+			}
+		};
+		pending = task;
+		pendingWrites.put(indexFile, task);
+		IndexCache.writer.execute(task);
+	}
+
+	/**
+	 * Cancels a background write and waits until it is finished.
+	 */
+	public synchronized void cancel() {
+		if (pending == null)
+			return;
+		cancelled = true;
+		try {
+			pending.get();
+		} catch (ExecutionException e) {
+			// the write failed anyway
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		pending = null;
+	}
+
+	/**
+	 * Writes the index. The content is written to a temporary file which replaces
+	 * the index once complete, a failure leaves no index behind. The write is
+	 * aborted as soon as the index exceeds the size limit.
+	 *
+	 * @param writer the writer of the content
+	 * @return true, if the index has been written
+	 */
+	public boolean write(IndexWriter writer) {
+		File tmpFile = null;
+		long limit = Math.min(Integer.MAX_VALUE, getCacheSize());
+		try {
+			File dir = indexFile.getParentFile();
+			Files.createDirectories(dir.toPath());
+			tmpFile = File.createTempFile(indexFile.getName(), ".tmp", dir);
+			OutputStream os = new LimitedOutputStream(new FileOutputStream(tmpFile), limit);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(version);
+				writeString(out, format);
+				writeString(out, path);
+				out.writeLong(size);
+				out.writeLong(lastModified);
+				out.writeLong(headerHash);
+				writer.write(out);
+			}
+			Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			tmpFile = null;
+			evict(indexFile.getParentFile(), indexFile);
+			return true;
+		} catch (IOException | RuntimeException e) {
+			if (!cancelled)
+				LOG.info("index of " + path + " not cached: " + e.getMessage());
+			return false;
+		} finally {
+			if (tmpFile != null)
+				tmpFile.delete();
+		}
+	}
+
+	/**
+	 * Removes the least recently used index files of the cache directory until
+	 * they fit the size limit, the latest index is kept. Other files, including
+	 * the temporary files of writes in progress, are neither counted nor removed.
+	 */
+	private static void evict(File dir, File latest) {
+		File[] files = dir.listFiles(f -> f.isFile() && f.getName().endsWith(SUFFIX));
+		if (files == null)
+			return;
+		long total = 0;
+		for (File f : files)
+			total += f.length();
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		long limit = getCacheSize();
+		for (int i = 0; i < files.length && total > limit; i++) {
+			long length = files[i].length();
+			if (!files[i].equals(latest) && files[i].delete())
+				total -= length;
+		}
+	}
+
+	/**
+	 * An output stream failing once more than a limit of bytes is written or the
+	 * write of the index is cancelled.
+	 */
+	private class LimitedOutputStream extends FilterOutputStream {
+
+		private final long limit;
+
+		private long count = 0;
+
+		LimitedOutputStream(OutputStream out, long limit) {
+			super(out);
+			this.limit = limit;
+		}
+
+		private void check(int len) throws IOException {
+			if (cancelled)
+				throw new IOException("cancelled");
+			count += len;
+			if (count > limit)
+				throw new IOException("index exceeds " + limit + " bytes");
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			check(1);
+			out.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			check(len);
+			out.write(b, off, len);
+		}
+	}
+
+	/**
+	 * Writes a string of arbitrary length as UTF-8.
+	 *
+	 * @param out the output
+	 * @param s   the string
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void writeString(DataOutput out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a string written by {@link #writeString(DataOutput, String)}.
+	 *
+	 * @param buf the buffer
+	 * @return the string
+	 */
+	public static String readString(ByteBuffer buf) {
+		byte[] bytes = new byte[buf.getInt()];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
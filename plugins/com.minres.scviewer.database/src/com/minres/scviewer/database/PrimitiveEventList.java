@@ -0,0 +1,332 @@
+package com.minres.scviewer.database;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+
+/**
+ * An {@link IEventList} storing the (unsigned) timestamps in primitive long arrays
+ * with the events kept in a parallel column. The columns are allocated in fixed
+ * size chunks so appending never copies already stored data. All lookups are
+ * binary searches on the primitive timestamps and do not allocate a search key.
+ */
+public class PrimitiveEventList implements IEventList {
+
+	static final int CHUNK_BITS = 12;
+
+	static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/**
+	 * The column holding the events of each timestamp.
+	 */
+	abstract static class EventColumn {
+
+		abstract IEvent[] get(int idx);
+
+		abstract void set(int idx, IEvent[] evts);
+
+		abstract void move(int from, int to);
+
+		abstract void addChunk(int chunk);
+	}
+
+	/**
+	 * An event column keeping the event arrays as they are.
+	 */
+	static class ObjectColumn extends EventColumn {
+
+		IEvent[][][] events = new IEvent[0][][];
+
+		@Override
+		IEvent[] get(int idx) {
+			return events[idx >> CHUNK_BITS][idx & CHUNK_MASK];
+		}
+
+		@Override
+		void set(int idx, IEvent[] evts) {
+			events[idx >> CHUNK_BITS][idx & CHUNK_MASK] = evts;
+		}
+
+		@Override
+		void move(int from, int to) {
+			set(to, get(from));
+		}
+
+		@Override
+		void addChunk(int chunk) {
+			events = Arrays.copyOf(events, chunk + 1);
+			events[chunk] = new IEvent[CHUNK_SIZE][];
+		}
+	}
+
+	/**
+	 * The columnar storage shared between a list and all of its sub lists.
+	 */
+	static class Store {
+
+		long[][] timestamps = new long[0][];
+
+		final EventColumn events;
+
+		int size = 0;
+
+		Store(EventColumn events) {
+			this.events = events;
+		}
+
+		long getTime(int idx) {
+			return timestamps[idx >> CHUNK_BITS][idx & CHUNK_MASK];
+		}
+
+		IEvent[] getEvents(int idx) {
+			return events.get(idx);
+		}
+
+		void grow() {
+			int chunks = timestamps.length;
+			if ((size >> CHUNK_BITS) < chunks)
+				return;
+			timestamps = Arrays.copyOf(timestamps, chunks + 1);
+			timestamps[chunks] = new long[CHUNK_SIZE];
+			events.addChunk(chunks);
+		}
+
+		/**
+		 * Returns the index of the key. If the key is not yet stored a slot is
+		 * created and -(index + 1) is returned, the caller needs to fill the event column.
+		 */
+		int slot(long key) {
+			if (size == 0 || Long.compareUnsigned(getTime(size - 1), key) < 0) {
+				grow();
+				timestamps[size >> CHUNK_BITS][size & CHUNK_MASK] = key;
+				return -(++size);
+			}
+			int index = search(0, size, key);
+			if (index >= 0)
+				return index;
+			int insertAt = -(index + 1);
+			grow();
+			for (int i = size; i > insertAt; i--) {
+				timestamps[i >> CHUNK_BITS][i & CHUNK_MASK] = getTime(i - 1);
+				events.move(i - 1, i);
+			}
+			timestamps[insertAt >> CHUNK_BITS][insertAt & CHUNK_MASK] = key;
+			size++;
+			return index;
+		}
+
+		/**
+		 * Binary search in the range [from, to). Returns the index of the key or
+		 * -(insertion point + 1) if not found, like {@link Arrays#binarySearch(long[], long)}.
+		 */
+		int search(int from, int to, long key) {
+			int low = from;
+			int high = to - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int cmp = Long.compareUnsigned(getTime(mid), key);
+				if (cmp < 0)
+					low = mid + 1;
+				else if (cmp > 0)
+					high = mid - 1;
+				else
+					return mid;
+			}
+			return -(low + 1);
+		}
+	}
+
+	final Store store;
+
+	final int start;
+
+	final int end;
+
+	final boolean unmodifiable;
+
+	public PrimitiveEventList() {
+		this(new ObjectColumn());
+	}
+
+	PrimitiveEventList(EventColumn column) {
+		this.store = new Store(column);
+		this.start = 0;
+		this.end = -1;
+		this.unmodifiable = false;
+	}
+
+	PrimitiveEventList(Store store, int start, int end) {
+		this.store = store;
+		this.start = start;
+		this.end = end;
+		this.unmodifiable = true;
+	}
+
+	/**
+	 * The end index (exclusive) of this list, the full list always spans the whole store.
+	 */
+	private int end() {
+		return unmodifiable ? end : store.size;
+	}
+
+	private EventEntry entry(int idx) {
+		return new EventEntry(store.getTime(idx), store.getEvents(idx));
+	}
+
+	private int ceilingIndex(long key) {
+		int index = store.search(start, end(), key);
+		return index < 0 ? -(index + 1) : index;
+	}
+
+	private int higherIndex(long key) {
+		int index = store.search(start, end(), key);
+		return index < 0 ? -(index + 1) : index + 1;
+	}
+
+	private int floorIndex(long key) {
+		int index = store.search(start, end(), key);
+		return index < 0 ? -(index + 1) - 1 : index;
+	}
+
+	private int lowerIndex(long key) {
+		int index = store.search(start, end(), key);
+		return index < 0 ? -(index + 1) - 1 : index - 1;
+	}
+
+	@Override
+	public IEventList subMap(long from, boolean includeFrom, long to) {
+		int startIndex = includeFrom ? ceilingIndex(from) : higherIndex(from);
+		int endIndex = floorIndex(to) + 1;
+		return new PrimitiveEventList(store, startIndex, Math.max(startIndex, endIndex));
+	}
+
+	@Override
+	public int size() {
+		return end() - start;
+	}
+
+	@Override
+	public boolean containsKey(long key) {
+		return store.search(start, end(), key) >= 0;
+	}
+
+	@Override
+	public IEvent[] get(long key) {
+		int index = store.search(start, end(), key);
+		return index < 0 ? null : store.getEvents(index);
+	}
+
+	@Override
+	public void put(long key, IEvent value) {
+		if (unmodifiable)
+			throw new UnsupportedOperationException();
+		int index = store.slot(key);
+		if (index < 0) {
+			store.events.set(-(index + 1), new IEvent[] { value });
+		} else {
+			IEvent[] evts = store.getEvents(index);
+			IEvent[] newEvts = Arrays.copyOf(evts, evts.length + 1);
+			newEvts[evts.length] = value;
+			store.events.set(index, newEvts);
+		}
+	}
+
+	@Override
+	public Collection<EventEntry> entrySet() {
+		final int first = start;
+		final int last = end();
+		return Collections.unmodifiableList(new AbstractList<EventEntry>() {
+			@Override
+			public EventEntry get(int index) {
+				if (index < 0 || index >= last - first)
+					throw new IndexOutOfBoundsException("Index: " + index);
+				return entry(first + index);
+			}
+
+			@Override
+			public int size() {
+				return last - first;
+			}
+		});
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public long firstKey() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return store.getTime(start);
+	}
+
+	@Override
+	public long lastKey() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return store.getTime(end() - 1);
+	}
+
+	// Navigable map functions
+	@Override
+	public EventEntry firstEntry() {
+		return isEmpty() ? null : entry(start);
+	}
+
+	@Override
+	public EventEntry lastEntry() {
+		return isEmpty() ? null : entry(end() - 1);
+	}
+
+	@Override
+	public EventEntry floorEntry(long key) {
+		int index = floorIndex(key);
+		return index < start ? null : entry(index);
+	}
+
+	@Override
+	public EventEntry ceilingEntry(long key) {
+		int index = ceilingIndex(key);
+		return index >= end() ? null : entry(index);
+	}
+
+	@Override
+	public EventEntry lowerEntry(long key) {
+		int index = lowerIndex(key);
+		return index < start ? null : entry(index);
+	}
+
+	@Override
+	public EventEntry higherEntry(long key) {
+		int index = higherIndex(key);
+		return index >= end() ? null : entry(index);
+	}
+
+	@Override
+	public java.util.Iterator<EventEntry> iterator() {
+		final int last = end();
+		return new java.util.Iterator<EventEntry>() {
+
+			private int pos = start;
+
+			@Override
+			public boolean hasNext() {
+				return pos < last;
+			}
+
+			@Override
+			public EventEntry next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return entry(pos++);
+			}
+		};
+	}
+
+}
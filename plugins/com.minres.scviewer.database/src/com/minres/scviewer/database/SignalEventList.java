@@ -0,0 +1,110 @@
+package com.minres.scviewer.database;
+
+import java.util.Arrays;
+
+/**
+ * A {@link PrimitiveEventList} for signal values. Instead of an event array per
+ * timestamp it stores an int index into a pool of distinct values, so repeated
+ * values (e.g. a toggling clock) are kept only once. All events returned for
+ * equal values are the same canonical instances and must not be modified.
+ */
+public class SignalEventList extends PrimitiveEventList {
+
+	/**
+	 * An event column storing indexes into a value pool.
+	 */
+	static class PooledColumn extends EventColumn {
+
+		final EventValuePool pool;
+
+		int[][] indexes = new int[0][];
+
+		PooledColumn(int width) {
+			pool = new EventValuePool(width);
+		}
+
+		@Override
+		IEvent[] get(int idx) {
+			return pool.get(indexes[idx >> CHUNK_BITS][idx & CHUNK_MASK]);
+		}
+
+		@Override
+		void set(int idx, IEvent[] evts) {
+			setIndex(idx, pool.intern(evts));
+		}
+
+		void setIndex(int idx, int valueIdx) {
+			indexes[idx >> CHUNK_BITS][idx & CHUNK_MASK] = valueIdx;
+		}
+
+		@Override
+		void move(int from, int to) {
+			setIndex(to, indexes[from >> CHUNK_BITS][from & CHUNK_MASK]);
+		}
+
+		@Override
+		void addChunk(int chunk) {
+			indexes = Arrays.copyOf(indexes, chunk + 1);
+			indexes[chunk] = new int[CHUNK_SIZE];
+		}
+	}
+
+	private final int width;
+
+	/**
+	 * Instantiates a new signal event list.
+	 *
+	 * @param width the width of the bit vectors stored, 0 for real values
+	 */
+	public SignalEventList(int width) {
+		super(new PooledColumn(width));
+		this.width = width;
+	}
+
+	/**
+	 * Gets the width of the stored values.
+	 *
+	 * @return the width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Checks if values can be added using {@link #putPacked(long, long)}.
+	 *
+	 * @return true, if the width allows packed values
+	 */
+	public boolean isPackable() {
+		return width > 0 && width <= BitVector.MAX_PACKED_WIDTH;
+	}
+
+	/**
+	 * Adds a bit vector value given in the packed 2-bit-per-bit encoding (see
+	 * {@link BitVector#pack(int, CharSequence)}). A bit vector is only created if the
+	 * value has not been seen before.
+	 *
+	 * @param key    the timestamp
+	 * @param packed the packed value
+	 */
+	public void putPacked(long key, long packed) {
+		if (unmodifiable || !isPackable())
+			throw new UnsupportedOperationException();
+		PooledColumn column = (PooledColumn) store.events;
+		int valueIdx = column.pool.internPacked(packed);
+		int index = store.slot(key);
+		if (index < 0)
+			column.setIndex(-(index + 1), valueIdx);
+		else
+			put(key, column.pool.get(valueIdx)[0]);
+	}
+
+	/**
+	 * Gets the number of distinct values stored.
+	 *
+	 * @return the value count
+	 */
+	public int getDistinctValueCount() {
+		return ((PooledColumn) store.events).pool.size();
+	}
+}
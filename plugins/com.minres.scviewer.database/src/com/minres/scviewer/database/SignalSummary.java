@@ -0,0 +1,399 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A multi-resolution summary of the values of a signal used to paint it when
+ * zoomed out. Each level divides the time axis into buckets of a power of two
+ * width and keeps for each bucket holding value changes their number, the
+ * first and last value, the minimum and maximum value for analog displays and
+ * whether X, Z or NaN values occur. A level has at most half the buckets of the
+ * next finer one, so painting the level whose bucket width is not greater than
+ * a pixel costs a constant per pixel instead of one per value change.
+ */
+public class SignalSummary {
+
+	/** The flag of buckets holding a bit vector with an X bit. */
+	public static final int X = 1;
+
+	/** The flag of buckets holding a bit vector with a Z bit. */
+	public static final int Z = 2;
+
+	/** The flag of buckets holding a NaN value. */
+	public static final int NAN = 4;
+
+	/** The finest level has at most this fraction of the value changes as buckets. */
+	private static final int FIRST_REDUCTION = 8;
+
+	/** The number of values whose analog data is cached while building. */
+	private static final int VALUE_CACHE_SIZE = 1 << 16;
+
+	private static final Map<IWaveform, CompletableFuture<SignalSummary>> summaries = new WeakHashMap<>();
+
+	/**
+	 * The analog data of a value.
+	 */
+	private static final class ValueInfo {
+
+		final double unsigned;
+
+		final double signed;
+
+		final byte flags;
+
+		ValueInfo(IEvent value) {
+			if (value instanceof BitVector) {
+				BitVector bv = (BitVector) value;
+				byte f = 0;
+				for (char c : bv.getValue()) {
+					if (c == 'x' || c == 'X')
+						f |= X;
+					else if (c == 'z' || c == 'Z')
+						f |= Z;
+				}
+				flags = f;
+				unsigned = bv.toUnsignedValue().doubleValue();
+				signed = bv.toSignedValue().doubleValue();
+			} else if (value instanceof DoubleVal) {
+				double v = ((DoubleVal) value).value;
+				flags = Double.isNaN(v) ? (byte) NAN : 0;
+				unsigned = v;
+				signed = v;
+			} else {
+				flags = 0;
+				unsigned = Double.NaN;
+				signed = Double.NaN;
+			}
+		}
+	}
+
+	/**
+	 * One resolution of the summary, the buckets holding value changes in
+	 * ascending order of time.
+	 */
+	public static final class Level {
+
+		private final int shift;
+
+		private int size = 0;
+
+		private long[] begins;
+
+		private long[] ends;
+
+		private int[] counts;
+
+		private IEvent[] firsts;
+
+		private IEvent[] lasts;
+
+		/** minimum and maximum of the unsigned values followed by the ones of the signed values */
+		private double[] ranges;
+
+		private byte[] flags;
+
+		private Level(int shift, int capacity) {
+			this.shift = shift;
+			begins = new long[capacity];
+			ends = new long[capacity];
+			counts = new int[capacity];
+			firsts = new IEvent[capacity];
+			lasts = new IEvent[capacity];
+			ranges = new double[4 * capacity];
+			flags = new byte[capacity];
+		}
+
+		/** adds the values of one timestamp, merging them into the last bucket if it is the same */
+		private void add(long time, IEvent[] values, Map<IEvent, ValueInfo> infos) {
+			if (size == 0 || (begins[size - 1] >> shift) != (time >> shift)) {
+				grow();
+				begins[size] = time;
+				firsts[size] = values[0];
+				ranges[4 * size] = ranges[4 * size + 2] = Double.POSITIVE_INFINITY;
+				ranges[4 * size + 1] = ranges[4 * size + 3] = Double.NEGATIVE_INFINITY;
+				size++;
+			}
+			int i = size - 1;
+			ends[i] = time;
+			counts[i]++;
+			lasts[i] = values[0];
+			for (IEvent value : values) {
+				ValueInfo info = infos.get(value);
+				if (info == null) {
+					if (infos.size() >= VALUE_CACHE_SIZE)
+						infos.clear();
+					info = new ValueInfo(value);
+					infos.put(value, info);
+				}
+				flags[i] |= info.flags;
+				include(i, info.unsigned, info.signed);
+			}
+		}
+
+		/** adds the bucket of a finer level, merging it into the last bucket if it is the same */
+		private void add(Level finer, int j) {
+			if (size == 0 || (begins[size - 1] >> shift) != (finer.begins[j] >> shift)) {
+				grow();
+				begins[size] = finer.begins[j];
+				firsts[size] = finer.firsts[j];
+				ranges[4 * size] = ranges[4 * size + 2] = Double.POSITIVE_INFINITY;
+				ranges[4 * size + 1] = ranges[4 * size + 3] = Double.NEGATIVE_INFINITY;
+				size++;
+			}
+			int i = size - 1;
+			ends[i] = finer.ends[j];
+			counts[i] += finer.counts[j];
+			lasts[i] = finer.lasts[j];
+			flags[i] |= finer.flags[j];
+			for (int k = 0; k < 4; k += 2) {
+				ranges[4 * i + k] = Math.min(ranges[4 * i + k], finer.ranges[4 * j + k]);
+				ranges[4 * i + k + 1] = Math.max(ranges[4 * i + k + 1], finer.ranges[4 * j + k + 1]);
+			}
+		}
+
+		private void include(int i, double unsigned, double signed) {
+			if (!Double.isNaN(unsigned)) {
+				ranges[4 * i] = Math.min(ranges[4 * i], unsigned);
+				ranges[4 * i + 1] = Math.max(ranges[4 * i + 1], unsigned);
+			}
+			if (!Double.isNaN(signed)) {
+				ranges[4 * i + 2] = Math.min(ranges[4 * i + 2], signed);
+				ranges[4 * i + 3] = Math.max(ranges[4 * i + 3], signed);
+			}
+		}
+
+		private void grow() {
+			if (size < begins.length)
+				return;
+			int capacity = Math.max(16, size * 2);
+			resize(capacity);
+		}
+
+		private void resize(int capacity) {
+			begins = Arrays.copyOf(begins, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			counts = Arrays.copyOf(counts, capacity);
+			firsts = Arrays.copyOf(firsts, capacity);
+			lasts = Arrays.copyOf(lasts, capacity);
+			ranges = Arrays.copyOf(ranges, 4 * capacity);
+			flags = Arrays.copyOf(flags, capacity);
+		}
+
+		/**
+		 * Gets the width of the buckets.
+		 *
+		 * @return the width in time units
+		 */
+		public long getWidth() {
+			return 1L << shift;
+		}
+
+		/**
+		 * Gets the number of buckets.
+		 *
+		 * @return the size
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Gets the index of the first bucket with a value change at or after the given
+		 * time.
+		 *
+		 * @param time the time
+		 * @return the index, {@link #size()} if there is none
+		 */
+		public int ceilingIndex(long time) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (ends[mid] < time)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			return low;
+		}
+
+		/**
+		 * Gets the time of the first value change of a bucket.
+		 *
+		 * @param i the index of the bucket
+		 * @return the time
+		 */
+		public long getBegin(int i) {
+			return begins[i];
+		}
+
+		/**
+		 * Gets the time of the last value change of a bucket.
+		 *
+		 * @param i the index of the bucket
+		 * @return the time
+		 */
+		public long getEnd(int i) {
+			return ends[i];
+		}
+
+		/**
+		 * Gets the number of value changes of a bucket.
+		 *
+		 * @param i the index of the bucket
+		 * @return the count
+		 */
+		public int getCount(int i) {
+			return counts[i];
+		}
+
+		/**
+		 * Gets the value of the first value change of a bucket.
+		 *
+		 * @param i the index of the bucket
+		 * @return the value
+		 */
+		public IEvent getFirst(int i) {
+			return firsts[i];
+		}
+
+		/**
+		 * Gets the value of the last value change of a bucket, the value of the signal
+		 * after the bucket.
+		 *
+		 * @param i the index of the bucket
+		 * @return the value
+		 */
+		public IEvent getLast(int i) {
+			return lasts[i];
+		}
+
+		/**
+		 * Gets the minimum value of a bucket. NaN values are ignored, bit vectors with
+		 * X or Z bits count as 0.
+		 *
+		 * @param i      the index of the bucket
+		 * @param signed if bit vectors are interpreted as signed values
+		 * @return the minimum, positive infinity if there is no value
+		 */
+		public double getMin(int i, boolean signed) {
+			return ranges[4 * i + (signed ? 2 : 0)];
+		}
+
+		/**
+		 * Gets the maximum value of a bucket. NaN values are ignored, bit vectors with
+		 * X or Z bits count as 0.
+		 *
+		 * @param i      the index of the bucket
+		 * @param signed if bit vectors are interpreted as signed values
+		 * @return the maximum, negative infinity if there is no value
+		 */
+		public double getMax(int i, boolean signed) {
+			return ranges[4 * i + (signed ? 3 : 1)];
+		}
+
+		/**
+		 * Gets the flags of a bucket.
+		 *
+		 * @param i the index of the bucket
+		 * @return the combination of {@link SignalSummary#X}, {@link SignalSummary#Z}
+		 *         and {@link SignalSummary#NAN}
+		 */
+		public int getFlags(int i) {
+			return flags[i];
+		}
+	}
+
+	/** the levels from the finest to the coarsest one */
+	private final Level[] levels;
+
+	/**
+	 * Builds the summary of a signal. This reads all values, use
+	 * {@link #of(IWaveform)} to build it in the background.
+	 *
+	 * @param waveform the signal
+	 */
+	public SignalSummary(IWaveform waveform) {
+		IEventList events = waveform.getEvents();
+		List<Level> result = new ArrayList<>();
+		int count = events.size();
+		if (count > 1) {
+			long span = events.lastKey() - events.firstKey();
+			int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(Math.max(1, span / count)));
+			Map<IEvent, ValueInfo> infos = new HashMap<>();
+			Level level = new Level(shift, 16);
+			for (EventEntry entry : events)
+				level.add(entry.timestamp, entry.events, infos);
+			int limit = count / FIRST_REDUCTION;
+			while (true) {
+				if (level.size <= limit) {
+					level.resize(level.size);
+					result.add(level);
+					limit = level.size / 2;
+				}
+				if (level.size <= 1 || level.shift >= 62)
+					break;
+				Level coarser = new Level(level.shift + 1, Math.max(16, level.size / 2));
+				for (int j = 0; j < level.size; j++)
+					coarser.add(level, j);
+				level = coarser;
+			}
+		}
+		levels = result.toArray(new Level[0]);
+	}
+
+	/**
+	 * Gets the summary of a signal. The summary is built once in the background and
+	 * kept as long as the signal is in use.
+	 *
+	 * @param waveform the signal
+	 * @return the future summary
+	 */
+	public static CompletableFuture<SignalSummary> of(IWaveform waveform) {
+		synchronized (summaries) {
+			return summaries.computeIfAbsent(waveform,
+					w -> CompletableFuture.supplyAsync(() -> new SignalSummary(w)));
+		}
+	}
+
+	/**
+	 * Gets the number of levels.
+	 *
+	 * @return the level count
+	 */
+	public int getLevelCount() {
+		return levels.length;
+	}
+
+	/**
+	 * Gets the coarsest level whose buckets are not wider than the given width.
+	 *
+	 * @param width the width in time units, usually the time of a pixel
+	 * @return the level or null if all levels are coarser
+	 */
+	public Level getLevel(long width) {
+		Level res = null;
+		for (Level level : levels) {
+			if (level.getWidth() > width)
+				break;
+			res = level;
+		}
+		return res;
+	}
+}
@@ -0,0 +1,460 @@
+package com.minres.scviewer.database;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+import com.minres.scviewer.database.tx.ITx;
+import com.minres.scviewer.database.tx.ITxEvent;
+
+/**
+ * A {@link PrimitiveEventList} for transaction events. The events of a stream
+ * are stored once in a {@link Table} of primitive columns which is shared by the
+ * list of the stream and the lists of its generators. A list only keeps the index
+ * of the first table row per timestamp, further events at the same timestamp are
+ * linked in the table. Events are returned as lightweight {@link Event} views of
+ * a table row.
+ */
+public class TxEventList extends PrimitiveEventList {
+
+	/** The view of the list of a stream. */
+	public static final int STREAM = 0;
+
+	/** The view of the lists of the generators of a stream. */
+	public static final int GENERATOR = 1;
+
+	private static final byte END = (byte) EventKind.END.ordinal();
+
+	private static final byte SINGLE = (byte) EventKind.SINGLE.ordinal();
+
+	/**
+	 * The events of a stream in insertion order. Each event has a row index and a
+	 * link to the next event at the same timestamp per view.
+	 * <p>
+	 * A table is not synchronized. It is filled together with the lists using it
+	 * by the single thread loading the stream, which publishes it to the readers
+	 * once the loading completed. Afterwards only the rows are written, the lists
+	 * may be assigned their rows concurrently as each list writes distinct
+	 * entries.
+	 */
+	public static class Table {
+
+		private final LongFunction<ITx> resolver;
+
+		private long[] txIds = new long[16];
+
+		private long[] times = new long[16];
+
+		private byte[] kinds = new byte[16];
+
+		private final int[][] rows = new int[2][16];
+
+		/** the next event at the same timestamp, -1 if there is none */
+		private final int[][] next = new int[2][16];
+
+		private int size = 0;
+
+		private static final EventKind[] KINDS = EventKind.values();
+
+		/**
+		 * Instantiates a new table.
+		 *
+		 * @param resolver gets the transaction of an id
+		 */
+		public Table(LongFunction<ITx> resolver) {
+			this.resolver = resolver;
+		}
+
+		/**
+		 * Adds an event. The event needs to be added to the lists of the stream and
+		 * of the generator using {@link TxEventList#add(int)}.
+		 *
+		 * @param kind the kind
+		 * @param txId the transaction id
+		 * @param time the time
+		 * @return the index of the event
+		 */
+		public int add(EventKind kind, long txId, long time) {
+			if (size == txIds.length) {
+				int capacity = size * 2;
+				txIds = Arrays.copyOf(txIds, capacity);
+				times = Arrays.copyOf(times, capacity);
+				kinds = Arrays.copyOf(kinds, capacity);
+				for (int view = STREAM; view <= GENERATOR; view++) {
+					rows[view] = Arrays.copyOf(rows[view], capacity);
+					next[view] = Arrays.copyOf(next[view], capacity);
+				}
+			}
+			txIds[size] = txId;
+			times[size] = time;
+			kinds[size] = (byte) kind.ordinal();
+			for (int view = STREAM; view <= GENERATOR; view++) {
+				rows[view][size] = -1;
+				next[view][size] = -1;
+			}
+			return size++;
+		}
+
+		/**
+		 * Gets the number of events.
+		 *
+		 * @return the size
+		 */
+		public int size() {
+			return size;
+		}
+	}
+
+	/**
+	 * A transaction event backed by a row of a {@link Table}.
+	 */
+	public static final class Event implements ITxEvent {
+
+		private final Table table;
+
+		private final int index;
+
+		private final int view;
+
+		Event(Table table, int index, int view) {
+			this.table = table;
+			this.index = index;
+			this.view = view;
+		}
+
+		@Override
+		public EventKind getKind() {
+			return Table.KINDS[table.kinds[index]];
+		}
+
+		@Override
+		public WaveformType getType() {
+			return WaveformType.TRANSACTION;
+		}
+
+		@Override
+		public long getTime() {
+			return table.times[index];
+		}
+
+		/**
+		 * Gets the id of the transaction without resolving it.
+		 *
+		 * @return the transaction id
+		 */
+		public long getTransactionId() {
+			return table.txIds[index];
+		}
+
+		@Override
+		public ITx getTransaction() {
+			return table.resolver.apply(table.txIds[index]);
+		}
+
+		@Override
+		public int getRowIndex() {
+			return table.rows[view][index];
+		}
+
+		/**
+		 * Sets the row index of the event in the list it belongs to.
+		 *
+		 * @param idx the row index
+		 */
+		public void setRowIndex(int idx) {
+			table.rows[view][index] = idx;
+		}
+
+		@Override
+		public IEvent duplicate() throws CloneNotSupportedException {
+			return new Event(table, index, view);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Event))
+				return false;
+			Event other = (Event) obj;
+			return table == other.table && index == other.index && view == other.view;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * index + view;
+		}
+
+		@Override
+		public String toString() {
+			return getKind().toString() + "@" + getTime() + " of tx #" + getTransactionId();
+		}
+	}
+
+	/**
+	 * A min-heap of free row indexes.
+	 */
+	private static final class FreeRows {
+
+		private int[] heap = new int[16];
+
+		private int size = 0;
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void push(int row) {
+			if (size == heap.length)
+				heap = Arrays.copyOf(heap, size * 2);
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (heap[parent] <= row)
+					break;
+				heap[i] = heap[parent];
+				i = parent;
+			}
+			heap[i] = row;
+		}
+
+		int pop() {
+			int top = heap[0];
+			int row = heap[--size];
+			int i = 0;
+			int half = size >>> 1;
+			while (i < half) {
+				int child = 2 * i + 1;
+				if (child + 1 < size && heap[child + 1] < heap[child])
+					child++;
+				if (row <= heap[child])
+					break;
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = row;
+			return top;
+		}
+	}
+
+	/**
+	 * The rows of the open transactions, an open addressing hash map from
+	 * transaction id to row using linear probing.
+	 */
+	private static final class OpenTransactions {
+
+		private long[] keys = new long[16];
+
+		/** the rows, -1 marks a free slot */
+		private int[] rows = new int[16];
+
+		private int size = 0;
+
+		OpenTransactions() {
+			Arrays.fill(rows, -1);
+		}
+
+		private int home(long key, int mask) {
+			return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		}
+
+		void put(long key, int row) {
+			if (2 * (size + 1) > keys.length)
+				rehash(keys.length * 2);
+			int mask = keys.length - 1;
+			int i = home(key, mask);
+			while (rows[i] >= 0 && keys[i] != key)
+				i = (i + 1) & mask;
+			if (rows[i] < 0)
+				size++;
+			keys[i] = key;
+			rows[i] = row;
+		}
+
+		int remove(long key) {
+			int mask = keys.length - 1;
+			for (int i = home(key, mask); rows[i] >= 0; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					int row = rows[i];
+					shift(i, mask);
+					size--;
+					return row;
+				}
+			}
+			return -1;
+		}
+
+		/** closes the gap left by a removed entry so that no probe sequence is broken */
+		private void shift(int gap, int mask) {
+			for (int i = (gap + 1) & mask; rows[i] >= 0; i = (i + 1) & mask) {
+				int home = home(keys[i], mask);
+				boolean reachable = gap <= i ? gap < home && home <= i : gap < home || home <= i;
+				if (!reachable) {
+					keys[gap] = keys[i];
+					rows[gap] = rows[i];
+					gap = i;
+				}
+			}
+			rows[gap] = -1;
+		}
+
+		private void rehash(int capacity) {
+			long[] oldKeys = keys;
+			int[] oldRows = rows;
+			keys = new long[capacity];
+			rows = new int[capacity];
+			Arrays.fill(rows, -1);
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++)
+				if (oldRows[i] >= 0)
+					put(oldKeys[i], oldRows[i]);
+		}
+	}
+
+	/**
+	 * An event column storing the first event of a timestamp.
+	 */
+	static class LinkedColumn extends EventColumn {
+
+		final Table table;
+
+		final int view;
+
+		int[][] heads = new int[0][];
+
+		LinkedColumn(Table table, int view) {
+			this.table = table;
+			this.view = view;
+		}
+
+		@Override
+		IEvent[] get(int idx) {
+			int head = heads[idx >> CHUNK_BITS][idx & CHUNK_MASK];
+			int[] links = table.next[view];
+			int count = 0;
+			for (int evt = head; evt >= 0; evt = links[evt])
+				count++;
+			IEvent[] evts = new IEvent[count];
+			count = 0;
+			for (int evt = head; evt >= 0; evt = links[evt])
+				evts[count++] = new Event(table, evt, view);
+			return evts;
+		}
+
+		@Override
+		void set(int idx, IEvent[] evts) {
+			throw new UnsupportedOperationException();
+		}
+
+		void setHead(int idx, int evt) {
+			heads[idx >> CHUNK_BITS][idx & CHUNK_MASK] = evt;
+		}
+
+		@Override
+		void move(int from, int to) {
+			setHead(to, heads[from >> CHUNK_BITS][from & CHUNK_MASK]);
+		}
+
+		@Override
+		void addChunk(int chunk) {
+			heads = Arrays.copyOf(heads, chunk + 1);
+			heads[chunk] = new int[CHUNK_SIZE];
+		}
+	}
+
+	/**
+	 * Instantiates a new transaction event list.
+	 *
+	 * @param table the table of the stream
+	 * @param view  {@link #STREAM} for the list of the stream, {@link #GENERATOR}
+	 *              for the list of a generator
+	 */
+	public TxEventList(Table table, int view) {
+		super(new LinkedColumn(table, view));
+	}
+
+	/**
+	 * Gets a transaction of the table of this list.
+	 *
+	 * @param txId the transaction id
+	 * @return the transaction
+	 */
+	public ITx getTransaction(long txId) {
+		return ((LinkedColumn) store.events).table.resolver.apply(txId);
+	}
+
+	/**
+	 * Assigns the events of the whole list to rows so that overlapping
+	 * transactions are drawn in different rows. A transaction gets the lowest row
+	 * which is free at its begin time, a row becomes free at the end time of the
+	 * transaction occupying it. The rows are stored in the table and returned by
+	 * {@link Event#getRowIndex()}.
+	 *
+	 * @return the number of rows, at least 1
+	 */
+	public int assignRows() {
+		LinkedColumn column = (LinkedColumn) store.events;
+		Table table = column.table;
+		int[] links = table.next[column.view];
+		int[] rows = table.rows[column.view];
+		FreeRows free = new FreeRows();
+		OpenTransactions open = new OpenTransactions();
+		int rowCount = 0;
+		for (int i = 0; i < store.size; i++) {
+			int head = column.heads[i >> CHUNK_BITS][i & CHUNK_MASK];
+			// transactions ending at this time free their row for the ones beginning
+			for (int evt = head; evt >= 0; evt = links[evt]) {
+				if (table.kinds[evt] == END) {
+					int row = open.remove(table.txIds[evt]);
+					rows[evt] = row;
+					if (row >= 0)
+						free.push(row);
+				}
+			}
+			for (int evt = head; evt >= 0; evt = links[evt]) {
+				byte kind = table.kinds[evt];
+				if (kind == END)
+					continue;
+				int row = free.isEmpty() ? rowCount++ : free.pop();
+				rows[evt] = row;
+				if (kind == SINGLE)
+					free.push(row);
+				else
+					open.put(table.txIds[evt], row);
+			}
+		}
+		return Math.max(rowCount, 1);
+	}
+
+	/**
+	 * Adds an event of the table, it is appended to the events of its timestamp.
+	 *
+	 * @param evt the index of the event in the table
+	 */
+	public void add(int evt) {
+		if (unmodifiable)
+			throw new UnsupportedOperationException();
+		LinkedColumn column = (LinkedColumn) store.events;
+		int index = store.slot(column.table.times[evt]);
+		if (index < 0) {
+			column.setHead(-(index + 1), evt);
+		} else {
+			int[] links = column.table.next[column.view];
+			int last = column.heads[index >> CHUNK_BITS][index & CHUNK_MASK];
+			while (links[last] >= 0)
+				last = links[last];
+			links[last] = evt;
+		}
+	}
+
+	/**
+	 * Adds an event of the table of this list.
+	 *
+	 * @param key   the timestamp, it needs to be the time of the event
+	 * @param value the event
+	 */
+	@Override
+	public void put(long key, IEvent value) {
+		LinkedColumn column = (LinkedColumn) store.events;
+		if (!(value instanceof Event) || ((Event) value).table != column.table || ((Event) value).getTime() != key)
+			throw new IllegalArgumentException();
+		add(((Event) value).index);
+	}
+}
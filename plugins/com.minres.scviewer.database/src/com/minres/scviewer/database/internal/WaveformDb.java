@@ -14,6 +14,7 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -51,6 +52,9 @@ public class WaveformDb extends HierNode implements IWaveformDb, PropertyChangeL
 
 	/** The max time. */
 	private long maxTime = -1;
+
+	/** The options passed to the loaders. */
+	private Map<String, Object> loaderOptions = new ConcurrentHashMap<>();
 	
 	private static final Logger LOG = LoggerFactory.getLogger(WaveformDb.class);
 	
@@ -134,6 +138,7 @@ public class WaveformDb extends HierNode implements IWaveformDb, PropertyChangeL
 		for (IWaveformDbLoaderFactory loaderFactory : loaderFactories) {
 			if (loaderFactory.canLoad(inp)) {
 				IWaveformDbLoader loader = loaderFactory.getLoader();
+				loaderOptions.forEach(loader::setOption);
 				loader.addPropertyChangeListener(this);
 				try {
 					loader.load(inp);
@@ -160,6 +165,18 @@ public class WaveformDb extends HierNode implements IWaveformDb, PropertyChangeL
 		return retval;
 	}
 
+	@Override
+	public void setLoaderOption(String name, Object value) {
+		loaderOptions.put(name, value);
+	}
+
+	@Override
+	public void loadEvents(Collection<IWaveform> waveforms) {
+		for (IWaveformDbLoader loader : activeLoader) {
+			loader.loadEvents(waveforms);
+		}
+	}
+
 	@Override
 	public void close() {
 		for (IWaveformDbLoader entry : activeLoader) {
@@ -16,7 +16,7 @@ package com.minres.scviewer.database.tx;
 public interface ITxAttribute extends ITxAttributeType {
 
 	/**
-	 * Gets the value.
+	 * Gets the value in its native type, see {@link TxAttributeValues}.
 	 *
 	 * @return the value
 	 */
@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.tx;
+
+import java.lang.ref.SoftReference;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+import com.minres.scviewer.database.DataType;
+import com.minres.scviewer.database.EventEntry;
+import com.minres.scviewer.database.EventKind;
+import com.minres.scviewer.database.IEvent;
+import com.minres.scviewer.database.IWaveform;
+
+/**
+ * An index of the attribute values of the transactions of a stream or
+ * generator. For each attribute name it holds the ids of the transactions per
+ * value, {@link Long} values are kept in a column sorted by value to answer
+ * range queries. Integer values not written in their canonical form, like
+ * 007, are indexed by their number. Queries return the ids of the matching
+ * transactions in ascending order, the returned arrays must not be modified.
+ */
+public class TxAttributeIndex {
+
+	private static final long[] NONE = new long[0];
+
+	/** the indices are only held softly, they are built again if memory got short */
+	private static final Map<IWaveform, SoftReference<CompletableFuture<TxAttributeIndex>>> indices = new WeakHashMap<>();
+
+	/**
+	 * A growable list of longs.
+	 */
+	private static final class LongList {
+
+		long[] data = new long[4];
+
+		int size = 0;
+
+		void add(long value) {
+			if (size == data.length)
+				data = Arrays.copyOf(data, size * 2);
+			data[size++] = value;
+		}
+
+		/** sorts the values and removes duplicates */
+		long[] toSortedSet() {
+			long[] values = Arrays.copyOf(data, size);
+			Arrays.sort(values);
+			int count = 0;
+			for (int i = 0; i < values.length; i++)
+				if (count == 0 || values[count - 1] != values[i])
+					values[count++] = values[i];
+			return count == values.length ? values : Arrays.copyOf(values, count);
+		}
+	}
+
+	/**
+	 * The values of one attribute name.
+	 */
+	private static final class Column {
+
+		final DataType dataType;
+
+		/** the transactions per value not being a {@link Long} */
+		final Map<Object, long[]> postings = new HashMap<>();
+
+		/** the {@link Long} values in ascending order */
+		long[] values = new long[16];
+
+		/** the transactions of the values */
+		long[] ids = new long[16];
+
+		int size = 0;
+
+		Column(DataType dataType) {
+			this.dataType = dataType;
+		}
+
+		void add(long value, long id) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			values[size] = value;
+			ids[size++] = id;
+		}
+
+		/** sorts the long values, equal values keep their order */
+		void sort() {
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++)
+				order[i] = i;
+			Arrays.sort(order, (a, b) -> Long.compare(values[a], values[b]));
+			long[] sortedValues = new long[size];
+			long[] sortedIds = new long[size];
+			for (int i = 0; i < size; i++) {
+				sortedValues[i] = values[order[i]];
+				sortedIds[i] = ids[order[i]];
+			}
+			values = sortedValues;
+			ids = sortedIds;
+		}
+
+		/** the index of the first value not less than the given one */
+		int lowerBound(long value) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (values[mid] < value)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			return low;
+		}
+	}
+
+	private final Map<String, Column> columns = new HashMap<>();
+
+	private final Map<String, DataType> attributes = new TreeMap<>();
+
+	private int size = 0;
+
+	/**
+	 * Builds the index of the transactions beginning in a waveform. This reads the
+	 * attributes of all transactions, use {@link #of(IWaveform)} to build it in the
+	 * background.
+	 *
+	 * @param waveform the stream or generator
+	 */
+	public TxAttributeIndex(IWaveform waveform) {
+		Map<String, Map<Object, LongList>> postings = new HashMap<>();
+		for (EventEntry entry : waveform.getEvents()) {
+			for (IEvent evt : entry.events) {
+				if (!(evt instanceof ITxEvent) || (evt.getKind() != EventKind.BEGIN && evt.getKind() != EventKind.SINGLE))
+					continue;
+				ITx tx = ((ITxEvent) evt).getTransaction();
+				long id = tx.getId();
+				size++;
+				for (ITxAttribute attr : tx.getAttributes()) {
+					Object value = canonical(attr.getDataType(), attr.getValue());
+					if (value == null)
+						continue;
+					Column column = columns.computeIfAbsent(attr.getName(), name -> new Column(attr.getDataType()));
+					if (value instanceof Long)
+						column.add((Long) value, id);
+					else
+						postings.computeIfAbsent(attr.getName(), name -> new HashMap<>())
+								.computeIfAbsent(value, v -> new LongList()).add(id);
+				}
+			}
+		}
+		for (Map.Entry<String, Column> entry : columns.entrySet()) {
+			Column column = entry.getValue();
+			column.sort();
+			postings.getOrDefault(entry.getKey(), Collections.emptyMap())
+					.forEach((value, ids) -> column.postings.put(value, ids.toSortedSet()));
+			attributes.put(entry.getKey(), column.dataType);
+		}
+	}
+
+	/**
+	 * Converts integer values held as {@link String} to the value an equal number
+	 * is held as, a {@link Long} if it fits or the decimal string otherwise.
+	 */
+	private static Object canonical(DataType dataType, Object value) {
+		if (!(value instanceof String) || (dataType != DataType.INTEGER && dataType != DataType.UNSIGNED))
+			return value;
+		BigInteger number;
+		try {
+			number = new BigInteger((String) value);
+		} catch (NumberFormatException e) {
+			return value;
+		}
+		return number.bitLength() < 64 ? (Object) number.longValue() : number.toString();
+	}
+
+	/**
+	 * Gets the index of a waveform. The index is built in the background and kept
+	 * as long as it is in use or memory permits.
+	 *
+	 * @param waveform the stream or generator
+	 * @return the future index
+	 */
+	public static CompletableFuture<TxAttributeIndex> of(IWaveform waveform) {
+		synchronized (indices) {
+			SoftReference<CompletableFuture<TxAttributeIndex>> ref = indices.get(waveform);
+			CompletableFuture<TxAttributeIndex> index = ref != null ? ref.get() : null;
+			if (index == null) {
+				index = CompletableFuture.supplyAsync(() -> new TxAttributeIndex(waveform));
+				indices.put(waveform, new SoftReference<>(index));
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Gets the number of indexed transactions.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the names of the attributes and their data types.
+	 *
+	 * @return the data types by name in ascending order of the names
+	 */
+	public Map<String, DataType> getAttributes() {
+		return Collections.unmodifiableMap(attributes);
+	}
+
+	/**
+	 * Finds the transactions having an attribute with the given value, integers
+	 * are compared by their number.
+	 *
+	 * @param name  the name of the attribute
+	 * @param value the native value, see {@link TxAttributeValues}
+	 * @return the ids of the transactions in ascending order
+	 */
+	public long[] findEqual(String name, Object value) {
+		Column column = columns.get(name);
+		if (column == null)
+			return NONE;
+		value = canonical(column.dataType, value);
+		if (value instanceof Long)
+			return findRange(name, (Long) value, (Long) value);
+		return column.postings.getOrDefault(value, NONE);
+	}
+
+	/**
+	 * Finds the transactions having an attribute with a {@link Long} value between
+	 * from and to (both inclusive).
+	 *
+	 * @param name the name of the attribute
+	 * @param from the lowest value
+	 * @param to   the highest value
+	 * @return the ids of the transactions in ascending order
+	 */
+	public long[] findRange(String name, long from, long to) {
+		Column column = columns.get(name);
+		if (column == null || from > to)
+			return NONE;
+		int start = column.lowerBound(from);
+		int end = to == Long.MAX_VALUE ? column.size : column.lowerBound(to + 1);
+		LongList ids = new LongList();
+		for (int i = start; i < end; i++)
+			ids.add(column.ids[i]);
+		return ids.toSortedSet();
+	}
+
+	/**
+	 * Finds the transactions having an attribute with a value accepted by the
+	 * predicate. The predicate is evaluated once per distinct value.
+	 *
+	 * @param name      the name of the attribute
+	 * @param predicate the predicate on the native value
+	 * @return the ids of the transactions in ascending order
+	 */
+	public long[] find(String name, Predicate<Object> predicate) {
+		Column column = columns.get(name);
+		if (column == null)
+			return NONE;
+		LongList ids = new LongList();
+		for (Map.Entry<Object, long[]> entry : column.postings.entrySet())
+			if (predicate.test(entry.getKey()))
+				for (long id : entry.getValue())
+					ids.add(id);
+		for (int i = 0; i < column.size;) {
+			long value = column.values[i];
+			int end = i + 1;
+			while (end < column.size && column.values[end] == value)
+				end++;
+			if (predicate.test(value))
+				for (; i < end; i++)
+					ids.add(column.ids[i]);
+			i = end;
+		}
+		return ids.toSortedSet();
+	}
+
+	/**
+	 * Checks if the result of a query contains a transaction.
+	 *
+	 * @param ids the result of a query
+	 * @param id  the id of the transaction
+	 * @return true, if the transaction is contained
+	 */
+	public static boolean contains(long[] ids, long id) {
+		return Arrays.binarySearch(ids, id) >= 0;
+	}
+}
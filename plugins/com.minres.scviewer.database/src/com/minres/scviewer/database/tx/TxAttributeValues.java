@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.tx;
+
+import com.minres.scviewer.database.DataType;
+
+/**
+ * The native values of transaction attributes. Integers and unsigned integers
+ * are held as {@link Long}, floating point numbers as {@link Double}, or as
+ * {@link Float} if the database stores single precision, and booleans as
+ * {@link Boolean}. Values not fitting their data type, like integers wider
+ * than 64 bit, and values of all other data types are held as {@link String}.
+ */
+public final class TxAttributeValues {
+
+	private TxAttributeValues() {
+	}
+
+	/**
+	 * Converts the textual value of an attribute to its native value.
+	 *
+	 * @param dataType the data type of the attribute
+	 * @param value    the value as written in the database
+	 * @return the native value or the string if it does not fit the data type
+	 */
+	public static Object valueOf(DataType dataType, String value) {
+		if (value == null)
+			return null;
+		switch (dataType) {
+		case BOOLEAN:
+			if ("true".equalsIgnoreCase(value))
+				return Boolean.TRUE;
+			if ("false".equalsIgnoreCase(value))
+				return Boolean.FALSE;
+			return value;
+		case INTEGER:
+		case UNSIGNED:
+			return isCanonicalLong(value) ? (Object) Long.parseLong(value) : value;
+		case FLOATING_POINT_NUMBER:
+			try {
+				return Double.valueOf(value);
+			} catch (NumberFormatException e) {
+				return value;
+			}
+		default:
+			return value;
+		}
+	}
+
+	/**
+	 * Checks if a string is a decimal number printed the way {@link Long#toString}
+	 * does, so the native value prints as the original one.
+	 */
+	private static boolean isCanonicalLong(String value) {
+		int start = value.startsWith("-") ? 1 : 0;
+		int digits = value.length() - start;
+		if (digits == 0 || digits > 19 || (digits > 1 && value.charAt(start) == '0') || "-0".equals(value))
+			return false;
+		for (int i = start; i < value.length(); i++)
+			if (value.charAt(i) < '0' || value.charAt(i) > '9')
+				return false;
+		if (digits < 19)
+			return true;
+		try {
+			Long.parseLong(value);
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Compares two attribute values. Numbers are compared by their value, booleans
+	 * with false before true and all other values by their string.
+	 *
+	 * @param a the first value
+	 * @param b the second value
+	 * @return a negative number, zero or a positive number if a is less than, equal
+	 *         to or greater than b
+	 */
+	public static int compare(Object a, Object b) {
+		if (a instanceof Long && b instanceof Long)
+			return Long.compare((Long) a, (Long) b);
+		if (a instanceof Number && b instanceof Number)
+			return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+		if (a instanceof Boolean && b instanceof Boolean)
+			return Boolean.compare((Boolean) a, (Boolean) b);
+		return a.toString().compareTo(b.toString());
+	}
+}
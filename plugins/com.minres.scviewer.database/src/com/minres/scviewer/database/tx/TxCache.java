@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.tx;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * A concurrent cache of transaction objects bounded by the number of entries.
+ * The cache is split into segments by transaction id, each segment evicts its
+ * least recently used entries so lookups of different transactions rarely
+ * contend. Transactions are created outside of the segment lock.
+ *
+ * @param <T> the type of the transactions
+ */
+public class TxCache<T extends ITx> {
+
+	/** The default capacity, can be set using the system property TxCacheSize. */
+	public static final int DEFAULT_CAPACITY = Integer.getInteger("TxCacheSize", 1 << 16);
+
+	private static final int SEGMENT_BITS = 4;
+
+	private static final class Segment<T> extends LinkedHashMap<Long, T> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+			return size() > capacity;
+		}
+	}
+
+	private final Segment<T>[] segments;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Instantiates a new cache with the default capacity.
+	 */
+	public TxCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new cache.
+	 *
+	 * @param capacity the maximum number of cached transactions
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public TxCache(int capacity) {
+		segments = new Segment[1 << SEGMENT_BITS];
+		for (int i = 0; i < segments.length; i++)
+			segments[i] = new Segment<>(Math.max(1, capacity >> SEGMENT_BITS));
+	}
+
+	private Segment<T> segment(long id) {
+		return segments[(int) ((id * 0x9E3779B97F4A7C15L) >>> (64 - SEGMENT_BITS))];
+	}
+
+	/**
+	 * Gets a transaction, creating it if it is not cached. If two threads create
+	 * the same transaction concurrently both get the one cached first.
+	 *
+	 * @param id      the transaction id
+	 * @param factory creates the transaction, may return null if there is none
+	 * @return the transaction or null if the factory returned null
+	 */
+	public T get(long id, LongFunction<? extends T> factory) {
+		Segment<T> segment = segment(id);
+		T tx;
+		synchronized (segment) {
+			tx = segment.get(id);
+		}
+		if (tx != null) {
+			hits.increment();
+			return tx;
+		}
+		misses.increment();
+		T created = factory.apply(id);
+		if (created == null)
+			return null;
+		synchronized (segment) {
+			tx = segment.putIfAbsent(id, created);
+		}
+		return tx != null ? tx : created;
+	}
+
+	/**
+	 * Gets the number of lookups finding a cached transaction.
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the number of lookups creating a transaction.
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the number of cached transactions.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment<T> segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Removes all transactions, the counters are kept.
+	 */
+	public void clear() {
+		for (Segment<T> segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+}
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2021 MINRES Technologies GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     MINRES Technologies GmbH - initial API and implementation
+ *******************************************************************************/
+package com.minres.scviewer.database.tx;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+
+import com.minres.scviewer.database.EventEntry;
+import com.minres.scviewer.database.EventKind;
+import com.minres.scviewer.database.IEvent;
+import com.minres.scviewer.database.IWaveform;
+import com.minres.scviewer.database.TxEventList;
+
+/**
+ * An index of the time intervals of the transactions of a stream or generator.
+ * For each row the transactions are kept sorted by their begin time, forming
+ * an implicit balanced search tree where each node also holds the maximum end
+ * time of its subtree. This answers which transactions overlap a time range in
+ * logarithmic time plus the size of the result.
+ * <p>
+ * The index is built from the flyweight events of a {@link TxEventList}, it
+ * only holds the times, ids and rows of the transactions. The transactions
+ * found by a query are resolved through the event list.
+ */
+public class TxIntervalIndex {
+
+	/** the indices reference their waveform through the event list, so they are only held softly */
+	private static final Map<IWaveform, SoftReference<CompletableFuture<TxIntervalIndex>>> indices = new WeakHashMap<>();
+
+	/**
+	 * The transactions of one row in ascending order of their begin time.
+	 */
+	private static final class Row {
+
+		long[] ids = new long[16];
+
+		long[] begins = new long[16];
+
+		long[] ends = new long[16];
+
+		/** the maximum end time of the subtree having the index as root */
+		long[] maxEnds;
+
+		int size = 0;
+
+		void add(long id, long begin, long end) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				begins = Arrays.copyOf(begins, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+			}
+			ids[size] = id;
+			begins[size] = begin;
+			ends[size++] = end;
+		}
+
+		/**
+		 * Sets the end of an open transaction. The transactions of a row do not
+		 * overlap, so it is one of the last ones added.
+		 */
+		void end(long id, long end) {
+			for (int i = size - 1; i >= 0; i--) {
+				if (ids[i] == id) {
+					ends[i] = end;
+					return;
+				}
+			}
+		}
+
+		/** sorts the transactions, they are added in ascending order of time in almost all cases */
+		void sort() {
+			boolean sorted = true;
+			for (int i = 1; i < size && sorted; i++)
+				sorted = begins[i - 1] <= begins[i];
+			if (!sorted) {
+				Integer[] order = new Integer[size];
+				for (int i = 0; i < size; i++)
+					order[i] = i;
+				Arrays.sort(order, (a, b) -> Long.compare(begins[a], begins[b]));
+				long[] sortedIds = new long[size];
+				long[] sortedBegins = new long[size];
+				long[] sortedEnds = new long[size];
+				for (int i = 0; i < size; i++) {
+					sortedIds[i] = ids[order[i]];
+					sortedBegins[i] = begins[order[i]];
+					sortedEnds[i] = ends[order[i]];
+				}
+				ids = sortedIds;
+				begins = sortedBegins;
+				ends = sortedEnds;
+			} else {
+				ids = Arrays.copyOf(ids, size);
+				begins = Arrays.copyOf(begins, size);
+				ends = Arrays.copyOf(ends, size);
+			}
+			maxEnds = new long[size];
+			buildMaxEnds(0, size);
+		}
+
+		/** the subtree of the indices low to high (exclusive) has the middle one as root */
+		private long buildMaxEnds(int low, int high) {
+			if (low >= high)
+				return Long.MIN_VALUE;
+			int mid = (low + high) >>> 1;
+			long max = Math.max(ends[mid], Math.max(buildMaxEnds(low, mid), buildMaxEnds(mid + 1, high)));
+			maxEnds[mid] = max;
+			return max;
+		}
+
+		/** adds the transactions of a subtree overlapping from to to in ascending order */
+		void collect(int low, int high, long from, long to, List<Long> res) {
+			if (low >= high)
+				return;
+			int mid = (low + high) >>> 1;
+			if (maxEnds[mid] < from)
+				return;
+			collect(low, mid, from, to, res);
+			if (begins[mid] > to)
+				return;
+			if (ends[mid] >= from)
+				res.add(ids[mid]);
+			collect(mid + 1, high, from, to, res);
+		}
+
+		/** finds the index of the transaction of a subtree active at a time beginning last, -1 if there is none */
+		int findLast(int low, int high, long time) {
+			if (low >= high)
+				return -1;
+			int mid = (low + high) >>> 1;
+			if (maxEnds[mid] < time)
+				return -1;
+			if (begins[mid] <= time) {
+				int res = findLast(mid + 1, high, time);
+				if (res >= 0)
+					return res;
+				if (ends[mid] >= time)
+					return mid;
+			}
+			return findLast(low, mid, time);
+		}
+	}
+
+	private final TxEventList events;
+
+	private final List<Row> rows = new ArrayList<>();
+
+	private int size = 0;
+
+	/**
+	 * Builds the index of the transactions beginning in a waveform. This reads all
+	 * events but no transaction, use {@link #of(IWaveform)} to build it in the
+	 * background.
+	 *
+	 * @param waveform the stream or generator
+	 * @throws IllegalArgumentException if the events are not a {@link TxEventList}
+	 */
+	public TxIntervalIndex(IWaveform waveform) {
+		if (!(waveform.getEvents() instanceof TxEventList))
+			throw new IllegalArgumentException("events of " + waveform.getFullName() + " cannot be indexed");
+		events = (TxEventList) waveform.getEvents();
+		for (EventEntry entry : events) {
+			for (IEvent evt : entry.events) {
+				TxEventList.Event txEvent = (TxEventList.Event) evt;
+				int row = txEvent.getRowIndex();
+				if (row < 0)
+					continue;
+				while (rows.size() <= row)
+					rows.add(new Row());
+				switch (evt.getKind()) {
+				case BEGIN:
+					// the end is set by the end event
+					rows.get(row).add(txEvent.getTransactionId(), entry.timestamp, Long.MAX_VALUE);
+					size++;
+					break;
+				case SINGLE:
+					rows.get(row).add(txEvent.getTransactionId(), entry.timestamp, entry.timestamp);
+					size++;
+					break;
+				case END:
+					rows.get(row).end(txEvent.getTransactionId(), entry.timestamp);
+					break;
+				}
+			}
+		}
+		for (Row row : rows)
+			row.sort();
+	}
+
+	/**
+	 * Gets the index of a waveform. The index is built in the background and kept
+	 * as long as it is in use or memory permits. Waveforms whose events are not a
+	 * {@link TxEventList}, like the windowed events of a SQLite database, are not
+	 * indexed as this would read all of their transactions.
+	 *
+	 * @param waveform the stream or generator
+	 * @return the future index, it completes with null if the waveform is not indexed
+	 */
+	public static CompletableFuture<TxIntervalIndex> of(IWaveform waveform) {
+		if (!(waveform.getEvents() instanceof TxEventList))
+			return CompletableFuture.completedFuture(null);
+		synchronized (indices) {
+			SoftReference<CompletableFuture<TxIntervalIndex>> ref = indices.get(waveform);
+			CompletableFuture<TxIntervalIndex> index = ref != null ? ref.get() : null;
+			if (index == null) {
+				index = CompletableFuture.supplyAsync(() -> new TxIntervalIndex(waveform));
+				indices.put(waveform, new SoftReference<>(index));
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Gets the number of indexed transactions.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of rows holding transactions.
+	 *
+	 * @return the row count
+	 */
+	public int getRowCount() {
+		return rows.size();
+	}
+
+	/**
+	 * Finds the transactions of a row overlapping the time range from to to (both
+	 * inclusive). Only the transactions found are resolved.
+	 *
+	 * @param row  the row index
+	 * @param from the begin of the range
+	 * @param to   the end of the range
+	 * @return the transactions in ascending order of their begin time
+	 */
+	public List<ITx> getOverlapping(int row, long from, long to) {
+		if (row < 0 || row >= rows.size() || from > to)
+			return Collections.emptyList();
+		Row r = rows.get(row);
+		List<Long> ids = new ArrayList<>();
+		r.collect(0, r.size, from, to, ids);
+		List<ITx> res = new ArrayList<>(ids.size());
+		for (long id : ids)
+			res.add(events.getTransaction(id));
+		return res;
+	}
+
+	/**
+	 * Finds the transaction of a row active at a time. If several transactions
+	 * are active the one beginning last is returned.
+	 *
+	 * @param row  the row index
+	 * @param time the time
+	 * @return the transaction or null if there is none
+	 */
+	public ITx getAt(int row, long time) {
+		if (row < 0 || row >= rows.size())
+			return null;
+		Row r = rows.get(row);
+		int idx = r.findLast(0, r.size, time);
+		return idx >= 0 ? events.getTransaction(r.ids[idx]) : null;
+	}
+}
@@ -25,6 +25,7 @@ public class Messages extends NLS {
 	public static String SCViewerPreferencesPage_1;
 	public static String SCViewerPreferencesPage_2;
 	public static String SCViewerPreferencesPage_3;
+	public static String SCViewerPreferencesPage_4;
 	public static String SWTResourceManager_0;
 	public static String TransactionDetails_0;
 	public static String TransactionDetails_1;
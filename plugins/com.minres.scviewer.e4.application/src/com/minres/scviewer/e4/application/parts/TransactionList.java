@@ -4,7 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import org.eclipse.core.databinding.observable.list.ObservableList;
@@ -38,6 +38,7 @@ import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.WaveformType;
 import com.minres.scviewer.database.tx.ITx;
 import com.minres.scviewer.database.tx.ITxEvent;
+import com.minres.scviewer.database.tx.TxAttributeIndex;
 import com.minres.scviewer.database.ui.TrackEntry;
 import com.minres.scviewer.e4.application.parts.txTableTree.AbstractTransactionTreeContentProvider;
 import com.minres.scviewer.e4.application.parts.txTableTree.AttributeLabelProvider;
@@ -242,40 +243,51 @@ public class TransactionList extends Composite {
 			tableViewer.setInput(emptyList);
 		} else if(stream != trackEntry.waveform) { 
 			stream=trackEntry.waveform;
+			txFilter.setIndex(null);
 			tableViewer.setInput(emptyList);
 			try{
 				if(updateThread!=null)
 					updateThread.interrupt();
 			}catch(SecurityException e){}
+			final IWaveform waveform = stream;
 			updateThread = new Thread(()-> {
-				final ConcurrentHashMap<String, DataType> propNames=new ConcurrentHashMap<>();
-				Collection<EventEntry> values = stream.getEvents().entrySet();
+				Collection<EventEntry> values = waveform.getEvents().entrySet();
 				final List<ITx> txList = values.parallelStream()
 						.map(e->e.events)
 						.map(Arrays::asList)
 						.flatMap(List::stream)
 						.filter(evt -> evt.getKind()==EventKind.BEGIN || evt.getKind()==EventKind.SINGLE)
-						.map(evt-> {
-							ITx tx = ((ITxEvent)evt).getTransaction();
-							tx.getAttributes().forEach(attr -> propNames.put(attr.getName(), attr.getDataType()));
-							return tx;
-						})
+						.map(evt-> ((ITxEvent)evt).getTransaction())
 						.sorted((t1, t2)-> Long.compare(t1.getBeginTime(),t2.getBeginTime()))
 						.collect(Collectors.toList());
-				final List<AttributeNameBean> newAttrNames=propNames.entrySet().stream()
-						.sorted((e1,e2)->e1.getKey().compareTo(e2.getKey()))
+				getDisplay().asyncExec(() -> {
+					if(stream==waveform)
+						tableViewer.setInput(txList);
+				});
+				// the attribute names and the search are provided by the index built in the background
+				final TxAttributeIndex index;
+				try {
+					index = TxAttributeIndex.of(waveform).join();
+				} catch (CompletionException e) {
+					updateThread=null;
+					return;
+				}
+				final List<AttributeNameBean> newAttrNames=index.getAttributes().entrySet().stream()
 						.map(e -> new AttributeNameBean(e.getKey(), e.getValue()))
 						.collect(Collectors.toList());
 				getDisplay().asyncExec(() -> {
-					tableViewer.setInput(txList);
+					if(stream!=waveform)
+						return;
 					attrNames.clear();
 					attrNames.addAll(newAttrNames);
 					if(!attrNames.isEmpty())
 						txFilter.setSearchProp(attrNames.get(0).getName(), attrNames.get(0).getType());
+					txFilter.setIndex(index);
 					if (searchPropComboViewer!=null)
 						searchPropComboViewer.refresh();
 					if (viewPropComboViewer!=null)
 						viewPropComboViewer.refresh();
+					tableViewer.refresh();
 				});
 				updateThread=null;
 			});
@@ -18,6 +18,8 @@ import com.minres.scviewer.e4.application.preferences.PreferenceConstants;
 public class WaveformStyleProvider implements IWaveformStyleProvider {
 
 	private Font nameFont;
+
+	private Font signalFont;
 	
 	private Color[] colors = new Color[WaveformColors.values().length];
 
@@ -55,6 +57,7 @@ public class WaveformStyleProvider implements IWaveformStyleProvider {
 		}
 		trackHeigth = store.getInt(PreferenceConstants.TRACK_HEIGHT, defaultPrefs.getInt(PreferenceConstants.TRACK_HEIGHT,  25)); //$NON-NLS-1$
 		nameFont = display.getSystemFont();
+		signalFont = IWaveformStyleProvider.getSignalFont(nameFont);
 	}	
 	
 	@Override
@@ -67,6 +70,11 @@ public class WaveformStyleProvider implements IWaveformStyleProvider {
 		return nameFont;
 	}
 
+	@Override
+	public Font getSignalFont() {
+		return signalFont;
+	}
+
 	@Override
 	public int getTrackHeight() {
 		return trackHeigth;
@@ -88,6 +88,7 @@ import com.minres.scviewer.database.IHierNode;
 import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.IWaveformDb;
 import com.minres.scviewer.database.IWaveformDbFactory;
+import com.minres.scviewer.database.IWaveformDbLoader;
 import com.minres.scviewer.database.RelationType;
 import com.minres.scviewer.database.RelationTypeFactory;
 import com.minres.scviewer.database.WaveformType;
@@ -391,6 +392,7 @@ public class WaveformViewer implements IFileChangeListener, IPreferenceChangeLis
 		});
 
 		checkForUpdates = store.getBoolean(PreferenceConstants.DATABASE_RELOAD, true);
+		setChunkCacheSize();
 		filesToLoad = new ArrayList<>();
 		persistedState = part.getPersistedState();
 		Integer files = persistedState.containsKey(DATABASE_FILE + "S") //$NON-NLS-1$
@@ -552,10 +554,21 @@ public class WaveformViewer implements IFileChangeListener, IPreferenceChangeLis
 	 */
 	@Override
 	public void preferenceChange(PreferenceChangeEvent event) {
-		if (!PreferenceConstants.DATABASE_RELOAD.equals(event.getKey()) && !PreferenceConstants.SHOW_HOVER.equals(event.getKey())){
+		if (PreferenceConstants.CHUNK_CACHE_SIZE.equals(event.getKey())) {
+			setChunkCacheSize();
+		} else if (!PreferenceConstants.DATABASE_RELOAD.equals(event.getKey()) && !PreferenceConstants.SHOW_HOVER.equals(event.getKey())){
 			waveformPane.setStyleProvider(new WaveformStyleProvider(store));		}
 	}
 
+	/**
+	 * Passes the chunk cache size to the database loaders, it applies to files
+	 * loaded afterwards.
+	 */
+	private void setChunkCacheSize() {
+		int size = store.getInt(PreferenceConstants.CHUNK_CACHE_SIZE, 256);
+		database.setLoaderOption(IWaveformDbLoader.CHUNK_CACHE_SIZE, Math.max(0, size));
+	}
+
 	class DbLoadJob extends Job {
 		final File file;
 		public DbLoadJob(String name, final File file) {
@@ -655,6 +668,7 @@ public class WaveformViewer implements IFileChangeListener, IPreferenceChangeLis
 		saveWaveformViewerState(state);
 		waveformPane.getStreamList().clear();
 		database =  dbFactory.getDatabase();
+		setChunkCacheSize();
 		database.addPropertyChangeListener(evt -> {
 			if (IHierNode.WAVEFORMS.equals(evt.getPropertyName())) { //$NON-NLS-1$
 				myParent.getDisplay().syncExec(() -> waveformPane.setMaxTime(database.getMaxTime()));
@@ -842,6 +856,10 @@ public class WaveformViewer implements IFileChangeListener, IPreferenceChangeLis
 				}
 			}
 		}
+		List<IWaveform> restored = new ArrayList<>();
+		for (TrackEntry trackEntry : trackEntries)
+			restored.add(trackEntry.waveform);
+		database.loadEvents(restored);
 		Integer cursorLength = state.containsKey(SHOWN_CURSOR+"S")?Integer.parseInt(state.get(SHOWN_CURSOR + "S")):0; //$NON-NLS-1$ //$NON-NLS-2$
 		List<ICursor> cursors = waveformPane.getCursorList();
 		if (cursorLength == cursors.size()) {
@@ -918,11 +936,15 @@ public class WaveformViewer implements IFileChangeListener, IPreferenceChangeLis
 	@Optional
 	public void getAddWaveformEvent(@UIEventTopic(WaveformViewer.ADD_WAVEFORM) Object o) {
 		Object sel = o == null ? selectionService.getSelection() : o;
-		if (sel instanceof IStructuredSelection)
+		if (sel instanceof IStructuredSelection) {
+			List<IWaveform> waveforms = new ArrayList<>();
 			for (Object el : ((IStructuredSelection) sel).toArray()) {
 				if (el instanceof IWaveform)
-					addStreamToList((IWaveform) el, false);
+					waveforms.add((IWaveform) el);
 			}
+			if (!waveforms.isEmpty())
+				addStreamsToList(waveforms.toArray(new IWaveform[waveforms.size()]), false);
+		}
 	}
 
 	/**
@@ -995,6 +1017,8 @@ public class WaveformViewer implements IFileChangeListener, IPreferenceChangeLis
 	 * @param insert the insert
 	 */
 	public void addStreamsToList(IWaveform[] iWaveforms, boolean insert) {
+		// let the database read the events of all new waveforms at once instead of one by one when painted
+		database.loadEvents(Arrays.asList(iWaveforms));
 		IStructuredSelection selection = (IStructuredSelection) waveformPane.getSelection();
 		if (selection.size() == 0) {
 			for (IWaveform waveform : iWaveforms)
@@ -4,6 +4,7 @@ import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerComparator;
 
 import com.minres.scviewer.database.tx.ITxAttribute;
+import com.minres.scviewer.database.tx.TxAttributeValues;
 
 /**
  * The Class TxAttributeViewerSorter.
@@ -62,7 +63,10 @@ public class TxAttributeViewerSorter extends ViewerComparator {
 				rc = getComparator().compare(p1.getDataType().name(), p2.getDataType().name());
 				break;
 			case 2:
-				rc = getComparator().compare(p1.getValue().toString(), p2.getValue().toString());
+				if(p1.getValue() instanceof Number && p2.getValue() instanceof Number)
+					rc = TxAttributeValues.compare(p1.getValue(), p2.getValue());
+				else
+					rc = getComparator().compare(p1.getValue().toString(), p2.getValue().toString());
 				break;
 			}
 			// If descending order, flip the direction
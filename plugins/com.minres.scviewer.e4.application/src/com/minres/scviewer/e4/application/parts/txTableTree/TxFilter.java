@@ -13,6 +13,7 @@ import org.eclipse.jface.viewers.ViewerFilter;
 import com.minres.scviewer.database.DataType;
 import com.minres.scviewer.database.tx.ITx;
 import com.minres.scviewer.database.tx.ITxAttribute;
+import com.minres.scviewer.database.tx.TxAttributeIndex;
 
 /**
  * The Class TxAttributeFilter.
@@ -28,6 +29,15 @@ public class TxFilter extends ViewerFilter {
 	
 	private Pattern pattern=null;
 
+	/** The search value of integer types, it is parsed once. */
+	private BigInteger searchNumber=null;
+
+	/** The attribute index of the transactions, null while it is built. */
+	private TxAttributeIndex index=null;
+
+	/** The ids of the matching transactions, null if they are not looked up in the index. */
+	private long[] matches=null;
+
 	/**
 	 * Sets the search text.
 	 *
@@ -37,6 +47,7 @@ public class TxFilter extends ViewerFilter {
 	public void setSearchProp(String s, DataType type) {
 		this.searchProp = s;
 		this.searchType = type;
+		update();
 	}
 	/**
 	 * Sets the search text.
@@ -45,6 +56,27 @@ public class TxFilter extends ViewerFilter {
 	 */
 	public void setSearchValue(String s) {
 		this.searchValue = s;
+		update();
+	}
+
+	/**
+	 * Sets the attribute index of the transactions, once set matching transactions
+	 * are looked up in the index instead of checking their attributes.
+	 *
+	 * @param index the index
+	 */
+	public void setIndex(TxAttributeIndex index) {
+		this.index = index;
+		update();
+	}
+
+	/**
+	 * Parses the search value for the search type and looks up the matches.
+	 */
+	private void update() {
+		matches = null;
+		if (searchValue == null || searchValue.length() == 0)
+			return;
 		if(searchType==DataType.STRING) {
 			try {
 			    //pattern = Pattern.compile(searchValue, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
@@ -52,6 +84,35 @@ public class TxFilter extends ViewerFilter {
 			} catch (PatternSyntaxException e) {
 				pattern = null;
 			}
+		} else if(searchType==DataType.INTEGER || searchType==DataType.UNSIGNED) {
+			try {
+				searchNumber = parseBigInteger(searchValue);
+			} catch (NumberFormatException e) {
+				searchNumber = null;
+			}
+		}
+		if(index==null || searchProp==null || searchType==null)
+			return;
+		switch(searchType) {
+		case BOOLEAN:
+		case ENUMERATION:
+			matches = index.find(searchProp, v -> searchValue.equalsIgnoreCase(v.toString()));
+			break;
+		case INTEGER:
+		case UNSIGNED:
+			if(searchNumber==null)
+				matches = new long[0];
+			else if(searchNumber.bitLength()<64)
+				matches = index.findEqual(searchProp, searchNumber.longValue());
+			else
+				matches = index.findEqual(searchProp, searchNumber.toString());
+			break;
+		case STRING:
+			if(pattern!=null)
+				matches = index.find(searchProp, v -> pattern.matcher(v.toString()).find());
+			break;
+		default:
+			matches = new long[0];
 		}
 	}
 
@@ -68,6 +129,8 @@ public class TxFilter extends ViewerFilter {
 		else if(element instanceof TransactionTreeNode && ((TransactionTreeNode)element).type == TransactionTreeNodeType.TX)
 			iTx = ((TransactionTreeNode)element).element;
 		if(iTx==null) return true;
+		if(matches!=null)
+			return TxAttributeIndex.contains(matches, iTx.getId());
 		List<ITxAttribute> res = iTx.getAttributes().stream().filter(a -> searchProp.equals(a.getName())).collect(Collectors.toList());
 		if(res.size()==1) {
 			try {
@@ -75,12 +138,15 @@ public class TxFilter extends ViewerFilter {
 				switch(searchType) {
 				case BOOLEAN: // bool
 				case ENUMERATION:
-					return searchValue.equalsIgnoreCase((String) attr.getValue());
+					return searchValue.equalsIgnoreCase(attr.getValue().toString());
 				case INTEGER:
 				case UNSIGNED:
-					BigInteger lval = new BigInteger(attr.getValue().toString());
-					BigInteger sval = parseBigInteger(searchValue);
-					return lval.equals(sval);
+					if(searchNumber==null)
+						return false;
+					Object value = attr.getValue();
+					if(value instanceof Long)
+						return searchNumber.bitLength()<64 && (Long)value==searchNumber.longValue();
+					return searchNumber.equals(new BigInteger(value.toString()));
 				case STRING:
 					if(pattern!=null) {
 					    Matcher matcher = pattern.matcher( attr.getValue().toString());
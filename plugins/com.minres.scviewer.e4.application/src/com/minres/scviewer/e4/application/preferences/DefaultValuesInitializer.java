@@ -36,6 +36,7 @@ public class DefaultValuesInitializer extends AbstractPreferenceInitializer {
 		store.putBoolean(PreferenceConstants.SHOW_HOVER, true);
 		store.putBoolean(PreferenceConstants.SHOW_TX_DETAILS, false);
 		store.putInt(PreferenceConstants.TRACK_HEIGHT, 30);
+		store.putInt(PreferenceConstants.CHUNK_CACHE_SIZE, 256);
         for (WaveformColors c : WaveformColors.values()) {
         	 store.put(c.name()+"_COLOR", StringConverter.asString(styleProvider.getColor(c).getRGB())); //$NON-NLS-1$
         }
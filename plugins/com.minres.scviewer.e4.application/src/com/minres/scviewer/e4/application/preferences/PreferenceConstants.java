@@ -32,5 +32,8 @@ public class PreferenceConstants {
 	/** The Constant TRACK_HEIGHT. */
 	public static final String TRACK_HEIGHT="trackHeigth"; //$NON-NLS-1$
 	
+	/** The Constant CHUNK_CACHE_SIZE. */
+	public static final String CHUNK_CACHE_SIZE="chunkCacheSize"; //$NON-NLS-1$
+	
 	private PreferenceConstants() {}
 }
@@ -43,6 +43,10 @@ public class SCViewerPreferencesPage extends FieldEditorPreferencePage {
 				getFieldEditorParent()));
 		addField(new IntegerFieldEditor(PreferenceConstants.TRACK_HEIGHT, Messages.SCViewerPreferencesPage_2,
 				getFieldEditorParent()));
+		IntegerFieldEditor chunkCacheSize = new IntegerFieldEditor(PreferenceConstants.CHUNK_CACHE_SIZE, Messages.SCViewerPreferencesPage_4,
+				getFieldEditorParent());
+		chunkCacheSize.setValidRange(0, 16384);
+		addField(chunkCacheSize);
 
 	}
 
@@ -10,24 +10,48 @@
  *******************************************************************************/
 package com.minres.scviewer.database.test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.minres.scviewer.database.BitVector;
+import com.minres.scviewer.database.DataType;
 import com.minres.scviewer.database.EventEntry;
+import com.minres.scviewer.database.EventKind;
 import com.minres.scviewer.database.IEvent;
+import com.minres.scviewer.database.IEventList;
 import com.minres.scviewer.database.IWaveform;
 import com.minres.scviewer.database.IWaveformDb;
+import com.minres.scviewer.database.IWaveformDbLoader;
+import com.minres.scviewer.database.SignalSummary;
+import com.minres.scviewer.database.TxEventList;
+import com.minres.scviewer.database.sqlite.SQLiteDbLoader;
 import com.minres.scviewer.database.tx.ITx;
 import com.minres.scviewer.database.tx.ITxAttribute;
 import com.minres.scviewer.database.tx.ITxEvent;
+import com.minres.scviewer.database.tx.TxAttributeIndex;
+import com.minres.scviewer.database.tx.TxAttributeValues;
+import com.minres.scviewer.database.tx.TxCache;
+import com.minres.scviewer.database.tx.TxIntervalIndex;
 
 public class DatabaseServicesTest {
 
@@ -64,6 +88,74 @@ public class DatabaseServicesTest {
 
 	}
 
+	@Test
+	public void testVCDScalarValueOfVector() throws Exception {
+		File f = File.createTempFile("scalar", ".vcd");
+		try {
+			Files.write(f.toPath(), String.join("\n",
+					"$timescale 1 ps $end",
+					"$scope module top $end",
+					"$var wire 4 ! nibble [3:0] $end",
+					"$var wire 40 \" wide [39:0] $end",
+					"$upscope $end",
+					"$enddefinitions $end",
+					"#0",
+					"b0101 !",
+					"b0 \"",
+					"#10",
+					"x!",
+					"z\"",
+					"").getBytes());
+			waveformDb.load(f);
+			IWaveform nibble = waveformDb.getAllWaves().stream().filter(s -> s.getName().startsWith("nibble")).findFirst().get();
+			IWaveform wide = waveformDb.getAllWaves().stream().filter(s -> s.getName().startsWith("wide")).findFirst().get();
+			assertEquals(BitVector.pack(4, "0101"), ((BitVector)nibble.getEvents().firstEntry().events[0]).toPacked());
+			assertEquals(BitVector.pack(4, "xxxx"), ((BitVector)nibble.getEvents().lastEntry().events[0]).toPacked());
+			assertEquals(BitVector.fromString(40, "z".repeat(40)), wide.getEvents().lastEntry().events[0]);
+		} finally {
+			f.delete();
+		}
+	}
+
+	@Test
+	public void testSignalSummary() throws Exception {
+		waveformDb.load(new File("inputs/simple_system.vcd").getAbsoluteFile());
+		IWaveform signal = waveformDb.getAllWaves().stream()
+				.filter(s -> s.getFullName().equals("i_system.i_platform.i_gpio0.regs.value[31:0]")).findFirst().get();
+		SignalSummary summary = new SignalSummary(signal);
+		assertTrue(summary.getLevelCount() > 1);
+		SignalSummary.Level finest = summary.getLevel(Long.MAX_VALUE);
+		while(summary.getLevel(finest.getWidth() - 1) != null)
+			finest = summary.getLevel(finest.getWidth() - 1);
+		assertTrue(finest.size() <= signal.getEvents().size() / 8);
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for(EventEntry entry: signal.getEvents()) {
+			double v = ((BitVector)entry.events[0]).toUnsignedValue().doubleValue();
+			min = Math.min(min, v);
+			max = Math.max(max, v);
+		}
+		for(long width = finest.getWidth(); width > 0; width *= 2) {
+			SignalSummary.Level level = summary.getLevel(width);
+			if(level.getWidth() != width)
+				continue;
+			int count = 0;
+			double levelMin = Double.POSITIVE_INFINITY;
+			double levelMax = Double.NEGATIVE_INFINITY;
+			for(int i = 0; i < level.size(); i++) {
+				count += level.getCount(i);
+				levelMin = Math.min(levelMin, level.getMin(i, false));
+				levelMax = Math.max(levelMax, level.getMax(i, false));
+				assertEquals(signal.getEvents().get(level.getEnd(i))[0], level.getLast(i));
+			}
+			assertEquals(signal.getEvents().size(), count);
+			assertEquals(min, levelMin, 0.0);
+			assertEquals(max, levelMax, 0.0);
+		}
+		assertEquals(1, summary.getLevel(Long.MAX_VALUE).size());
+		assertEquals(0, finest.ceilingIndex(signal.getEvents().firstKey()));
+	}
+
 	@Test
 	public void testTxSQLite() throws Exception {
 		File f = new File("inputs/my_sqldb.txdb").getAbsoluteFile();
@@ -74,6 +166,89 @@ public class DatabaseServicesTest {
 		assertEquals(0,  waveformDb.getChildNodes().size());
 	}
 
+	@Test
+	public void testTxSQLiteWindows() throws Exception {
+		File f = new File("inputs/my_sqldb.txdb").getAbsoluteFile();
+		long length = f.length();
+		long lastModified = f.lastModified();
+		SQLiteDbLoader windowed = new SQLiteDbLoader();
+		windowed.load(f);
+		SQLiteDbLoader scanned = new SQLiteDbLoader();
+		scanned.load(f);
+		List<IWaveform> streams = new ArrayList<>(windowed.getAllWaves());
+		List<IWaveform> scannedStreams = new ArrayList<>(scanned.getAllWaves());
+		assertEquals(3, streams.size());
+		long max = windowed.getMaxTime();
+		long step = max / 17 + 1;
+		for(int i=0; i<streams.size(); i++) {
+			// iterating reads all events of the stream at once
+			TreeMap<Long, String> all = new TreeMap<>();
+			for(EventEntry entry: scannedStreams.get(i).getEvents())
+				all.put(entry.timestamp, describe(entry));
+			IEventList events = streams.get(i).getEvents();
+			// indexing the intervals would read all transactions
+			assertNull(TxIntervalIndex.of(streams.get(i)).join());
+			for(long from=0; from<=max; from+=step) {
+				for(long to=from; to<=max+step; to+=3*step) {
+					List<String> expected = new ArrayList<>(all.subMap(from, true, to, true).values());
+					List<String> actual = new ArrayList<>();
+					for(EventEntry entry: events.subMap(from, true, to))
+						actual.add(describe(entry));
+					assertEquals(expected, actual);
+				}
+				assertEquals(all.floorKey(from), timestamp(events.floorEntry(from)));
+				assertEquals(all.ceilingKey(from), timestamp(events.ceilingEntry(from)));
+				assertEquals(all.lowerKey(from), timestamp(events.lowerEntry(from)));
+				assertEquals(all.higherKey(from), timestamp(events.higherEntry(from)));
+			}
+			assertEquals(all.size(), events.size());
+			assertEquals(all.firstKey(), timestamp(events.firstEntry()));
+			assertEquals(all.lastKey(), timestamp(events.lastEntry()));
+			for(Map.Entry<Long, String> entry: all.entrySet())
+				assertNotNull(events.get(entry.getKey()));
+		}
+		windowed.dispose();
+		scanned.dispose();
+		// the indices are not written to the file unless enabled
+		assertEquals(length, f.length());
+		assertEquals(lastModified, f.lastModified());
+	}
+
+	@Test
+	public void testTxSQLiteIndices() throws Exception {
+		File f = File.createTempFile("indices", ".txdb");
+		System.setProperty("ScvSQLiteIndices", "true");
+		try {
+			Files.copy(new File("inputs/my_sqldb.txdb").toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			long length = f.length();
+			SQLiteDbLoader loader = new SQLiteDbLoader();
+			loader.load(f);
+			loader.dispose();
+			long indexed = f.length();
+			assertTrue(indexed > length);
+			// existing indices are kept
+			loader = new SQLiteDbLoader();
+			loader.load(f);
+			assertEquals(3, loader.getAllWaves().size());
+			loader.dispose();
+			assertEquals(indexed, f.length());
+		} finally {
+			System.clearProperty("ScvSQLiteIndices");
+			f.delete();
+		}
+	}
+
+	private static String describe(EventEntry entry) {
+		StringBuilder sb = new StringBuilder().append(entry.timestamp).append(':');
+		for(IEvent evt: entry.events)
+			sb.append(' ').append(evt.getKind()).append(((ITxEvent)evt).getTransaction().getId());
+		return sb.toString();
+	}
+
+	private static Long timestamp(EventEntry entry) {
+		return entry!=null ? entry.timestamp : null;
+	}
+
 	@Test
 	public void testTxText() throws Exception {
 		File f = new File("inputs/my_db.txlog").getAbsoluteFile();
@@ -105,6 +280,55 @@ public class DatabaseServicesTest {
 		assertEquals(1,  waveformDb.getChildNodes().size());
 	}
 
+	@Test
+	public void testTxTextLines() throws Exception {
+		File f = File.createTempFile("lines", ".txlog");
+		try {
+			Files.write(f.toPath(), String.join("\n",
+					"scv_tr_stream (ID 1, name \"lines\", kind \"transactor\")",
+					"scv_tr_generator (ID 2, name \"gen\", scv_tr_stream 1,",
+					"begin_attribute (ID 0, name \"value\", type \"UNSIGNED\")",
+					")",
+					"tx_begin 10 2 1 fs",
+					"a 1",
+					"tx_end 10 2 2 ps",
+					"tx_begin 11 2 3 ns\r",
+					"a 2\r",
+					"tx_end 11 2 4 us   ",
+					"",
+					"tx_begin 12 2 5 ms",
+					"a 3",
+					"tx_record_attribute 12 \"size\" UNSIGNED = 24  ",
+					"tx_end 12 2 6 s",
+					"tx_begin 13 2 7 s",
+					"a 4",
+					"tx_end 13 2 x s",
+					"tx_begin 14 2 8 s",
+					"a 5",
+					"tx_end 14 2 9 s",
+					"").getBytes());
+			waveformDb.load(f);
+			IWaveform stream = waveformDb.getStreamByName("lines");
+			List<Long> times = new ArrayList<>();
+			List<Object> values = new ArrayList<>();
+			for(EventEntry entry: stream.getEvents())
+				for(IEvent evt: entry.events) {
+					times.add(entry.timestamp);
+					if(evt.getKind()==EventKind.BEGIN)
+						values.add(((ITxEvent)evt).getTransaction().getAttributes().get(0).getValue());
+				}
+			// the malformed end of transaction 13 stops the parsing like a truncated file
+			assertEquals(List.of(1L, 2000L, 3000000L, 4000000000L, 5000000000000L, 6000000000000000L), times);
+			assertEquals(List.of(1L, 2L, 3L), values);
+			assertEquals(7000000000000000L, waveformDb.getMaxTime());
+			ITx tx = ((ITxEvent)stream.getEvents().get(5000000000000L)[0]).getTransaction();
+			assertEquals("size", tx.getAttributes().get(1).getName());
+			assertEquals(24L, tx.getAttributes().get(1).getValue());
+		} finally {
+			f.delete();
+		}
+	}
+
 	@Test
 	public void testHierarchicalVCD() throws Exception {
 		File f = new File("inputs/simple_system.vcd").getAbsoluteFile();
@@ -185,6 +409,282 @@ public class DatabaseServicesTest {
 		});
 	}
 
+	@Test
+	public void testAttributeValues() throws Exception {
+		List<List<Object>> values = new ArrayList<>();
+		for(String name: new String[] {"inputs/my_db.txlog", "inputs/my_db.ftr"}) {
+			waveformDb.load(new File(name).getAbsoluteFile());
+			IEvent evt = waveformDb.getStreamByName("tr.pipelined_stream").getEventsAtTime(0)[0];
+			List<Object> txValues = new ArrayList<>();
+			for(ITxAttribute attr: ((ITxEvent)evt).getTransaction().getAttributes()) {
+				if(attr.getDataType()==DataType.UNSIGNED || attr.getDataType()==DataType.INTEGER)
+					assertTrue(attr.getValue() instanceof Long);
+				txValues.add(attr.getValue());
+			}
+			values.add(txValues);
+		}
+		assertEquals(values.get(0), values.get(1));
+		assertEquals(Long.valueOf(42), TxAttributeValues.valueOf(DataType.UNSIGNED, "42"));
+		assertEquals("0x2a", TxAttributeValues.valueOf(DataType.UNSIGNED, "0x2a"));
+		assertEquals(Boolean.TRUE, TxAttributeValues.valueOf(DataType.BOOLEAN, "True"));
+		assertTrue(TxAttributeValues.compare(9L, 10L) < 0);
+	}
+
+	@Test
+	public void testAttributeIndex() throws Exception {
+		waveformDb.load(new File("inputs/my_db.txlog").getAbsoluteFile());
+		IWaveform stream = waveformDb.getStreamByName("tr.pipelined_stream");
+		TxAttributeIndex index = new TxAttributeIndex(stream);
+		assertTrue(index.size() > 0);
+		assertTrue(index.getAttributes().size() > 0);
+		String name = index.getAttributes().keySet().iterator().next();
+		List<Long> expected = new ArrayList<>();
+		Object value = null;
+		for(EventEntry entry: stream.getEvents())
+			for(IEvent evt: entry.events) {
+				if(evt.getKind()!=EventKind.BEGIN && evt.getKind()!=EventKind.SINGLE)
+					continue;
+				ITx tx = ((ITxEvent)evt).getTransaction();
+				for(ITxAttribute attr: tx.getAttributes())
+					if(attr.getName().equals(name)) {
+						if(value==null)
+							value = attr.getValue();
+						if(value.equals(attr.getValue()))
+							expected.add(tx.getId());
+					}
+			}
+		expected.sort(null);
+		long[] found = index.findEqual(name, value);
+		assertEquals(expected.size(), found.length);
+		for(int i=0; i<found.length; i++)
+			assertEquals(expected.get(i).longValue(), found[i]);
+		final Object match = value;
+		assertEquals(found.length, index.find(name, v -> v.equals(match)).length);
+		assertEquals(0, index.findEqual("no such attribute", value).length);
+	}
+
+	@Test
+	public void testAttributeIndexNonCanonical() throws Exception {
+		File f = File.createTempFile("values", ".txlog");
+		try {
+			Files.write(f.toPath(), String.join("\n",
+					"scv_tr_stream (ID 1, name \"values\", kind \"transactor\")",
+					"scv_tr_generator (ID 2, name \"gen\", scv_tr_stream 1,",
+					"begin_attribute (ID 0, name \"value\", type \"UNSIGNED\")",
+					")",
+					"tx_begin 10 2 1 ns",
+					"a 7",
+					"tx_end 10 2 2 ns",
+					"tx_begin 11 2 3 ns",
+					"a 007",
+					"tx_end 11 2 4 ns",
+					"tx_begin 12 2 5 ns",
+					"a 8",
+					"tx_end 12 2 6 ns",
+					"tx_begin 13 2 7 ns",
+					"a 018446744073709551616",
+					"tx_end 13 2 8 ns",
+					"").getBytes());
+			waveformDb.load(f);
+			TxAttributeIndex index = new TxAttributeIndex(waveformDb.getStreamByName("values"));
+			// the index matches the numbers like checking the attributes of each transaction does
+			assertArrayEquals(new long[] {10, 11}, index.findEqual("value", 7L));
+			assertArrayEquals(new long[] {10, 11}, index.findEqual("value", "007"));
+			assertArrayEquals(new long[] {10, 11, 12}, index.findRange("value", 7, 8));
+			assertArrayEquals(new long[] {13}, index.findEqual("value", "18446744073709551616"));
+		} finally {
+			f.delete();
+		}
+	}
+
+	@Test
+	public void testTxCache() throws Exception {
+		waveformDb.load(new File("inputs/my_db.txlog").getAbsoluteFile());
+		ITx tx = ((ITxEvent)waveformDb.getStreamByName("tr.pipelined_stream").getEvents().firstEntry().events[0]).getTransaction();
+		LongFunction<ITx> factory = id -> tx;
+		// a cache holding one transaction per segment finds ids sharing the segment of id 0
+		TxCache<ITx> probe = new TxCache<>(16);
+		probe.get(0, factory);
+		List<Long> sameSegment = new ArrayList<>();
+		for(long id=1; sameSegment.size()<2; id++) {
+			probe.get(id, factory);
+			long misses = probe.getMissCount();
+			probe.get(0, factory);
+			if(probe.getMissCount()>misses)
+				sameSegment.add(id);
+		}
+		assertTrue(probe.size()<=16);
+		long a = sameSegment.get(0);
+		long b = sameSegment.get(1);
+		TxCache<ITx> cache = new TxCache<>(32);
+		assertSame(tx, cache.get(0, factory));
+		cache.get(a, factory);
+		assertSame(tx, cache.get(0, factory));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		// b evicts a as 0 has been used more recently
+		cache.get(b, factory);
+		cache.get(0, factory);
+		assertEquals(2, cache.getHitCount());
+		cache.get(a, factory);
+		assertEquals(4, cache.getMissCount());
+		// a evicted b in turn
+		assertEquals(2, cache.size());
+		assertNull(cache.get(1000, id -> null));
+		assertEquals(5, cache.getMissCount());
+		assertEquals(2, cache.size());
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.getHitCount());
+	}
+
+	@Test
+	public void testTxEventList() throws Exception {
+		List<Long> resolved = new ArrayList<>();
+		TxEventList.Table table = new TxEventList.Table(id -> {
+			resolved.add(id);
+			return null;
+		});
+		TxEventList stream = new TxEventList(table, TxEventList.STREAM);
+		TxEventList gen0 = new TxEventList(table, TxEventList.GENERATOR);
+		TxEventList gen1 = new TxEventList(table, TxEventList.GENERATOR);
+		// generator, transaction id and time of the events
+		long[][] events = {{0, 1, 10}, {1, 2, 10}, {1, 2, 20}, {0, 1, 30}, {0, 3, 20}};
+		TxEventList[] gens = {gen0, gen1};
+		EventKind[] kinds = {EventKind.BEGIN, EventKind.BEGIN, EventKind.END, EventKind.END, EventKind.SINGLE};
+		for(int i=0; i<events.length; i++) {
+			int evt = table.add(kinds[i], events[i][1], events[i][2]);
+			stream.add(evt);
+			gens[(int)events[i][0]].add(evt);
+		}
+		assertEquals(5, table.size());
+		assertEquals(List.of(10L, 20L, 30L), timestamps(stream));
+		assertEquals(List.of(10L, 20L, 30L), timestamps(gen0));
+		assertEquals(List.of(10L, 20L), timestamps(gen1));
+		// the events of a timestamp are views of the table rows in insertion order
+		IEvent[] atTen = stream.get(10);
+		assertEquals(2, atTen.length);
+		TxEventList.Event first = (TxEventList.Event)atTen[0];
+		assertEquals(EventKind.BEGIN, first.getKind());
+		assertEquals(10, first.getTime());
+		assertEquals(1, first.getTransactionId());
+		assertEquals(2, ((TxEventList.Event)atTen[1]).getTransactionId());
+		assertEquals(-1, first.getRowIndex());
+		assertEquals(first, stream.get(10)[0]);
+		assertEquals(first, first.duplicate());
+		assertEquals(1, gen0.get(10).length);
+		assertFalse(first.equals(gen0.get(10)[0]));
+		IEvent[] atTwenty = gen0.get(20);
+		assertEquals(1, atTwenty.length);
+		assertEquals(EventKind.SINGLE, atTwenty[0].getKind());
+		assertEquals(2, stream.get(20).length);
+		// the rows of the stream and of the generators are kept apart
+		((TxEventList.Event)gen0.get(10)[0]).setRowIndex(3);
+		assertEquals(3, ((ITxEvent)gen0.get(10)[0]).getRowIndex());
+		assertEquals(-1, first.getRowIndex());
+		assertTrue(resolved.isEmpty());
+		assertNull(first.getTransaction());
+		assertEquals(List.of(1L), resolved);
+		try {
+			stream.put(11, first);
+			fail();
+		} catch(IllegalArgumentException e) {
+			// the time of the event differs
+		}
+	}
+
+	@Test
+	public void testTxEventListRows() throws Exception {
+		Random random = new Random(42);
+		TxEventList.Table table = new TxEventList.Table(id -> null);
+		TxEventList events = new TxEventList(table, TxEventList.STREAM);
+		Map<Long, long[]> txs = new TreeMap<>();
+		for(long id=0; id<2000; id++) {
+			// many transactions begin when others end and some have no duration
+			long begin = random.nextInt(1000) * 10;
+			long end = begin + (random.nextInt(4)==0 ? 0 : random.nextInt(30) * 10);
+			txs.put(id, new long[] {begin, end});
+			if(begin==end) {
+				events.add(table.add(EventKind.SINGLE, id, begin));
+			} else {
+				events.add(table.add(EventKind.BEGIN, id, begin));
+				events.add(table.add(EventKind.END, id, end));
+			}
+		}
+		int rowCount = events.assignRows();
+		// the allocation scanning the end times of all rows for each transaction
+		List<Long> rowEndTime = new ArrayList<>();
+		Map<Long, Integer> rowByTxId = new TreeMap<>();
+		for(EventEntry entry: events) {
+			for(IEvent evt: entry.events) {
+				TxEventList.Event txEvt = (TxEventList.Event)evt;
+				long[] tx = txs.get(txEvt.getTransactionId());
+				if(evt.getKind()==EventKind.END) {
+					assertEquals(rowByTxId.remove(txEvt.getTransactionId()).intValue(), txEvt.getRowIndex());
+					continue;
+				}
+				int rowIdx = 0;
+				for (; rowIdx < rowEndTime.size() && rowEndTime.get(rowIdx)>tx[0]; rowIdx++);
+				if (rowEndTime.size() <= rowIdx)
+					rowEndTime.add(tx[1]);
+				else
+					rowEndTime.set(rowIdx, tx[1]);
+				if(evt.getKind()==EventKind.BEGIN)
+					rowByTxId.put(txEvt.getTransactionId(), rowIdx);
+				assertEquals(rowIdx, txEvt.getRowIndex());
+			}
+		}
+		assertTrue(rowByTxId.isEmpty());
+		assertEquals(rowEndTime.size(), rowCount);
+		assertTrue(rowCount > 10);
+	}
+
+	private static List<Long> timestamps(IEventList events) {
+		List<Long> res = new ArrayList<>();
+		for(EventEntry entry: events)
+			res.add(entry.timestamp);
+		return res;
+	}
+
+	@Test
+	public void testIntervalIndex() throws Exception {
+		waveformDb.load(new File("inputs/my_db.txlog").getAbsoluteFile());
+		IWaveform stream = waveformDb.getStreamByName("tr.pipelined_stream");
+		TxIntervalIndex index = new TxIntervalIndex(stream);
+		List<ITx> txs = new ArrayList<>();
+		List<Integer> rows = new ArrayList<>();
+		for(EventEntry entry: stream.getEvents())
+			for(IEvent evt: entry.events)
+				if(evt.getKind()==EventKind.BEGIN || evt.getKind()==EventKind.SINGLE) {
+					txs.add(((ITxEvent)evt).getTransaction());
+					rows.add(((ITxEvent)evt).getRowIndex());
+				}
+		assertEquals(txs.size(), index.size());
+		assertTrue(index.getRowCount() > 0);
+		long last = stream.getEvents().lastKey();
+		for(long time=0; time<=last; time+=last/97+1) {
+			long to = time + last/50;
+			for(int row=0; row<index.getRowCount(); row++) {
+				int overlapping = 0;
+				ITx latest = null;
+				for(int i=0; i<txs.size(); i++) {
+					ITx tx = txs.get(i);
+					if(rows.get(i)!=row)
+						continue;
+					if(tx.getBeginTime()<=to && tx.getEndTime()>=time)
+						overlapping++;
+					if(tx.getBeginTime()<=time && tx.getEndTime()>=time && (latest==null || tx.getBeginTime()>=latest.getBeginTime()))
+						latest = tx;
+				}
+				assertEquals(overlapping, index.getOverlapping(row, time, to).size());
+				ITx found = index.getAt(row, time);
+				assertEquals(latest==null, found==null);
+				if(latest!=null)
+					assertEquals(latest.getBeginTime(), found.getBeginTime());
+			}
+		}
+	}
+
 	@Test
 	public void testFst() throws Exception {
 		File f = new File("inputs/my_db.fst").getAbsoluteFile();
@@ -204,4 +704,140 @@ public class DatabaseServicesTest {
 			assertEquals("1", rw_entry.events[0].toString());
 		});
 	}
+
+	@Test
+	public void testFstLoadEvents() throws Exception {
+		File f = new File("inputs/my_db.fst").getAbsoluteFile();
+		assertTrue(f.exists());
+		waveformDb.load(f);
+		List<IWaveform> waveforms= waveformDb.getAllWaves();
+		waveformDb.loadEvents(waveforms);
+		waveforms.stream().filter(s -> s.getName().equals("bus_addr[7:0]")).forEach(s -> {
+			EventEntry bus_data_entry = s.getEvents().floorEntry(1400000000L);
+			assertEquals("01001111", bus_data_entry.events[0].toString());
+		});
+		waveforms.stream().filter(s -> s.getName().equals("rw")).forEach(s -> {
+			EventEntry rw_entry = s.getEvents().floorEntry(2360000000L);
+			assertEquals("1", rw_entry.events[0].toString());
+		});
+	}
+
+	@Test
+	public void testFstTimeWindowed() throws Exception {
+		File f = new File("inputs/my_db_sections.fst").getAbsoluteFile();
+		assertTrue(f.exists());
+		waveformDb.load(f);
+		IWaveformDb windowedDb = TestWaveformDbFactory.getDatabase();
+		System.setProperty("FstTimeWindowed", "true");
+		try {
+			windowedDb.load(f);
+		} finally {
+			System.clearProperty("FstTimeWindowed");
+		}
+		long maxTime = waveformDb.getMaxTime();
+		for(IWaveform eager: waveformDb.getAllWaves()) {
+			IEventList expected = eager.getEvents();
+			IEventList windowed = windowedDb.getAllWaves().stream()
+					.filter(s -> s.getFullName().equals(eager.getFullName())).findFirst().get().getEvents();
+			// start at the end so that the first lookups only decode windows
+			for(long time=maxTime; time>=0; time-=maxTime/23) {
+				assertEquals(expected.floorEntry(time).timestamp, windowed.floorEntry(time).timestamp);
+				assertEquals(expected.floorEntry(time).events[0], windowed.floorEntry(time).events[0]);
+				EventEntry ceiling = expected.ceilingEntry(time);
+				assertEquals(ceiling==null, windowed.ceilingEntry(time)==null);
+				if(ceiling!=null)
+					assertEquals(ceiling.timestamp, windowed.ceilingEntry(time).timestamp);
+			}
+			assertEquals(expected.lastKey(), windowed.lastKey());
+			assertEquals(expected.lastEntry().events[0], windowed.lastEntry().events[0]);
+			assertEquals(expected.firstKey(), windowed.firstKey());
+			assertEquals(expected.size(), windowed.size());
+		}
+	}
+
+	@Test
+	public void testCFtrWithoutChunkCache() throws Exception {
+		waveformDb.setLoaderOption(IWaveformDbLoader.CHUNK_CACHE_SIZE, 0);
+		File f = new File("inputs/my_db_c.ftr").getAbsoluteFile();
+		assertTrue(f.exists());
+		waveformDb.load(f);
+		List<IWaveform> waveforms =  waveformDb.getAllWaves();
+		waveforms.stream().filter(s -> s.getId()==1).forEach(s -> {
+			assertEquals(27, s.getEvents().size());
+			for(EventEntry entry: s.getEvents().entrySet()) {
+				for(IEvent evt: entry.events) {
+					ITx tx = ((ITxEvent)evt).getTransaction();
+					assertEquals(3, tx.getAttributes().size());
+				}
+			}
+		});
+	}
+
+	@Test
+	public void testIndexCache() throws Exception {
+		File cacheDir = Files.createTempDirectory("scviewer").toFile();
+		System.setProperty("ScvIndexCache", "true");
+		System.setProperty("ScvIndexCacheDir", cacheDir.getPath());
+		try {
+			for(String name: new String[] {"inputs/my_db.vcd", "inputs/my_db.txlog"}) {
+				File f = new File(name).getAbsoluteFile();
+				IWaveformDb parsedDb = TestWaveformDbFactory.getDatabase();
+				parsedDb.load(f);
+				IWaveformDb cachedDb = TestWaveformDbFactory.getDatabase();
+				cachedDb.load(f);
+				assertEquals(describe(parsedDb), describe(cachedDb));
+			}
+			assertEquals(2, cacheDir.list().length);
+			// indexes exceeding the size limit are not written
+			for(File f: cacheDir.listFiles())
+				f.delete();
+			System.setProperty("ScvIndexCacheSize", "0");
+			File f = new File("inputs/my_db.vcd").getAbsoluteFile();
+			IWaveformDb firstDb = TestWaveformDbFactory.getDatabase();
+			firstDb.load(f);
+			IWaveformDb secondDb = TestWaveformDbFactory.getDatabase();
+			secondDb.load(f);
+			// closing the databases waits for their writes running in the background
+			firstDb.close();
+			secondDb.close();
+			assertEquals(0, cacheDir.list().length);
+			// files not belonging to the cache are neither counted nor removed
+			File unrelated = new File(cacheDir, "unrelated.txt");
+			Files.write(unrelated.toPath(), new byte[2 << 20]);
+			unrelated.setLastModified(0);
+			System.setProperty("ScvIndexCacheSize", "1");
+			TestWaveformDbFactory.getDatabase().load(f);
+			// loading again waits for the write and reads the index
+			TestWaveformDbFactory.getDatabase().load(f);
+			assertTrue(unrelated.exists());
+			assertEquals(2, cacheDir.list().length);
+		} finally {
+			System.clearProperty("ScvIndexCache");
+			System.clearProperty("ScvIndexCacheDir");
+			System.clearProperty("ScvIndexCacheSize");
+			for(File f: cacheDir.listFiles())
+				f.delete();
+			cacheDir.delete();
+		}
+	}
+
+	private static String describe(IWaveformDb db) {
+		StringBuilder sb = new StringBuilder().append(db.getMaxTime());
+		for(IWaveform w: db.getAllWaves()) {
+			sb.append('\n').append(w.getFullName()).append(" rows=").append(w.getRowCount()).append(':');
+			for(EventEntry entry: w.getEvents().entrySet()) {
+				for(IEvent evt: entry.events) {
+					sb.append(' ').append(entry.timestamp).append('=');
+					if(evt instanceof ITxEvent) {
+						ITx tx = ((ITxEvent)evt).getTransaction();
+						sb.append(evt.getKind()).append(tx.getId()).append('/').append(((ITxEvent)evt).getRowIndex());
+						for(ITxAttribute attr: tx.getAttributes())
+							sb.append('[').append(attr.getName()).append('=').append(attr.getValue()).append(']');
+					} else
+						sb.append(evt);
+				}
+			}
+		}
+		return sb.toString();
+	}
 }
@@ -7,17 +7,42 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
+import com.minres.scviewer.database.EventEntry;
 import com.minres.scviewer.database.EventList;
 import com.minres.scviewer.database.IEventList;
+import com.minres.scviewer.database.PrimitiveEventList;
+import com.minres.scviewer.database.SignalEventList;
 
+@RunWith(Parameterized.class)
 public class EventListTest {
 
-	EventList createList(int[] times) {
-		EventList list = new EventList();
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> implementations() {
+		return Arrays.asList(new Object[][] {
+			{ "EventList", (Supplier<IEventList>) EventList::new },
+			{ "PrimitiveEventList", (Supplier<IEventList>) PrimitiveEventList::new },
+			{ "SignalEventList", (Supplier<IEventList>) () -> new SignalEventList(8) }
+		});
+	}
+
+	private final Supplier<IEventList> factory;
+
+	public EventListTest(String name, Supplier<IEventList> factory) {
+		this.factory = factory;
+	}
+
+	IEventList createList(int[] times) {
+		IEventList list = factory.get();
 		for(int time: times)
 			list.put(time, null);
 		return list;
@@ -164,7 +189,7 @@ public class EventListTest {
 	
 	@Test
 	public void testInterface() throws Exception {
-		EventList emptyList = new EventList();
+		IEventList emptyList = factory.get();
 		IEventList populatedList = createList(new int[] {0, 2, 3, 5, 6, 7});
 		assertEquals(0, emptyList.size());
 		assertEquals(6, populatedList.size());
@@ -194,4 +219,41 @@ public class EventListTest {
 		assertNotNull(populatedList.get(5));
 		assertNull(populatedList.get(7));
 	}
+
+	@Test
+	public void testMultipleEventsPerKey() throws Exception {
+		IEventList list = factory.get();
+		list.put(3, null);
+		list.put(1, null);
+		list.put(3, null);
+		assertEquals(2, list.size());
+		assertEquals(2, list.get(3).length);
+		assertEquals(1, list.get(1).length);
+	}
+
+	@Test
+	public void testLargeList() throws Exception {
+		IEventList list = factory.get();
+		int count = 10000;
+		for(int i=count-1; i>=count/2; --i)
+			list.put(2L*i, null);
+		for(int i=0; i<count/2; ++i)
+			list.put(2L*i, null);
+		assertEquals(count, list.size());
+		assertEquals(0, list.firstKey());
+		assertEquals(2L*(count-1), list.lastKey());
+		assertEquals(4000, list.floorEntry(4001).timestamp);
+		assertEquals(4002, list.ceilingEntry(4001).timestamp);
+		assertEquals(3998, list.lowerEntry(4000).timestamp);
+		assertEquals(4002, list.higherEntry(4000).timestamp);
+		IEventList subList = list.subMap(1000, true, 9001);
+		assertEquals(4001, subList.size());
+		assertEquals(1000, subList.firstKey());
+		assertEquals(9000, subList.lastKey());
+		long last = -1;
+		for(EventEntry e: list) {
+			assertTrue(e.timestamp>last);
+			last = e.timestamp;
+		}
+	}
 }
@@ -0,0 +1,74 @@
+package com.minres.scviewer.database.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.minres.scviewer.database.BitVector;
+import com.minres.scviewer.database.DoubleVal;
+import com.minres.scviewer.database.IEvent;
+import com.minres.scviewer.database.SignalEventList;
+
+public class SignalEventListTest {
+
+	@Test
+	public void testPacking() throws Exception {
+		for(String value: new String[] {"0", "1", "x", "z", "10xz", "0110", "1z"}) {
+			BitVector bv = BitVector.fromString(4, value);
+			long packed = BitVector.pack(4, value);
+			assertEquals(bv.toPacked(), packed);
+			assertEquals(bv, BitVector.fromPacked(4, packed));
+			assertEquals(bv.toString(), BitVector.fromPacked(4, packed).toString());
+		}
+		String wide = "10110011100011110000111110000011";
+		assertEquals(BitVector.fromString(32, wide), BitVector.fromPacked(32, BitVector.pack(32, wide)));
+		assertNotEquals(BitVector.fromString(4, "0101"), BitVector.fromString(4, "0100"));
+		assertNotEquals(BitVector.fromString(4, "0101"), BitVector.fromString(5, "0101"));
+	}
+
+	@Test
+	public void testValuesAreInterned() throws Exception {
+		SignalEventList list = new SignalEventList(1);
+		for(int i=0; i<10000; ++i)
+			list.putPacked(i*10L, BitVector.pack(1, i%2==0?"0":"1"));
+		list.put(100005L, BitVector.fromString(1, "1"));
+		list.put(100010L, BitVector.fromString(1, "z"));
+		assertEquals(10002, list.size());
+		assertEquals(3, list.getDistinctValueCount());
+		IEvent[] zero = list.get(0L);
+		assertSame(zero, list.get(20L));
+		assertSame(list.get(10L), list.get(100005L));
+		assertEquals("0", zero[0].toString());
+		assertEquals("1", list.floorEntry(15L).events[0].toString());
+	}
+
+	@Test
+	public void testOutOfOrderAndSameTime() throws Exception {
+		SignalEventList list = new SignalEventList(4);
+		list.putPacked(20L, BitVector.pack(4, "0011"));
+		list.putPacked(10L, BitVector.pack(4, "0001"));
+		list.putPacked(20L, BitVector.pack(4, "0001"));
+		assertEquals(2, list.size());
+		assertEquals(10L, list.firstKey());
+		assertEquals(2, list.get(20L).length);
+		assertEquals(BitVector.fromString(4, "0011"), list.get(20L)[0]);
+		assertEquals(BitVector.fromString(4, "0001"), list.get(20L)[1]);
+	}
+
+	@Test
+	public void testNonPackedValues() throws Exception {
+		SignalEventList list = new SignalEventList(40);
+		String value = "1010101010101010101010101010101010101010";
+		list.put(1L, BitVector.fromString(40, value));
+		list.put(2L, BitVector.fromString(40, value));
+		list.put(3L, new DoubleVal(1.0));
+		list.put(4L, new DoubleVal(1.0));
+		assertEquals(2, list.getDistinctValueCount());
+		assertSame(list.get(1L), list.get(2L));
+		assertSame(list.get(3L), list.get(4L));
+		assertTrue(!list.isPackable());
+	}
+}